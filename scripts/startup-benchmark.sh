@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful POST /transactions.
+#
+#   scripts/startup-benchmark.sh [runs] [-- extra java args]
+#
+# Examples:
+#   ./mvnw -q package -DskipTests && scripts/startup-benchmark.sh 5
+#   ./mvnw -q package -DskipTests -Pfast-startup && LEDGER_APP_DIR=target/fast-startup \
+#       scripts/startup-benchmark.sh 5 -- -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+#       -Dspring.profiles.active=fast-startup
+set -euo pipefail
+
+RUNS=${1:-3}
+shift || true
+[[ "${1:-}" == "--" ]] && shift
+JAVA_ARGS=("$@")
+
+PORT=${LEDGER_BENCH_PORT:-18080}
+APP_DIR=${LEDGER_APP_DIR:-target}
+JAR=$(cd "$APP_DIR" && ls cbsledger-*.jar | grep -v plain | head -1)
+BASE="http://localhost:${PORT}/api/v1/ledger"
+
+now_ms() { date +%s%3N; }
+
+post() {
+    curl -s -o /dev/null -w '%{http_code}' -X POST -H 'Content-Type: application/json' -d "$2" "${BASE}$1" || true
+}
+
+results=()
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    (cd "$APP_DIR" && exec java "${JAVA_ARGS[@]}" -jar "$JAR" --server.port="$PORT" >/dev/null 2>&1) &
+    pid=$!
+
+    # Accounts may not exist when seed data is skipped; creating them is part of the measured path.
+    # Any HTTP status (including "already exists") means the server is up; 000 means nothing is listening yet.
+    until [[ "$(post /accounts '{"id":"BENCH-CASH","name":"Benchmark Cash","type":"ASSET","currency":"KES"}')" != 000 ]]; do
+        kill -0 "$pid" 2>/dev/null || { echo "application exited during startup" >&2; exit 1; }
+        sleep 0.02
+    done
+    post /accounts '{"id":"BENCH-EQUITY","name":"Benchmark Equity","type":"EQUITY","currency":"KES"}' >/dev/null
+
+    body='{"idempotencyKey":"bench-'"$run"'-'"$start"'","description":"startup benchmark","entries":[
+        {"accountId":"BENCH-CASH","debit":1,"credit":0},{"accountId":"BENCH-EQUITY","debit":0,"credit":1}]}'
+    until [[ "$(post /transactions "$body")" =~ ^2 ]]; do
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    results+=("$elapsed")
+    echo "run ${run}: first successful POST /transactions after ${elapsed} ms"
+
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+done
+
+printf '%s\n' "${results[@]}" | sort -n | awk '{ a[NR] = $1 } END { printf "min %d ms, median %d ms, max %d ms\n", a[1], a[int((NR + 1) / 2)], a[NR] }'
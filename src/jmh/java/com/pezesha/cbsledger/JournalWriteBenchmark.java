@@ -0,0 +1,134 @@
+package com.pezesha.cbsledger;
+
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import com.pezesha.cbsledger.repository.AccountRepository;
+import com.pezesha.cbsledger.repository.IdAllocator;
+import com.pezesha.cbsledger.repository.JournalEntryRepository;
+import com.pezesha.cbsledger.repository.JournalWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes one journal of {@code lines} lines, each on its own account, through the Spring Data repositories (per-line
+ * account save, aggregate save with generated keys) and through {@link JournalWriter}. Both load the accounts the same
+ * way and run in one transaction, against the in-memory H2 database the application starts with.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JournalWriteBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.0000");
+
+    @Param({"2", "10", "40"})
+    int lines;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private AccountRepository accountRepository;
+    private JournalEntryRepository journalEntryRepository;
+    private JournalWriter journalWriter;
+    private IdAllocator idAllocator;
+    private List<String> accountIds;
+    private Map<String, Long> accountNumbers;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(CbsLedgerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN");
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        accountRepository = context.getBean(AccountRepository.class);
+        journalEntryRepository = context.getBean(JournalEntryRepository.class);
+        journalWriter = context.getBean(JournalWriter.class);
+        idAllocator = context.getBean(IdAllocator.class);
+
+        accountIds = new ArrayList<>(lines);
+        accountNumbers = new HashMap<>();
+        for (int i = 0; i < lines; i++) {
+            String id = "BENCH-" + i;
+            accountIds.add(id);
+            accountNumbers.put(id, idAllocator.nextAccountNo());
+        }
+        context.getBean(JdbcTemplate.class)
+                .batchUpdate(
+                        """
+                        INSERT INTO accounts (id, name, account_type, currency, balance, created_at, version,
+                            account_no)
+                        VALUES (?, ?, 'ASSET', 'KES', 0, ?, 0, ?)
+                        """,
+                        accountIds,
+                        accountIds.size(),
+                        (ps, id) -> {
+                            ps.setString(1, id);
+                            ps.setString(2, "Benchmark " + id);
+                            ps.setTimestamp(3, Timestamp.from(Instant.now()));
+                            ps.setLong(4, accountNumbers.get(id));
+                        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void repositoryPath() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Account> accounts = loadAccounts();
+            Instant now = Instant.now();
+            Set<EntryLine> entries = new HashSet<>();
+            for (String accountId : accountIds) {
+                Account account = accounts.get(accountId);
+                accountRepository.save(account.withBalance(account.balance().add(AMOUNT)));
+                entries.add(new EntryLine(null, accountId, accountNumbers.get(accountId), AMOUNT, BigDecimal.ZERO));
+            }
+            journalEntryRepository.save(new JournalEntry(null, nextKey(), "bench", now, now, "POSTED", entries));
+        });
+    }
+
+    @Benchmark
+    public void journalWriterPath() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Account> accounts = loadAccounts();
+            Instant now = Instant.now();
+            Set<EntryLine> entries = new LinkedHashSet<>();
+            Map<String, BigDecimal> netChanges = new LinkedHashMap<>();
+            for (String accountId : accountIds) {
+                netChanges.merge(accountId, AMOUNT, BigDecimal::add);
+                entries.add(new EntryLine(
+                        idAllocator.nextLineId(), accountId, accountNumbers.get(accountId), AMOUNT, BigDecimal.ZERO));
+            }
+            journalWriter.applyBalanceChanges(accounts, netChanges);
+            journalWriter.insert(new JournalEntry(
+                    idAllocator.nextJournalId(), nextKey(), "bench", now, now, "POSTED", entries));
+        });
+    }
+
+    private Map<String, Account> loadAccounts() {
+        return accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::id, account -> account));
+    }
+
+    private String nextKey() {
+        return "bench-" + (++sequence);
+    }
+}
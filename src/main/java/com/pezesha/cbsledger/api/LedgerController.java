@@ -1,24 +1,49 @@
 package com.pezesha.cbsledger.api;
 
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.AccountingPeriod;
 import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.AccountQueryDao;
+import com.pezesha.cbsledger.repository.AccrualDao;
+import com.pezesha.cbsledger.service.AccountImportService;
+import com.pezesha.cbsledger.service.AccrualService;
+import com.pezesha.cbsledger.service.BalanceAlertService;
+import com.pezesha.cbsledger.service.LedgerColumnStore;
+import com.pezesha.cbsledger.service.LedgerSequence;
 import com.pezesha.cbsledger.service.LedgerService;
 import com.pezesha.cbsledger.service.LoanService;
+import com.pezesha.cbsledger.service.PeriodService;
+import com.pezesha.cbsledger.service.ReconciliationService;
+import com.pezesha.cbsledger.service.ReportJobService;
 import com.pezesha.cbsledger.service.ReportingService;
+import com.pezesha.cbsledger.service.ScheduledPostingService;
+import com.pezesha.cbsledger.service.SingleFlight;
+import com.pezesha.cbsledger.service.TransactionSearchIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.*;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
 
 @RestController
 @RequestMapping("/api/v1/ledger")
@@ -28,8 +53,22 @@ public class LedgerController {
 
     private final LedgerService ledgerService;
     private final LoanService loanService;
+
+    @Lazy
     private final ReportingService reportingService;
 
+    private final PeriodService periodService;
+    private final AccrualService accrualService;
+    private final ScheduledPostingService scheduledPostingService;
+    private final ReportJobService reportJobService;
+    private final ReconciliationService reconciliationService;
+    private final AccountImportService accountImportService;
+    private final BalanceAlertService balanceAlertService;
+    private final TransactionSearchIndex transactionSearchIndex;
+    private final SingleFlight singleFlight;
+    private final LedgerSequence ledgerSequence;
+    private final JsonMapper jsonMapper;
+
     // ==================== Account Management ====================
 
     @PostMapping("/accounts")
@@ -43,21 +82,87 @@ public class LedgerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(
+            value = "/accounts/import",
+            consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Import accounts in bulk",
+            description = "Creates accounts from a CSV (id, name, type, currency, parentId) or NDJSON file; parents may"
+                    + " appear anywhere in the file. Streams one JSON line per row, then a summary line")
+    @ApiResponse(responseCode = "200", description = "Created, rejected and failed rows, then the summary")
+    @ApiResponse(responseCode = "400", description = "Missing header columns or file too large")
+    public void importAccounts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream file,
+            HttpServletResponse response)
+            throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        AccountImportService.Format format = ndjson
+                ? AccountImportService.Format.NDJSON
+                : AccountImportService.Format.CSV;
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        DTO.AccountImportSummary summary = accountImportService.importAccounts(
+                new InputStreamReader(file, StandardCharsets.UTF_8), format, result -> writeLine(out, result));
+        writeLine(out, summary);
+        out.flush();
+    }
+
     @GetMapping("/accounts/{accountId}")
     @Operation(summary = "Get account details", description = "Retrieves account information including current balance")
-    public ResponseEntity<DTO.AccountResponse> getAccount(@PathVariable String accountId) {
-        return ResponseEntity.ok(ledgerService.getAccount(accountId));
+    public ResponseEntity<DTO.AccountResponse> getAccount(
+            @PathVariable String accountId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ledgerSequence.accountEtag(accountId);
+        return conditional(
+                ifNoneMatch,
+                etag,
+                () -> singleFlight.execute(
+                        "account", List.of(accountId, etag), () -> ledgerService.getAccount(accountId)));
     }
 
     @GetMapping("/accounts")
-    @Operation(summary = "List accounts", description = "Retrieves paginated list of accounts")
+    @Operation(
+            summary = "List accounts",
+            description = "Retrieves paginated list of accounts, optionally filtered by type, currency and parent")
     public ResponseEntity<Page<DTO.AccountResponse>> listAccounts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String accountType,
-            @RequestParam(required = false) String currency) {
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String parentId) {
         PageRequest pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(ledgerService.getAccounts(pageable));
+        return ResponseEntity.ok(ledgerService.getAccounts(accountFilter(accountType, currency, parentId), pageable));
+    }
+
+    @GetMapping("/accounts/scroll")
+    @Operation(
+            summary = "Scroll accounts",
+            description = "Keyset pagination by account id; pass nextAfterId from the previous page as afterId")
+    public ResponseEntity<DTO.AccountSlice> scrollAccounts(
+            @RequestParam(required = false) String afterId,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) String accountType,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String parentId) {
+        return ResponseEntity.ok(ledgerService.getAccountsAfter(
+                accountFilter(accountType, currency, parentId), afterId, checkLimit(size, 1_000)));
+    }
+
+    @GetMapping("/accounts/search")
+    @Operation(
+            summary = "Search accounts",
+            description = "Case-insensitive prefix search on account id or name, for account pickers")
+    public ResponseEntity<List<DTO.AccountResponse>> searchAccounts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String accountType,
+            @RequestParam(required = false) String currency) {
+        AccountQueryDao.AccountFilter filter = accountFilter(accountType, currency, null);
+        return ResponseEntity.ok(
+                ledgerService.searchAccounts(q, filter.type(), filter.currency(), checkLimit(limit, 100)));
     }
 
     @DeleteMapping("/accounts/{accountId}")
@@ -85,6 +190,34 @@ public class LedgerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @GetMapping("/transactions/search")
+    @Operation(
+            summary = "Search transactions",
+            description = "Finds transactions whose description or idempotency key contains q (letters and digits"
+                    + " only, at least 3) and/or with a line of the given amount, newest first. Pass nextBeforeId"
+                    + " from the previous page as beforeId")
+    public ResponseEntity<DTO.TransactionSlice> searchTransactions(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) BigDecimal amount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant toDate,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ledgerService.searchTransactions(
+                q, amount, fromDate, toDate, beforeId, checkLimit(limit, 100)));
+    }
+
+    @PostMapping("/transactions/search/rebuild")
+    @Operation(
+            summary = "Rebuild the transaction search index",
+            description = "Re-reads every journal into the search index in the background")
+    @ApiResponse(responseCode = "202", description = "Rebuild started")
+    @ApiResponse(responseCode = "409", description = "A rebuild is already running")
+    public ResponseEntity<Void> rebuildTransactionSearch() {
+        transactionSearchIndex.rebuild();
+        return ResponseEntity.accepted().build();
+    }
+
     @GetMapping("/transactions/{transactionId}")
     @Operation(
             summary = "Get transaction details",
@@ -103,6 +236,33 @@ public class LedgerController {
         return ResponseEntity.ok(response);
     }
 
+    // ==================== Scheduled Postings ====================
+
+    @PostMapping("/scheduled-postings")
+    @Operation(
+            summary = "Schedule a posting",
+            description = "Posts a balanced transaction at executeAt, once or on a daily, weekly or monthly recurrence")
+    @ApiResponse(responseCode = "201", description = "Posting scheduled")
+    @ApiResponse(responseCode = "400", description = "Invalid or unbalanced entries, or executeAt not in the future")
+    public ResponseEntity<DTO.ScheduledPostingResponse> schedulePosting(
+            @Valid @RequestBody DTO.ScheduledPostingRequest request) {
+        DTO.ScheduledPostingResponse response = scheduledPostingService.create(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/scheduled-postings/{id}")
+    @Operation(summary = "Get scheduled posting", description = "Returns the schedule, its next run and last outcome")
+    public ResponseEntity<DTO.ScheduledPostingResponse> getScheduledPosting(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduledPostingService.get(id));
+    }
+
+    @DeleteMapping("/scheduled-postings/{id}")
+    @Operation(summary = "Cancel scheduled posting", description = "Stops all further runs of an active schedule")
+    @ApiResponse(responseCode = "409", description = "Schedule already completed, failed or cancelled")
+    public ResponseEntity<DTO.ScheduledPostingResponse> cancelScheduledPosting(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduledPostingService.cancel(id));
+    }
+
     // ==================== Loan Lifecycle Operations ====================
 
     @PostMapping("/loans/disburse")
@@ -144,6 +304,115 @@ public class LedgerController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/loans/accruals/run")
+    @Operation(
+            summary = "Run daily interest accrual",
+            description = "Accrues one day of interest on every active loan; safe to re-run for the same business date")
+    public ResponseEntity<DTO.AccrualRunResponse> runAccrual(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        return ResponseEntity.ok(accrualService.runDailyAccrual(businessDate));
+    }
+
+    @GetMapping("/loans/{loanId}/accruals")
+    @Operation(summary = "Get loan accruals", description = "Lists the per-loan interest accrual sub-ledger")
+    public ResponseEntity<List<AccrualDao.LoanAccrualEntry>> getLoanAccruals(@PathVariable String loanId) {
+        return ResponseEntity.ok(accrualService.getLoanAccruals(loanId));
+    }
+
+    // ==================== Accounting Periods ====================
+
+    @GetMapping("/periods")
+    @Operation(summary = "List accounting periods", description = "Lists closed (archived) accounting periods")
+    public ResponseEntity<List<AccountingPeriod>> listPeriods() {
+        return ResponseEntity.ok(periodService.getPeriods());
+    }
+
+    @PostMapping("/periods/{period}/close")
+    @Operation(
+            summary = "Close an accounting period",
+            description = "Archives a finished month (yyyy-MM) and stores closing balances for the accounts it touched")
+    @ApiResponse(responseCode = "200", description = "Period closed")
+    @ApiResponse(responseCode = "409", description = "Period already closed or earlier periods still open")
+    public ResponseEntity<DTO.PeriodCloseResponse> closePeriod(@PathVariable YearMonth period) {
+        return ResponseEntity.ok(periodService.closePeriod(period));
+    }
+
+    // ==================== Reconciliation ====================
+
+    @PostMapping(
+            value = "/reconciliations",
+            consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Reconcile a statement",
+            description = "Matches a CSV bank or mobile-money statement (date, reference, amount) against the account's"
+                    + " postings; streams one JSON line per outcome, then a summary line")
+    @ApiResponse(responseCode = "200", description = "Matched, partial and unmatched items, then the summary")
+    @ApiResponse(responseCode = "400", description = "Missing header columns or window too long")
+    public void reconcileStatement(
+            @RequestParam String accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) BigDecimal amountTolerance,
+            @RequestParam(required = false) Integer dateToleranceDays,
+            InputStream statement,
+            HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        DTO.ReconciliationSummary summary = reconciliationService.reconcile(
+                new DTO.ReconciliationRequest(accountId, from, to, amountTolerance, dateToleranceDays),
+                new InputStreamReader(statement, StandardCharsets.UTF_8),
+                item -> writeLine(out, item));
+        writeLine(out, summary);
+        out.flush();
+    }
+
+    // ==================== Balance Alerts ====================
+
+    @PostMapping("/alerts/rules")
+    @Operation(
+            summary = "Watch an account balance",
+            description = "Raises an alert whenever a posting moves the balance BELOW or ABOVE the threshold")
+    @ApiResponse(responseCode = "201", description = "Rule created")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    public ResponseEntity<DTO.BalanceWatchRule> createBalanceWatchRule(
+            @Valid @RequestBody DTO.BalanceWatchRuleRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(balanceAlertService.createRule(request));
+    }
+
+    @GetMapping("/alerts/rules")
+    @Operation(summary = "List balance watch rules")
+    public ResponseEntity<List<DTO.BalanceWatchRule>> listBalanceWatchRules(
+            @RequestParam(required = false) String accountId) {
+        return ResponseEntity.ok(balanceAlertService.getRules(accountId));
+    }
+
+    @DeleteMapping("/alerts/rules/{ruleId}")
+    @Operation(summary = "Remove a balance watch rule")
+    @ApiResponse(responseCode = "204", description = "Rule removed")
+    @ApiResponse(responseCode = "404", description = "Rule not found")
+    public ResponseEntity<Void> deleteBalanceWatchRule(@PathVariable Long ruleId) {
+        balanceAlertService.deleteRule(ruleId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/alerts")
+    @Operation(summary = "Alert log", description = "Most recent balance alerts first")
+    public ResponseEntity<List<DTO.BalanceAlert>> listBalanceAlerts(
+            @RequestParam(required = false) String accountId, @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(balanceAlertService.getAlerts(accountId, limit));
+    }
+
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream balance alerts",
+            description = "Server-sent events named balance-alert, for one account or all of them")
+    public SseEmitter streamBalanceAlerts(@RequestParam(required = false) String accountId) {
+        return balanceAlertService.subscribe(accountId);
+    }
+
     // ==================== Reporting APIs ====================
 
     @GetMapping("/reports/accounts/{accountId}/balance")
@@ -151,8 +420,15 @@ public class LedgerController {
             @PathVariable String accountId,
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-            LocalDate asOfDate) {
-
+            LocalDate asOfDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (asOfDate == null) {
+            return conditional(
+                    ifNoneMatch,
+                    ledgerSequence.accountEtag(accountId),
+                    () -> ledgerService.getAccountBalance(accountId));
+        }
         Instant asOfInstant = asOfDate.atTime(LocalTime.MAX)
                 .atZone(ZoneId.systemDefault())
                 .toInstant();
@@ -181,20 +457,122 @@ public class LedgerController {
 
     @GetMapping("/reports/trial-balance")
     @Operation(summary = "Get trial balance", description = "Generates trial balance report to verify ledger integrity")
-    public ResponseEntity<Map<String, Object>> getTrialBalance() {
-        return ResponseEntity.ok(reportingService.getTrialBalance());
+    public ResponseEntity<Map<String, Object>> getTrialBalance(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ledgerSequence.etag();
+        return conditional(
+                ifNoneMatch,
+                etag,
+                () -> singleFlight.execute("trial-balance", etag, reportingService::getTrialBalance));
     }
 
     @GetMapping("/reports/balance-sheet")
     @Operation(summary = "Get balance sheet", description = "Generates balance sheet (Assets = Liabilities + Equity)")
-    public ResponseEntity<Map<String, Object>> getBalanceSheet() {
-        return ResponseEntity.ok(reportingService.getBalanceSheet());
+    public ResponseEntity<Map<String, Object>> getBalanceSheet(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ledgerSequence.etag();
+        return conditional(
+                ifNoneMatch,
+                etag,
+                () -> singleFlight.execute("balance-sheet", etag, reportingService::getBalanceSheet));
+    }
+
+    @GetMapping("/reports/income-statement")
+    @Operation(
+            summary = "Get income statement",
+            description = "Income, expenses and net income for a date range, both ends inclusive")
+    public ResponseEntity<Map<String, Object>> getIncomeStatement(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, ledgerSequence.etag(), () -> reportingService.getIncomeStatement(from, to));
+    }
+
+    @GetMapping("/reports/income-statement/{period}")
+    @Operation(summary = "Get period income statement", description = "Income statement for a month (yyyy-MM)")
+    public ResponseEntity<Map<String, Object>> getPeriodIncomeStatement(
+            @PathVariable YearMonth period,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, ledgerSequence.etag(), () -> reportingService.getIncomeStatement(period));
     }
 
     @GetMapping("/reports/loan-aging")
     @Operation(summary = "Get loan aging report", description = "Categorizes loans by days overdue")
-    public ResponseEntity<List<Map<String, Object>>> getLoanAgingReport() {
-        return ResponseEntity.ok(reportingService.getLoanAgingReport());
+    public ResponseEntity<List<Map<String, Object>>> getLoanAgingReport(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ledgerSequence.etag(LocalDate.now());
+        return conditional(
+                ifNoneMatch,
+                etag,
+                () -> singleFlight.execute("loan-aging", etag, reportingService::getLoanAgingReport));
+    }
+
+    @GetMapping("/reports/loan-aging/summary")
+    @Operation(
+            summary = "Get loan aging summary",
+            description = "Loan count and outstanding total per aging bucket, without the loan detail")
+    public ResponseEntity<List<Map<String, Object>>> getLoanAgingSummary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ledgerSequence.etag(LocalDate.now());
+        return conditional(
+                ifNoneMatch,
+                etag,
+                () -> singleFlight.execute("loan-aging-summary", etag, reportingService::getLoanAgingSummary));
+    }
+
+    @GetMapping("/reports/loan-aging/movements")
+    @Operation(
+            summary = "Get loan bucket movements",
+            description = "Loans that moved to a different aging bucket on the given date (default today)")
+    public ResponseEntity<List<Map<String, Object>>> getLoanBucketMovements(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(reportingService.getLoanBucketMovements(date == null ? LocalDate.now() : date));
+    }
+
+    @PostMapping("/reports/jobs")
+    @Operation(
+            summary = "Queue a report",
+            description = "Computes a report in the background; an identical request made before anything new is"
+                    + " posted gets the existing job back")
+    @ApiResponse(responseCode = "202", description = "Job queued, running or already finished")
+    @ApiResponse(responseCode = "409", description = "Report queue is full")
+    public ResponseEntity<DTO.ReportJobResponse> submitReportJob(@Valid @RequestBody DTO.ReportJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit(request));
+    }
+
+    @GetMapping("/reports/jobs/{id}")
+    @Operation(summary = "Get report job", description = "Polls the status of a queued report")
+    public ResponseEntity<DTO.ReportJobResponse> getReportJob(@PathVariable Long id) {
+        return ResponseEntity.ok(reportJobService.get(id));
+    }
+
+    @GetMapping("/reports/jobs/{id}/result")
+    @Operation(
+            summary = "Download report job result",
+            description = "The finished report as JSON, sent gzip-encoded as stored when the client accepts gzip")
+    @ApiResponse(responseCode = "409", description = "Job not finished or failed")
+    public ResponseEntity<byte[]> getReportJobResult(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .body(reportJobService.getResult(id, gzip));
+    }
+
+    @GetMapping("/reports/analytics/aggregate")
+    @Operation(
+            summary = "Aggregate ledger movements",
+            description = "Debit/credit totals by account, account type, currency, day or parent (subtree) from the "
+                    + "in-memory analytics store; requires ledger.analytics.enabled")
+    public ResponseEntity<List<LedgerColumnStore.Aggregate>> getAnalyticsAggregate(
+            @RequestParam(defaultValue = "ACCOUNT_TYPE") LedgerColumnStore.GroupBy groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportingService.getAnalyticsAggregate(groupBy, from, to));
     }
 
     @GetMapping("/validate/{accountId}")
@@ -217,4 +595,55 @@ public class LedgerController {
 
         return ResponseEntity.ok(validation);
     }
+
+    private static AccountQueryDao.AccountFilter accountFilter(String accountType, String currency, String parentId) {
+        AccountType type = null;
+        if (accountType != null && !accountType.isBlank()) {
+            try {
+                type = AccountType.valueOf(accountType.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown account type: " + accountType);
+            }
+        }
+        return new AccountQueryDao.AccountFilter(
+                type,
+                currency == null || currency.isBlank() ? null : currency.toUpperCase(Locale.ROOT),
+                parentId == null || parentId.isBlank() ? null : parentId);
+    }
+
+    /**
+     * Answers 304 from the tag alone when the client's copy is current, before anything is read; otherwise reads the
+     * body. The tag is taken before the read, so a body can only be newer than its tag, never older. Shared reads are
+     * keyed by the tag too, so a request never joins a read that started before the version its tag names.
+     */
+    private static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, Supplier<T> read) {
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).body(read.get());
+    }
+
+    private static int checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + max);
+        }
+        return limit;
+    }
+
+    private void writeLine(Writer out, Object value) {
+        try {
+            out.write(jsonMapper.writeValueAsString(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
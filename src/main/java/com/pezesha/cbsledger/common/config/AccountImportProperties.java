@@ -0,0 +1,18 @@
+package com.pezesha.cbsledger.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for bulk account imports.
+ *
+ * @param chunkSize accounts inserted per transaction
+ * @param maxRows largest file accepted; the whole file is held in memory to order parents before children
+ */
+@ConfigurationProperties("ledger.account-import")
+public record AccountImportProperties(int chunkSize, int maxRows) {
+
+    public AccountImportProperties {
+        if (chunkSize <= 0) chunkSize = 10_000;
+        if (maxRows <= 0) maxRows = 1_000_000;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the daily interest accrual run.
+ *
+ * @param accounts per-currency pair of accounts the aggregated accrual journals are booked against; loans in a
+ *     currency without an entry are skipped
+ */
+@ConfigurationProperties("ledger.accrual")
+public record AccrualProperties(
+        boolean scheduled,
+        String cron,
+        BigDecimal defaultAnnualRate,
+        int dayCountBasis,
+        int chunkSize,
+        int parallelism,
+        Map<String, AccrualAccounts> accounts) {
+
+    public record AccrualAccounts(String receivable, String income) {}
+
+    public AccrualProperties {
+        if (defaultAnnualRate == null) defaultAnnualRate = BigDecimal.ZERO;
+        if (dayCountBasis <= 0) dayCountBasis = 365;
+        if (chunkSize <= 0) chunkSize = 5_000;
+        if (parallelism <= 0) parallelism = Runtime.getRuntime().availableProcessors();
+        if (accounts == null) accounts = Map.of();
+    }
+}
@@ -0,0 +1,26 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the point-in-time balance cache.
+ *
+ * @param maxEntries memoized (account, as-of) balances kept; the least recently read are evicted first
+ * @param watermarkInterval how often each node publishes its commit watermark and reads the others'
+ * @param watermarkExpiry a node whose watermark is older than this is taken for dead and ignored; must exceed the
+ *     longest a live node can go without publishing (GC pauses, database stalls)
+ */
+@ConfigurationProperties("ledger.balance-cache")
+public record BalanceCacheProperties(int maxEntries, Duration watermarkInterval, Duration watermarkExpiry) {
+
+    public BalanceCacheProperties {
+        if (maxEntries <= 0) maxEntries = 100_000;
+        if (watermarkInterval == null || watermarkInterval.isNegative() || watermarkInterval.isZero()) {
+            watermarkInterval = Duration.ofSeconds(1);
+        }
+        if (watermarkExpiry == null || watermarkExpiry.compareTo(watermarkInterval.multipliedBy(3)) < 0) {
+            watermarkExpiry = watermarkInterval.multipliedBy(30);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the off-heap balance store.
+ *
+ * @param path backing file; a temporary file is used when unset
+ * @param capacity number of 32-byte account records the mapping is sized for (at most ~67M)
+ */
+@ConfigurationProperties("ledger.balance-store")
+public record BalanceStoreProperties(boolean enabled, Path path, int capacity) {
+
+    public BalanceStoreProperties {
+        if (capacity <= 0) capacity = 2_000_000;
+    }
+}
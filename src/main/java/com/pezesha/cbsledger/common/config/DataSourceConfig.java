@@ -0,0 +1,76 @@
+package com.pezesha.cbsledger.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Splits posting and reporting traffic. The primary {@link JdbcTemplate} (and everything Spring Data JDBC builds on
+ * it) uses the write pool; {@link #REPORTING_JDBC_TEMPLATE} uses the read pool when one is configured, so a burst of
+ * report queries cannot exhaust the connections that postings need.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public static final String REPORTING_JDBC_TEMPLATE = "reportingJdbcTemplate";
+    public static final String READ_DATA_SOURCE = "readDataSource";
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(REPORTING_JDBC_TEMPLATE)
+    public JdbcTemplate reportingJdbcTemplate(
+            DataSource dataSource, @Qualifier(READ_DATA_SOURCE) ObjectProvider<DataSource> readDataSource) {
+        return new JdbcTemplate(readDataSource.getIfAvailable(() -> dataSource));
+    }
+
+    @Configuration
+    @Profile("prod")
+    static class ReadWriteDataSources {
+
+        @Bean
+        @Primary
+        @ConfigurationProperties("ledger.datasource.write")
+        public DataSourceProperties writeDataSourceProperties() {
+            return new DataSourceProperties();
+        }
+
+        @Bean
+        @Primary
+        @ConfigurationProperties("ledger.datasource.write.hikari")
+        public HikariDataSource dataSource(
+                @Qualifier("writeDataSourceProperties") DataSourceProperties writeDataSourceProperties) {
+            return writeDataSourceProperties
+                    .initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+        }
+
+        @Bean
+        @ConfigurationProperties("ledger.datasource.read")
+        public DataSourceProperties readDataSourceProperties() {
+            return new DataSourceProperties();
+        }
+
+        @Bean(READ_DATA_SOURCE)
+        @ConfigurationProperties("ledger.datasource.read.hikari")
+        public HikariDataSource readDataSource(
+                @Qualifier("readDataSourceProperties") DataSourceProperties readDataSourceProperties) {
+            return readDataSourceProperties
+                    .initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+        }
+    }
+}
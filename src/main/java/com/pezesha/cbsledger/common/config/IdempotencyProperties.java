@@ -0,0 +1,23 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the idempotency key store.
+ *
+ * @param retention how long a key is remembered; keys live in monthly partitions, and a partition is dropped once
+ *     its whole month is older than this, so keys are kept for at least this long and at most a month more
+ * @param partitionRefresh how often each node re-reads which partitions to look keys up in; an expired partition is
+ *     dropped only once it has been out of the list for ten of these
+ */
+@ConfigurationProperties("ledger.idempotency")
+public record IdempotencyProperties(Duration retention, String maintenanceCron, Duration partitionRefresh) {
+
+    public IdempotencyProperties {
+        if (retention == null || retention.isNegative() || retention.isZero()) retention = Duration.ofDays(90);
+        if (partitionRefresh == null || partitionRefresh.isNegative() || partitionRefresh.isZero()) {
+            partitionRefresh = Duration.ofMinutes(1);
+        }
+    }
+}
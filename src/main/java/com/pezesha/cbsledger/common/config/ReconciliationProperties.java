@@ -0,0 +1,21 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.math.BigDecimal;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for statement reconciliation.
+ *
+ * @param maxWindowDays longest statement window accepted; the ledger side of the window is held in memory
+ * @param amountTolerance default largest amount difference still counted as a match
+ * @param dateToleranceDays default number of days a statement row and ledger line may be apart and still match
+ */
+@ConfigurationProperties("ledger.reconciliation")
+public record ReconciliationProperties(int maxWindowDays, BigDecimal amountTolerance, int dateToleranceDays) {
+
+    public ReconciliationProperties {
+        if (maxWindowDays <= 0) maxWindowDays = 92;
+        if (amountTolerance == null || amountTolerance.signum() < 0) amountTolerance = BigDecimal.ZERO;
+        if (dateToleranceDays < 0) dateToleranceDays = 0;
+    }
+}
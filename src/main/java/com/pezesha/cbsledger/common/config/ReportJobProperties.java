@@ -0,0 +1,21 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for asynchronous report jobs.
+ *
+ * @param workers threads computing reports; bounds the reporting load put on the database
+ * @param queueCapacity jobs allowed to wait for a worker before new submissions are refused
+ * @param retention how long finished jobs and their results are kept
+ */
+@ConfigurationProperties("ledger.report-jobs")
+public record ReportJobProperties(int workers, int queueCapacity, Duration retention, String cleanupCron) {
+
+    public ReportJobProperties {
+        if (workers <= 0) workers = 2;
+        if (queueCapacity <= 0) queueCapacity = 50;
+        if (retention == null || retention.isNegative() || retention.isZero()) retention = Duration.ofDays(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for scheduled postings.
+ *
+ * @param tick resolution of the timer wheel
+ * @param window how far ahead due postings are loaded from the database into the wheel
+ * @param batchSize most postings released into the posting path per tick; the rest wait for the next tick
+ * @param spread postings due at the same instant are spread over this interval, per posting and deterministically
+ */
+@ConfigurationProperties("ledger.scheduling")
+public record SchedulingProperties(
+        boolean enabled, Duration tick, Duration window, int batchSize, Duration spread) {
+
+    public SchedulingProperties {
+        if (tick == null || tick.isZero() || tick.isNegative()) tick = Duration.ofSeconds(1);
+        if (window == null || window.compareTo(tick) < 0) window = Duration.ofMinutes(10);
+        if (batchSize <= 0) batchSize = 200;
+        if (spread == null || spread.isNegative()) spread = Duration.ZERO;
+    }
+}
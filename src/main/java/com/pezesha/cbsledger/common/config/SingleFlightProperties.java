@@ -0,0 +1,33 @@
+package com.pezesha.cbsledger.common.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for coalescing identical concurrent reads.
+ *
+ * @param enabled master switch; when off every request runs its own read
+ * @param waitTimeout how long a request waits on another's identical read before running its own
+ * @param endpoints per-endpoint overrides by endpoint name ({@code trial-balance}, {@code account}, ...); endpoints
+ *     not listed use the settings above
+ */
+@ConfigurationProperties("ledger.single-flight")
+public record SingleFlightProperties(boolean enabled, Duration waitTimeout, Map<String, Endpoint> endpoints) {
+
+    public record Endpoint(boolean enabled, Duration waitTimeout) {}
+
+    public SingleFlightProperties {
+        if (waitTimeout == null || !waitTimeout.isPositive()) waitTimeout = Duration.ofSeconds(30);
+        if (endpoints == null) endpoints = Map.of();
+    }
+
+    public Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            return new Endpoint(enabled, waitTimeout);
+        }
+        return new Endpoint(
+                enabled && endpoint.enabled(), endpoint.waitTimeout() == null ? waitTimeout : endpoint.waitTimeout());
+    }
+}
@@ -0,0 +1,39 @@
+package com.pezesha.cbsledger.common.config;
+
+import com.pezesha.cbsledger.service.ReportingService;
+import java.util.List;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Defers the reporting service and the springdoc/OpenAPI beans until first use, so a freshly started posting node
+ * only builds what it needs to accept transactions. Enabled with {@code ledger.startup.lazy-reporting}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "ledger.startup", name = "lazy-reporting", havingValue = "true")
+public class StartupConfig {
+
+    private static final List<String> LAZY_PACKAGES = List.of("org.springdoc.", "io.swagger.");
+
+    @Bean
+    static BeanFactoryPostProcessor lazyReportingBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(name, false);
+                if (type != null && isDeferrable(type)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isDeferrable(Class<?> type) {
+        if (ReportingService.class.isAssignableFrom(type)) {
+            return true;
+        }
+        String name = type.getName();
+        return LAZY_PACKAGES.stream().anyMatch(name::startsWith);
+    }
+}
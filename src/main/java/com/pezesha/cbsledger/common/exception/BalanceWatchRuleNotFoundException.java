@@ -0,0 +1,7 @@
+package com.pezesha.cbsledger.common.exception;
+
+public class BalanceWatchRuleNotFoundException extends RuntimeException {
+    public BalanceWatchRuleNotFoundException(Long ruleId) {
+        super("Balance watch rule not found: " + ruleId);
+    }
+}
@@ -30,6 +30,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage(), "ACCOUNT_NOT_FOUND"));
     }
 
+    @ExceptionHandler(ScheduledPostingNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleScheduledPostingNotFoundException(ScheduledPostingNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(e.getMessage(), "SCHEDULED_POSTING_NOT_FOUND"));
+    }
+
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleReportJobNotFoundException(ReportJobNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(e.getMessage(), "REPORT_JOB_NOT_FOUND"));
+    }
+
+    @ExceptionHandler(BalanceWatchRuleNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleBalanceWatchRuleNotFoundException(
+            BalanceWatchRuleNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(e.getMessage(), "BALANCE_WATCH_RULE_NOT_FOUND"));
+    }
+
     @ExceptionHandler(AccountDeletionException.class)
     public ResponseEntity<ErrorResponse> handleAccountDeletionException(AccountDeletionException e) {
         return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -0,0 +1,7 @@
+package com.pezesha.cbsledger.common.exception;
+
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(Long reportJobId) {
+        super("Report job not found: " + reportJobId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pezesha.cbsledger.common.exception;
+
+public class ScheduledPostingNotFoundException extends RuntimeException {
+    public ScheduledPostingNotFoundException(Long scheduledPostingId) {
+        super("Scheduled posting not found: " + scheduledPostingId);
+    }
+}
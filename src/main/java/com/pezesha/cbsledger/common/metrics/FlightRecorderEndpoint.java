@@ -0,0 +1,137 @@
+package com.pezesha.cbsledger.common.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts, stops and downloads a Java Flight Recorder recording without attaching a profiler. {@code POST} starts a
+ * recording with the JDK's {@code default} or {@code profile} settings plus the {@link LedgerEvents}, {@code DELETE}
+ * stops it, {@code GET} reports its state and {@code GET .../dump} returns everything recorded so far as a
+ * {@code .jfr} file. Only one recording is kept; starting again discards a stopped one.
+ *
+ * <p>The endpoint is not exposed on the public port. Events that copy the process environment, system properties or
+ * command lines into the recording are switched off, since those carry the datasource credentials.
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+@Slf4j
+public class FlightRecorderEndpoint {
+
+    public record RecordingStatus(String state, String settings, Instant startedAt, Duration maxAge, long sizeBytes) {}
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    private static final long MAX_SIZE_BYTES = 512L * 1024 * 1024;
+    private static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+    private Recording recording;
+    private String settings;
+
+    @ReadOperation
+    public synchronized RecordingStatus status() {
+        if (recording == null) {
+            return new RecordingStatus(RecordingState.CLOSED.name(), null, null, null, 0);
+        }
+        return new RecordingStatus(
+                recording.getState().name(),
+                settings,
+                recording.getStartTime(),
+                recording.getMaxAge(),
+                recording.getSize());
+    }
+
+    @WriteOperation
+    public synchronized RecordingStatus start(
+            @Nullable String settings, @Nullable Long maxAgeSeconds) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A flight recording is already running");
+        }
+        String name = settings == null ? "default" : settings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown flight recorder settings: " + name);
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(configuration);
+        SENSITIVE_EVENTS.forEach(recording::disable);
+        recording.setName("cbs-ledger");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAgeSeconds == null ? DEFAULT_MAX_AGE : Duration.ofSeconds(maxAgeSeconds));
+        recording.setMaxSize(MAX_SIZE_BYTES);
+        recording.start();
+        this.settings = name;
+        log.info("Flight recording started with {} settings, keeping {}", name, recording.getMaxAge());
+        return status();
+    }
+
+    @DeleteOperation
+    public synchronized RecordingStatus stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No flight recording is running");
+        }
+        recording.stop();
+        log.info("Flight recording stopped");
+        return status();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized Resource dump(@Selector String dump) {
+        if (!"dump".equals(dump)) {
+            throw new IllegalArgumentException("Unknown flight recorder operation: " + dump);
+        }
+        if (recording == null
+                || (recording.getState() != RecordingState.RUNNING && recording.getState() != RecordingState.STOPPED)) {
+            throw new IllegalStateException("No flight recording to dump");
+        }
+        try {
+            Path file = Files.createTempFile("cbs-ledger-", ".jfr");
+            try {
+                recording.dump(file);
+            } catch (IOException | RuntimeException e) {
+                Files.delete(file);
+                throw e;
+            }
+            return new DumpResource(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A dump file that is deleted as soon as the response has been copied out of it. */
+    private static final class DumpResource extends FileSystemResource {
+
+        DumpResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(getFile().toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.pezesha.cbsledger.common.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events for the ledger hot paths. They cost next to nothing while no recording is running
+ * ({@code shouldCommit()} is a field read) and are written only when one is, e.g. via the {@code flightrecorder}
+ * actuator endpoint. Durations come from the event's own begin/end.
+ */
+public final class LedgerEvents {
+
+    private LedgerEvents() {}
+
+    @Name("cbsledger.Posting")
+    @Label("Posting")
+    @Category({"CBS Ledger", "Posting"})
+    @Description("One postTransaction call, with the time spent in each phase")
+    @StackTrace(false)
+    static final class PostingEvent extends Event {
+        @Label("Journal Key")
+        String journalKey;
+
+        @Label("Accounts")
+        int accounts;
+
+        @Label("Lines")
+        int lines;
+
+        @Label("Account IDs")
+        String accountIds;
+
+        @Label("Idempotency Lookup")
+        @Timespan
+        long idempotencyLookup;
+
+        @Label("Account Load")
+        @Timespan
+        long accountLoad;
+
+        @Label("Balance Update")
+        @Timespan
+        long balanceUpdate;
+
+        @Label("Journal Insert")
+        @Timespan
+        long journalInsert;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("cbsledger.Commit")
+    @Label("Posting Commit")
+    @Category({"CBS Ledger", "Posting"})
+    @StackTrace(false)
+    static final class CommitEvent extends Event {
+        @Label("Committed")
+        boolean committed;
+    }
+
+    @Name("cbsledger.OptimisticLockConflict")
+    @Label("Optimistic Lock Conflict")
+    @Category({"CBS Ledger", "Posting"})
+    @Description("A posting lost a race on Account.version")
+    static final class OptimisticLockConflictEvent extends Event {
+        @Label("Account IDs")
+        String accountIds;
+
+        @Label("Message")
+        String message;
+    }
+
+    @Name("cbsledger.ReportQuery")
+    @Label("Report Query")
+    @Category({"CBS Ledger", "Reporting"})
+    @StackTrace(false)
+    static final class ReportQueryEvent extends Event {
+        @Label("Query")
+        String query;
+
+        @Label("Rows")
+        @Description("Rows returned, or -1 for a scalar result")
+        long rows;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("cbsledger.LoanOperation")
+    @Label("Loan Operation")
+    @Category({"CBS Ledger", "Loans"})
+    @StackTrace(false)
+    static final class LoanOperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Loan Account")
+        String loanAccountId;
+
+        @Label("Outcome")
+        String outcome;
+    }
+}
@@ -0,0 +1,302 @@
+package com.pezesha.cbsledger.common.metrics;
+
+import com.pezesha.cbsledger.common.exception.DuplicateTransactionKeyException;
+import com.pezesha.cbsledger.common.exception.UnbalancedTransactionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Meters for the posting and reporting hot paths. Every meter is registered once and cached, so recording on the
+ * request path is a map lookup at most and never goes through the registry's builder. The same measurements are
+ * emitted as {@link LedgerEvents} whenever a flight recording is running.
+ */
+@Component
+public class LedgerMetrics {
+
+    /** The timed phases of a posting. */
+    public enum Phase {
+        IDEMPOTENCY_LOOKUP,
+        ACCOUNT_LOAD,
+        BALANCE_UPDATE,
+        JOURNAL_INSERT
+    }
+
+    private static final Object COMMIT_TIMER_KEY = new Object();
+
+    private final MeterRegistry registry;
+    private final Timer posting;
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Timer commit;
+    private final Timer rollback;
+    private final Counter optimisticLockConflicts;
+    private final Counter duplicateKeys;
+    private final Counter unbalancedRejections;
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> loanTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> singleFlightCounters = new ConcurrentHashMap<>();
+    private final ThreadLocal<LedgerEvents.PostingEvent> currentPosting = new ThreadLocal<>();
+
+    public LedgerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.posting = histogram(Timer.builder("ledger.posting")
+                        .description("End-to-end postTransaction latency, excluding commit"))
+                .register(registry);
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, phase(phase.name().toLowerCase(Locale.ROOT)));
+        }
+        this.commit = phase("commit");
+        this.rollback = phase("rollback");
+        this.optimisticLockConflicts = rejection("optimistic_lock");
+        this.duplicateKeys = rejection("duplicate_key");
+        this.unbalancedRejections = rejection("unbalanced");
+    }
+
+    /**
+     * Times a whole posting and classifies its failure, if any. Phases timed on the same thread while it runs are
+     * attached to its flight recorder event.
+     */
+    public <T> T timePosting(String journalKey, Supplier<T> supplier) {
+        LedgerEvents.PostingEvent outer = currentPosting.get();
+        LedgerEvents.PostingEvent event = new LedgerEvents.PostingEvent();
+        event.journalKey = journalKey;
+        currentPosting.set(event);
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            T result = supplier.get();
+            event.outcome = "POSTED";
+            return result;
+        } catch (RuntimeException e) {
+            event.outcome = e.getClass().getSimpleName();
+            recordPostingFailure(e, event);
+            throw e;
+        } finally {
+            posting.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.commit();
+            if (outer == null) {
+                currentPosting.remove();
+            } else {
+                currentPosting.set(outer);
+            }
+        }
+    }
+
+    /** Describes the posting in progress on this thread for its flight recorder event. */
+    public void describePosting(Collection<String> accountIds, int lines) {
+        LedgerEvents.PostingEvent event = currentPosting.get();
+        if (event != null && event.isEnabled()) {
+            event.accounts = accountIds.size();
+            event.accountIds = String.join(",", accountIds);
+            event.lines = lines;
+        }
+    }
+
+    public <T> T timePhase(Phase phase, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            phases.get(phase).record(elapsed, TimeUnit.NANOSECONDS);
+            LedgerEvents.PostingEvent event = currentPosting.get();
+            if (event != null) {
+                switch (phase) {
+                    case IDEMPOTENCY_LOOKUP -> event.idempotencyLookup += elapsed;
+                    case ACCOUNT_LOAD -> event.accountLoad += elapsed;
+                    case BALANCE_UPDATE -> event.balanceUpdate += elapsed;
+                    case JOURNAL_INSERT -> event.journalInsert += elapsed;
+                }
+            }
+        }
+    }
+
+    public void timePhase(Phase phase, Runnable action) {
+        timePhase(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T timeQuery(String query, Supplier<T> supplier) {
+        Timer timer = queryTimers.computeIfAbsent(query, q -> histogram(Timer.builder("ledger.report.query")
+                        .description("ReportingDao query latency")
+                        .tag("query", q))
+                .register(registry));
+        LedgerEvents.ReportQueryEvent event = new LedgerEvents.ReportQueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T result = null;
+        boolean completed = false;
+        try {
+            result = supplier.get();
+            completed = true;
+            return result;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (event.shouldCommit()) {
+                event.query = query;
+                event.failed = !completed;
+                event.rows = result instanceof Collection<?> rows ? rows.size() : -1;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Counts a coalescable read by outcome: {@code executed} ran the query, {@code coalesced} shared the result of an
+     * identical read in flight, {@code wait_timeout} gave up waiting for it and ran its own.
+     */
+    public void countSingleFlight(String endpoint, String outcome) {
+        singleFlightCounters
+                .computeIfAbsent(endpoint + '/' + outcome, key -> Counter.builder("ledger.single-flight.requests")
+                        .description("Coalescable reads by whether they ran a query or shared one in flight")
+                        .tag("endpoint", endpoint)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment();
+    }
+
+    public <T> T timeLoanOperation(String operation, Supplier<T> supplier) {
+        return timeLoanOperation(operation, null, supplier);
+    }
+
+    public <T> T timeLoanOperation(String operation, String loanAccountId, Supplier<T> supplier) {
+        Timer timer = loanTimers.computeIfAbsent(operation, op -> histogram(Timer.builder("ledger.loan.operation")
+                        .description("LoanService operation latency")
+                        .tag("operation", op))
+                .register(registry));
+        LedgerEvents.LoanOperationEvent event = new LedgerEvents.LoanOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = "FAILED";
+        try {
+            T result = supplier.get();
+            outcome = "OK";
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.loanAccountId = loanAccountId;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Times the commit of the surrounding transaction, or its rollback if it fails. Registered at most once per
+     * transaction, so several postings in one transaction are not double counted. Runs ahead of every other
+     * synchronization, so the commit timer stops before after-commit work such as cache evictions starts.
+     */
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(COMMIT_TIMER_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(COMMIT_TIMER_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private final LedgerEvents.CommitEvent event = new LedgerEvents.CommitEvent();
+            private long start;
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void beforeCompletion() {
+                event.begin();
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                stop(commit, true);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(COMMIT_TIMER_KEY);
+                if (status != STATUS_COMMITTED) {
+                    stop(rollback, false);
+                }
+            }
+
+            private void stop(Timer timer, boolean committed) {
+                if (start == 0) {
+                    return;
+                }
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                start = 0;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.committed = committed;
+                    event.commit();
+                }
+            }
+        });
+    }
+
+    /** Classifies a failed posting and bumps the matching rejection counter, if any. */
+    private void recordPostingFailure(Throwable failure, LedgerEvents.PostingEvent posting) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException) {
+                optimisticLockConflicts.increment();
+                LedgerEvents.OptimisticLockConflictEvent event = new LedgerEvents.OptimisticLockConflictEvent();
+                if (event.shouldCommit()) {
+                    event.accountIds = posting.accountIds;
+                    event.message = cause.getMessage();
+                    event.commit();
+                }
+                return;
+            }
+            if (cause instanceof DuplicateTransactionKeyException || cause instanceof DuplicateKeyException) {
+                duplicateKeys.increment();
+                return;
+            }
+            if (cause instanceof UnbalancedTransactionException) {
+                unbalancedRejections.increment();
+                return;
+            }
+        }
+    }
+
+    private Timer phase(String phase) {
+        return histogram(Timer.builder("ledger.posting.phase")
+                        .description("Latency of each postTransaction phase")
+                        .tag("phase", phase))
+                .register(registry);
+    }
+
+    private Counter rejection(String reason) {
+        return Counter.builder("ledger.posting.rejections")
+                .description("Postings rejected before or during commit")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static Timer.Builder histogram(Timer.Builder builder) {
+        return builder.publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,37 @@
+package com.pezesha.cbsledger.domain;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * A calendar month of postings. Once closed, its journal entries and lines live in the archive tables and every
+ * account it touched has a cumulative closing balance, so queries after the period never need to read its lines.
+ */
+public record AccountingPeriod(LocalDate periodStart, LocalDate periodEnd, String status, Instant closedAt) {
+
+    public static final String OPEN = "OPEN";
+    public static final String CLOSED = "CLOSED";
+
+    public static AccountingPeriod of(YearMonth month) {
+        return new AccountingPeriod(month.atDay(1), month.plusMonths(1).atDay(1), OPEN, null);
+    }
+
+    public static LocalDate startOf(Instant instant) {
+        return YearMonth.from(instant.atZone(ZoneId.systemDefault())).atDay(1);
+    }
+
+    public Instant startInstant() {
+        return periodStart.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /** Exclusive upper bound of the period. */
+    public Instant endInstant() {
+        return periodEnd.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    public boolean isClosed() {
+        return CLOSED.equals(status);
+    }
+}
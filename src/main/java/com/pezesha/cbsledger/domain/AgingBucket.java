@@ -0,0 +1,36 @@
+package com.pezesha.cbsledger.domain;
+
+import java.time.LocalDate;
+
+public enum AgingBucket {
+    CURRENT("Current (0-29 days)", 29),
+    DAYS_30_59("30-59 days", 59),
+    DAYS_60_89("60-89 days", 89),
+    DAYS_90_PLUS("90+ days", Long.MAX_VALUE);
+
+    private final String label;
+    private final long maxDaysOverdue;
+
+    AgingBucket(String label, long maxDaysOverdue) {
+        this.label = label;
+        this.maxDaysOverdue = maxDaysOverdue;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static AgingBucket of(long daysOverdue) {
+        for (AgingBucket bucket : values()) {
+            if (daysOverdue <= bucket.maxDaysOverdue) {
+                return bucket;
+            }
+        }
+        return DAYS_90_PLUS;
+    }
+
+    /** First day on which a loan due on {@code dueDate} leaves this bucket, or {@code null} for the last bucket. */
+    public LocalDate nextTransition(LocalDate dueDate) {
+        return maxDaysOverdue == Long.MAX_VALUE ? null : dueDate.plusDays(maxDaysOverdue + 1);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pezesha.cbsledger.domain;
+
+/** Which way a balance must cross a watch rule's threshold to raise an alert. */
+public enum AlertDirection {
+    /** From at or above the threshold to below it. */
+    BELOW,
+    /** From at or below the threshold to above it. */
+    ABOVE
+}
@@ -5,4 +5,4 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
 @Table("entry_lines")
-public record EntryLine(@Id Long id, String accountId, BigDecimal debit, BigDecimal credit) {}
+public record EntryLine(@Id Long id, String accountId, Long accountNo, BigDecimal debit, BigDecimal credit) {}
@@ -0,0 +1,23 @@
+package com.pezesha.cbsledger.domain;
+
+/**
+ * API an idempotency key belongs to. The same client key may be used once per scope; the journal keeps the key with
+ * the scope's suffix, as it always has.
+ */
+public enum IdempotencyScope {
+    TRANSACTION(""),
+    DISBURSEMENT("-disbursement"),
+    REPAYMENT("-repayment"),
+    WRITE_OFF("-writeoff");
+
+    private final String suffix;
+
+    IdempotencyScope(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /** Key recorded on the journal entry. */
+    public String journalKey(String clientKey) {
+        return clientKey + suffix;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pezesha.cbsledger.domain;
+
+/** Outcome of one row of an account import. */
+public enum ImportStatus {
+    /** Account inserted. */
+    CREATED,
+    /** Row failed validation, or its parent did; nothing was written for it. */
+    REJECTED,
+    /** Row was valid but the batch holding it could not be written. */
+    FAILED
+}
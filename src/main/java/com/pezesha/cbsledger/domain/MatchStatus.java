@@ -0,0 +1,15 @@
+package com.pezesha.cbsledger.domain;
+
+/** Outcome of reconciling one statement row or ledger line. */
+public enum MatchStatus {
+    /** Same reference, amount and date within tolerance. */
+    MATCHED,
+    /** Paired, but on reference alone with a differing amount or date, or on amount and date alone. */
+    PARTIAL,
+    /** Statement row with no ledger line. */
+    UNMATCHED_STATEMENT,
+    /** Ledger line in the window with no statement row. */
+    UNMATCHED_LEDGER,
+    /** Statement row that could not be parsed. */
+    INVALID
+}
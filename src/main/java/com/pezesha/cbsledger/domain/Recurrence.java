@@ -0,0 +1,23 @@
+package com.pezesha.cbsledger.domain;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+public enum Recurrence {
+    ONCE,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /** Next execution after {@code previous}, in local calendar terms, or {@code null} for {@link #ONCE}. */
+    public Instant next(Instant previous) {
+        ZonedDateTime at = previous.atZone(ZoneId.systemDefault());
+        return switch (this) {
+            case ONCE -> null;
+            case DAILY -> at.plusDays(1).toInstant();
+            case WEEKLY -> at.plusWeeks(1).toInstant();
+            case MONTHLY -> at.plusMonths(1).toInstant();
+        };
+    }
+}
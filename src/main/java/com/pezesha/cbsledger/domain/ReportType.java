@@ -0,0 +1,14 @@
+package com.pezesha.cbsledger.domain;
+
+public enum ReportType {
+    TRIAL_BALANCE,
+    BALANCE_SHEET,
+    LOAN_AGING,
+    LOAN_AGING_SUMMARY,
+    LOAN_BUCKET_MOVEMENTS;
+
+    /** Whether the report also changes with the calendar date, not only with postings. */
+    public boolean dateSensitive() {
+        return this == LOAN_AGING || this == LOAN_AGING_SUMMARY;
+    }
+}
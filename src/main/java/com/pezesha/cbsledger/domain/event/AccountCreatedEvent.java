@@ -0,0 +1,5 @@
+package com.pezesha.cbsledger.domain.event;
+
+import com.pezesha.cbsledger.domain.Account;
+
+public record AccountCreatedEvent(Account account) {}
@@ -0,0 +1,3 @@
+package com.pezesha.cbsledger.domain.event;
+
+public record AccountDeletedEvent(String accountId) {}
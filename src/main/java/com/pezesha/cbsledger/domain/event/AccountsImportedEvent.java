@@ -0,0 +1,7 @@
+package com.pezesha.cbsledger.domain.event;
+
+import com.pezesha.cbsledger.domain.Account;
+import java.util.List;
+
+/** One committed chunk of a bulk import, parents before children. */
+public record AccountsImportedEvent(List<Account> accounts) {}
@@ -0,0 +1,10 @@
+package com.pezesha.cbsledger.domain.event;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Balance of every account a journal touched, before and after it, with the account row version it left behind. */
+public record BalancesChangedEvent(Long journalEntryId, List<BalanceChange> changes) {
+
+    public record BalanceChange(String accountId, BigDecimal before, BigDecimal after, long version) {}
+}
@@ -0,0 +1,9 @@
+package com.pezesha.cbsledger.domain.event;
+
+import com.pezesha.cbsledger.domain.JournalEntry;
+
+/**
+ * Published by {@code LedgerService} once a journal entry has been written. Listeners that keep derived state in
+ * memory should react with {@code @TransactionalEventListener} so they only see committed postings.
+ */
+public record TransactionPostedEvent(JournalEntry journalEntry) {}
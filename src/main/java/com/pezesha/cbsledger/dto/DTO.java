@@ -1,10 +1,17 @@
 package com.pezesha.cbsledger.dto;
 
 import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.AlertDirection;
+import com.pezesha.cbsledger.domain.ImportStatus;
+import com.pezesha.cbsledger.domain.MatchStatus;
+import com.pezesha.cbsledger.domain.Recurrence;
+import com.pezesha.cbsledger.domain.ReportType;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public record DTO() {
     public record CreateAccountRequest(
@@ -32,6 +39,8 @@ public record DTO() {
             String parentId,
             @NotNull BigDecimal balance) {}
 
+    public record AccountSlice(List<AccountResponse> accounts, String nextAfterId) {}
+
     public record TransactionResponse(
             @NotNull Long id,
             @NotNull String idempotencyKey,
@@ -41,6 +50,8 @@ public record DTO() {
             @NotNull String status,
             @NotNull List<EntryResponse> entries) {}
 
+    public record TransactionSlice(List<TransactionResponse> transactions, Long nextBeforeId) {}
+
     public record EntryResponse(
             @NotNull String accountId,
             @NotNull BigDecimal debit,
@@ -70,8 +81,6 @@ public record DTO() {
     public record TransactionReversalRequest(
             @NotNull Long transactionId, @NotNull String reversalIdempotencyKey) {}
 
-    public record LoanAgingDTO(String accountId, String accountName, BigDecimal outstandingAmount, Instant dueDate) {}
-
     public record TrialBalanceDTO(String accountType, BigDecimal balance) {}
 
     public record AccountBalanceDTO(
@@ -85,4 +94,97 @@ public record DTO() {
             String category, BigDecimal totalAmount, java.util.List<AccountDetailDTO> accounts) {}
 
     public record AccountDetailDTO(String accountId, String accountName, BigDecimal balance) {}
+
+    public record PeriodCloseResponse(
+            LocalDate periodStart, LocalDate periodEnd, int journalsArchived, int accountsCarried, Instant closedAt) {}
+
+    public record AccrualRunResponse(
+            LocalDate businessDate,
+            String status,
+            long loanCount,
+            int journalCount,
+            BigDecimal totalAmount,
+            Instant startedAt,
+            Instant completedAt) {}
+
+    public record ScheduledPostingRequest(
+            @NotNull String idempotencyKey,
+            String description,
+            @NotNull List<EntryRequest> entries,
+            @NotNull Instant executeAt,
+            Recurrence recurrence,
+            @Positive Integer occurrences) {}
+
+    public record ScheduledPostingResponse(
+            Long id,
+            String idempotencyKey,
+            String description,
+            Recurrence recurrence,
+            Instant nextRunAt,
+            Integer remainingRuns,
+            int runCount,
+            String status,
+            Long lastJournalEntryId,
+            String lastError,
+            List<EntryRequest> entries) {}
+
+    public record ReportJobRequest(@NotNull ReportType reportType, Map<String, String> parameters) {}
+
+    public record ReportJobResponse(
+            Long id,
+            ReportType reportType,
+            String parameters,
+            long highWaterMark,
+            String status,
+            Integer resultBytes,
+            String error,
+            Instant createdAt,
+            Instant completedAt) {}
+
+    public record ReconciliationRequest(
+            String accountId, LocalDate from, LocalDate to, BigDecimal amountTolerance, Integer dateToleranceDays) {}
+
+    public record ReconciliationItem(
+            MatchStatus status,
+            Long statementLine,
+            String reference,
+            LocalDate statementDate,
+            BigDecimal statementAmount,
+            Long journalEntryId,
+            LocalDate ledgerDate,
+            BigDecimal ledgerAmount,
+            String note) {}
+
+    public record ReconciliationSummary(
+            String accountId,
+            LocalDate from,
+            LocalDate to,
+            long statementRows,
+            long ledgerLines,
+            long matched,
+            long partial,
+            long unmatchedStatement,
+            long unmatchedLedger,
+            long invalid) {}
+
+    public record AccountImportResult(long row, String accountId, ImportStatus status, String message) {}
+
+    public record AccountImportSummary(long rows, long created, long rejected, long failed) {}
+
+    public record BalanceWatchRuleRequest(
+            @NotNull String accountId, @NotNull AlertDirection direction, @NotNull BigDecimal threshold) {}
+
+    public record BalanceWatchRule(
+            Long id, String accountId, AlertDirection direction, BigDecimal threshold, Instant createdAt) {}
+
+    public record BalanceAlert(
+            Long id,
+            Long ruleId,
+            String accountId,
+            AlertDirection direction,
+            BigDecimal threshold,
+            BigDecimal balanceBefore,
+            BigDecimal balanceAfter,
+            Long journalEntryId,
+            Instant triggeredAt) {}
 }
@@ -0,0 +1,38 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.Account;
+import java.sql.Timestamp;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class AccountImportDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountImportDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Inserts the accounts with JDBC batching; parents must come before their children. */
+    public void insertAll(List<Account> accounts) {
+        jdbcTemplate.batchUpdate(
+                """
+                INSERT INTO accounts (id, name, account_type, currency, parent_account_id, balance, created_at, version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """,
+                accounts,
+                1_000,
+                (ps, account) -> {
+                    ps.setString(1, account.id());
+                    ps.setString(2, account.name());
+                    ps.setString(3, account.accountType().name());
+                    ps.setString(4, account.currency());
+                    ps.setString(5, account.parentAccountId());
+                    ps.setBigDecimal(6, account.balance());
+                    ps.setTimestamp(7, Timestamp.from(account.createdAt()));
+                    ps.setInt(8, account.version());
+                });
+    }
+}
@@ -0,0 +1,100 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Filtered account listing. Each filter combination is served by one of the composite {@code accounts} indexes. */
+@Repository
+public class AccountQueryDao {
+
+    public record AccountFilter(AccountType type, String currency, String parentId) {}
+
+    private static final String SELECT_ACCOUNTS =
+            "SELECT id, name, account_type, currency, parent_account_id, balance, created_at, version "
+                    + "FROM accounts WHERE 1 = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountQueryDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Next keyset page ordered by id, starting after {@code afterId} (exclusive, may be {@code null}). */
+    public List<Account> findAfter(AccountFilter filter, String afterId, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_ACCOUNTS);
+        appendFilter(sql, params, filter);
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapAccount(rs), params.toArray());
+    }
+
+    public List<Account> findPage(AccountFilter filter, int limit, long offset) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_ACCOUNTS);
+        appendFilter(sql, params, filter);
+        sql.append(" ORDER BY id LIMIT ? OFFSET ?");
+        params.add(limit);
+        params.add(offset);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapAccount(rs), params.toArray());
+    }
+
+    public long count(AccountFilter filter) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM accounts WHERE 1 = 1");
+        appendFilter(sql, params, filter);
+        Long count = jdbcTemplate.queryForObject(sql.toString(), Long.class, params.toArray());
+        return count == null ? 0 : count;
+    }
+
+    /** The account's row version and creation time, as {@code <createdAtMillis>-<version>}; a primary-key probe. */
+    public Optional<String> findVersionTag(String accountId) {
+        return jdbcTemplate
+                .query(
+                        "SELECT created_at, version FROM accounts WHERE id = ?",
+                        (rs, rowNum) -> rs.getTimestamp("created_at").getTime() + "-" + rs.getLong("version"),
+                        accountId)
+                .stream()
+                .findFirst();
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> params, AccountFilter filter) {
+        if (filter.type() != null) {
+            sql.append(" AND account_type = ?");
+            params.add(filter.type().name());
+        }
+        if (filter.currency() != null) {
+            sql.append(" AND currency = ?");
+            params.add(filter.currency());
+        }
+        if (filter.parentId() != null) {
+            sql.append(" AND parent_account_id = ?");
+            params.add(filter.parentId());
+        }
+    }
+
+    private Account mapAccount(ResultSet rs) throws SQLException {
+        return new Account(
+                rs.getString("id"),
+                rs.getString("name"),
+                AccountType.valueOf(rs.getString("account_type")),
+                rs.getString("currency"),
+                rs.getString("parent_account_id"),
+                rs.getBigDecimal("balance"),
+                rs.getTimestamp("created_at") == null
+                        ? null
+                        : rs.getTimestamp("created_at").toInstant(),
+                rs.getInt("version"));
+    }
+}
@@ -1,8 +1,6 @@
 package com.pezesha.cbsledger.repository;
 
 import com.pezesha.cbsledger.domain.Account;
-import java.math.BigDecimal;
-import java.time.Instant;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,21 +20,14 @@ public interface AccountRepository
 
     List<Account> findAllById(Iterable<String> ids);
 
-    @Query("SELECT COUNT(*) > 0 FROM entry_lines WHERE account_id = :accountId")
-    boolean hasTransactions(@Param("accountId") String accountId);
-
     @Query("""
-        SELECT COALESCE(SUM(CASE
-            WHEN a.account_type IN ('ASSET', 'EXPENSE') THEN el.debit - el.credit
-            ELSE el.credit - el.debit
-        END), 0)
-        FROM entry_lines el
-        JOIN journal_entries je ON el.journal_entry_id = je.id
-        JOIN accounts a ON el.account_id = a.id
-        WHERE el.account_id = :accountId
-        AND je.transaction_date <= :asOf
+        SELECT EXISTS (SELECT 1 FROM entry_lines WHERE account_id = :accountId)
+            OR EXISTS (SELECT 1 FROM entry_lines_archive WHERE account_id = :accountId)
     """)
-    BigDecimal getBalanceAsOf(@Param("accountId") String accountId, @Param("asOf") Instant asOf);
+    boolean hasTransactions(@Param("accountId") String accountId);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM accounts WHERE parent_account_id = :accountId)")
+    boolean hasChildren(@Param("accountId") String accountId);
 
     List<Account> findByParentAccountId(String parentAccountId);
 
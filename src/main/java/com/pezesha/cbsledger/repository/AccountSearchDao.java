@@ -0,0 +1,60 @@
+package com.pezesha.cbsledger.repository;
+
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@code account_search_keys}: every account's lower-cased id and name, each pointing at the account. Keys are written
+ * in the transaction that creates the account and deleted with it by the foreign key, so a prefix lookup is an index
+ * range scan over the committed chart.
+ */
+@Repository
+public class AccountSearchDao {
+
+    public record SearchKey(String key, String accountId) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountSearchDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<SearchKey> keys) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO account_search_keys (search_key, account_id) VALUES (?, ?)",
+                keys,
+                1_000,
+                (ps, key) -> {
+                    ps.setString(1, key.key());
+                    ps.setString(2, key.accountId());
+                });
+    }
+
+    /** Keys starting with {@code prefix} (already lower-cased), in key order after {@code after} if given. */
+    public List<SearchKey> findByPrefix(String prefix, SearchKey after, int limit) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        if (after == null) {
+            return jdbcTemplate.query(
+                    """
+                    SELECT search_key, account_id FROM account_search_keys
+                    WHERE search_key LIKE ? ESCAPE '\\'
+                    ORDER BY search_key, account_id LIMIT ?
+                    """,
+                    (rs, rowNum) -> new SearchKey(rs.getString("search_key"), rs.getString("account_id")),
+                    pattern,
+                    limit);
+        }
+        return jdbcTemplate.query(
+                """
+                SELECT search_key, account_id FROM account_search_keys
+                WHERE search_key LIKE ? ESCAPE '\\' AND (search_key, account_id) > (?, ?)
+                ORDER BY search_key, account_id LIMIT ?
+                """,
+                (rs, rowNum) -> new SearchKey(rs.getString("search_key"), rs.getString("account_id")),
+                pattern,
+                after.key(),
+                after.accountId(),
+                limit);
+    }
+}
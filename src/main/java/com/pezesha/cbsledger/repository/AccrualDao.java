@@ -0,0 +1,147 @@
+package com.pezesha.cbsledger.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class AccrualDao {
+
+    public record AccrualCandidate(String loanId, BigDecimal outstanding, BigDecimal annualRate, String currency) {}
+
+    public record LoanAccrual(String loanId, BigDecimal amount) {}
+
+    public record AccrualRun(
+            LocalDate businessDate,
+            String status,
+            long loanCount,
+            int journalCount,
+            BigDecimal totalAmount,
+            Instant startedAt,
+            Instant completedAt) {}
+
+    public record LoanAccrualEntry(String loanId, LocalDate businessDate, BigDecimal amount, Long journalEntryId) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccrualDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Next page, by loan id, of active loans disbursed by the business date that have not accrued for it yet, with the
+     * outstanding balance of their loan account. Loans paid down to nothing are left out.
+     */
+    public List<AccrualCandidate> findUnaccruedLoans(
+            LocalDate businessDate, String afterLoanId, int limit, BigDecimal defaultRate) {
+        Instant endOfDay = businessDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        return jdbcTemplate.query(
+                """
+                SELECT l.loan_id, a.balance, COALESCE(l.interest_rate, ?) AS annual_rate, a.currency
+                FROM loans l
+                JOIN accounts a ON l.account_id = a.id
+                WHERE l.status = 'ACTIVE'
+                AND a.balance > 0
+                AND l.disbursed_at < ?
+                AND l.loan_id > ?
+                AND NOT EXISTS (SELECT 1 FROM loan_accruals la
+                                WHERE la.loan_id = l.loan_id AND la.business_date = ?)
+                ORDER BY l.loan_id
+                LIMIT ?
+                """,
+                (rs, rowNum) -> new AccrualCandidate(
+                        rs.getString("loan_id"),
+                        rs.getBigDecimal("balance"),
+                        rs.getBigDecimal("annual_rate"),
+                        rs.getString("currency")),
+                defaultRate,
+                Timestamp.from(endOfDay),
+                afterLoanId,
+                Date.valueOf(businessDate),
+                limit);
+    }
+
+    public void insertAccruals(LocalDate businessDate, Long journalEntryId, List<LoanAccrual> accruals) {
+        jdbcTemplate.batchUpdate(
+                """
+                INSERT INTO loan_accruals (loan_id, business_date, amount, journal_entry_id)
+                VALUES (?, ?, ?, ?)
+                """,
+                accruals,
+                1_000,
+                (ps, accrual) -> {
+                    ps.setString(1, accrual.loanId());
+                    ps.setDate(2, Date.valueOf(businessDate));
+                    ps.setBigDecimal(3, accrual.amount());
+                    ps.setLong(4, journalEntryId);
+                });
+    }
+
+    public List<LoanAccrualEntry> findAccruals(String loanId) {
+        return jdbcTemplate.query(
+                """
+                SELECT loan_id, business_date, amount, journal_entry_id FROM loan_accruals
+                WHERE loan_id = ? ORDER BY business_date
+                """,
+                (rs, rowNum) -> new LoanAccrualEntry(
+                        rs.getString("loan_id"),
+                        rs.getDate("business_date").toLocalDate(),
+                        rs.getBigDecimal("amount"),
+                        rs.getLong("journal_entry_id")),
+                loanId);
+    }
+
+    public Optional<AccrualRun> findRun(LocalDate businessDate) {
+        return jdbcTemplate
+                .query(
+                        """
+                        SELECT business_date, status, loan_count, journal_count, total_amount, started_at, completed_at
+                        FROM accrual_runs WHERE business_date = ?
+                        """,
+                        (rs, rowNum) -> new AccrualRun(
+                                rs.getDate("business_date").toLocalDate(),
+                                rs.getString("status"),
+                                rs.getLong("loan_count"),
+                                rs.getInt("journal_count"),
+                                rs.getBigDecimal("total_amount"),
+                                rs.getTimestamp("started_at").toInstant(),
+                                rs.getTimestamp("completed_at") == null
+                                        ? null
+                                        : rs.getTimestamp("completed_at").toInstant()),
+                        Date.valueOf(businessDate))
+                .stream()
+                .findFirst();
+    }
+
+    public void startRun(LocalDate businessDate, Instant startedAt) {
+        jdbcTemplate.update(
+                "INSERT INTO accrual_runs (business_date, status, started_at) VALUES (?, 'RUNNING', ?)",
+                Date.valueOf(businessDate),
+                Timestamp.from(startedAt));
+    }
+
+    /** Marks the run complete with totals recomputed from the sub-ledger, so resumed runs report the whole day. */
+    public void completeRun(LocalDate businessDate, Instant completedAt) {
+        jdbcTemplate.update(
+                """
+                UPDATE accrual_runs SET status = 'COMPLETED', completed_at = ?,
+                    loan_count = (SELECT COUNT(*) FROM loan_accruals WHERE business_date = ?),
+                    journal_count = (SELECT COUNT(DISTINCT journal_entry_id) FROM loan_accruals
+                                     WHERE business_date = ?),
+                    total_amount = (SELECT COALESCE(SUM(amount), 0) FROM loan_accruals WHERE business_date = ?)
+                WHERE business_date = ?
+                """,
+                Timestamp.from(completedAt),
+                Date.valueOf(businessDate),
+                Date.valueOf(businessDate),
+                Date.valueOf(businessDate),
+                Date.valueOf(businessDate));
+    }
+}
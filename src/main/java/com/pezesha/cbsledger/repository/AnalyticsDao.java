@@ -0,0 +1,72 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.common.config.DataSourceConfig;
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Bulk reads used to populate the in-process analytics store. Runs on the reporting pool. */
+@Repository
+public class AnalyticsDao {
+
+    public interface LineConsumer {
+        void accept(long journalEntryId, String accountId, LocalDate day, BigDecimal debit, BigDecimal credit);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AnalyticsDao(@Qualifier(DataSourceConfig.REPORTING_JDBC_TEMPLATE) JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Account> findAccounts() {
+        return jdbcTemplate.query(
+                """
+                SELECT id, name, account_type, currency, parent_account_id, balance, created_at, version
+                FROM accounts
+                """,
+                (rs, rowNum) -> new Account(
+                        rs.getString("id"),
+                        rs.getString("name"),
+                        AccountType.valueOf(rs.getString("account_type")),
+                        rs.getString("currency"),
+                        rs.getString("parent_account_id"),
+                        rs.getBigDecimal("balance"),
+                        rs.getTimestamp("created_at") == null
+                                ? null
+                                : rs.getTimestamp("created_at").toInstant(),
+                        rs.getInt("version")));
+    }
+
+    /** Streams every line, active and archived, without materialising the result set. */
+    public void streamLines(LineConsumer consumer) {
+        ZoneId zone = ZoneId.systemDefault();
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(10_000);
+        streaming.query(
+                """
+                SELECT el.journal_entry_id, el.account_id, je.transaction_date, el.debit, el.credit
+                FROM entry_lines el JOIN journal_entries je ON el.journal_entry_id = je.id
+                UNION ALL
+                SELECT journal_entry_id, account_id, transaction_date, debit, credit
+                FROM entry_lines_archive
+                """,
+                rs -> {
+                    consumer.accept(
+                            rs.getLong("journal_entry_id"),
+                            rs.getString("account_id"),
+                            rs.getTimestamp("transaction_date")
+                                    .toInstant()
+                                    .atZone(zone)
+                                    .toLocalDate(),
+                            rs.getBigDecimal("debit"),
+                            rs.getBigDecimal("credit"));
+                });
+    }
+}
@@ -0,0 +1,148 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.AlertDirection;
+import com.pezesha.cbsledger.dto.DTO;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class BalanceAlertDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceAlertDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<DTO.BalanceWatchRule> findRules() {
+        return jdbcTemplate.query(
+                "SELECT id, account_id, direction, threshold, created_at FROM balance_watch_rules ORDER BY id",
+                (rs, rowNum) -> new DTO.BalanceWatchRule(
+                        rs.getLong("id"),
+                        rs.getString("account_id"),
+                        AlertDirection.valueOf(rs.getString("direction")),
+                        rs.getBigDecimal("threshold"),
+                        rs.getTimestamp("created_at").toInstant()));
+    }
+
+    public long insertRule(String accountId, AlertDirection direction, BigDecimal threshold, Instant now) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            """
+                            INSERT INTO balance_watch_rules (account_id, direction, threshold, created_at)
+                            VALUES (?, ?, ?, ?)
+                            """,
+                            new String[] {"id"});
+                    ps.setString(1, accountId);
+                    ps.setString(2, direction.name());
+                    ps.setBigDecimal(3, threshold);
+                    ps.setTimestamp(4, Timestamp.from(now));
+                    return ps;
+                },
+                keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /** Moves the rules version, which every node polls to know when to reload the rules. */
+    public void incrementRulesVersion() {
+        jdbcTemplate.update("UPDATE balance_alert_state SET rules_version = rules_version + 1 WHERE id = 1");
+    }
+
+    public long findRulesVersion() {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT rules_version FROM balance_alert_state WHERE id = 1", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    public boolean deleteRule(long id) {
+        return jdbcTemplate.update("DELETE FROM balance_watch_rules WHERE id = ?", id) > 0;
+    }
+
+    public int deleteRulesFor(String accountId) {
+        return jdbcTemplate.update("DELETE FROM balance_watch_rules WHERE account_id = ?", accountId);
+    }
+
+    public long insertAlert(DTO.BalanceAlert alert) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            """
+                            INSERT INTO balance_alerts (rule_id, account_id, direction, threshold, balance_before,
+                                balance_after, journal_entry_id, triggered_at)
+                            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                            """,
+                            new String[] {"id"});
+                    ps.setLong(1, alert.ruleId());
+                    ps.setString(2, alert.accountId());
+                    ps.setString(3, alert.direction().name());
+                    ps.setBigDecimal(4, alert.threshold());
+                    ps.setBigDecimal(5, alert.balanceBefore());
+                    ps.setBigDecimal(6, alert.balanceAfter());
+                    ps.setLong(7, alert.journalEntryId());
+                    ps.setTimestamp(8, Timestamp.from(alert.triggeredAt()));
+                    return ps;
+                },
+                keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /** Most recent alerts first, for one account or all of them. */
+    public List<DTO.BalanceAlert> findAlerts(String accountId, int limit) {
+        String columns = """
+                id, rule_id, account_id, direction, threshold, balance_before, balance_after, journal_entry_id,
+                triggered_at""";
+        return accountId == null
+                ? jdbcTemplate.query(
+                        "SELECT " + columns + " FROM balance_alerts ORDER BY id DESC LIMIT ?",
+                        BalanceAlertDao::mapAlert,
+                        limit)
+                : jdbcTemplate.query(
+                        "SELECT " + columns + " FROM balance_alerts WHERE account_id = ? ORDER BY id DESC LIMIT ?",
+                        BalanceAlertDao::mapAlert,
+                        accountId,
+                        limit);
+    }
+
+    /** Up to {@code limit} alerts after {@code afterId}, oldest first. */
+    public List<DTO.BalanceAlert> findAlertsAfter(long afterId, int limit) {
+        return jdbcTemplate.query(
+                """
+                SELECT id, rule_id, account_id, direction, threshold, balance_before, balance_after, journal_entry_id,
+                    triggered_at
+                FROM balance_alerts WHERE id > ? ORDER BY id LIMIT ?
+                """,
+                BalanceAlertDao::mapAlert,
+                afterId,
+                limit);
+    }
+
+    public long findMaxAlertId() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM balance_alerts", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private static DTO.BalanceAlert mapAlert(ResultSet rs, int rowNum) throws SQLException {
+        return new DTO.BalanceAlert(
+                rs.getLong("id"),
+                rs.getLong("rule_id"),
+                rs.getString("account_id"),
+                AlertDirection.valueOf(rs.getString("direction")),
+                rs.getBigDecimal("threshold"),
+                rs.getBigDecimal("balance_before"),
+                rs.getBigDecimal("balance_after"),
+                rs.getLong("journal_entry_id"),
+                rs.getTimestamp("triggered_at").toInstant());
+    }
+}
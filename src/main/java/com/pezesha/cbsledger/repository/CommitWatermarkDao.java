@@ -0,0 +1,64 @@
+package com.pezesha.cbsledger.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@code commit_watermarks}: one row per running node with the oldest instant any of its postings in flight is stamped
+ * or dated at, and {@code backdate_generation}, moved by every posting dated before its own stamp.
+ */
+@Repository
+public class CommitWatermarkDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CommitWatermarkDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void publish(String nodeId, Instant oldestInFlight, Instant now) {
+        int updated = jdbcTemplate.update(
+                "UPDATE commit_watermarks SET oldest_in_flight = ?, updated_at = ? WHERE node_id = ?",
+                Timestamp.from(oldestInFlight),
+                Timestamp.from(now),
+                nodeId);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO commit_watermarks (node_id, oldest_in_flight, updated_at) VALUES (?, ?, ?)",
+                    nodeId,
+                    Timestamp.from(oldestInFlight),
+                    Timestamp.from(now));
+        }
+    }
+
+    /** Oldest bound published by the other nodes since {@code liveSince}; {@link Instant#MAX} when there are none. */
+    public Instant findOthersBound(String nodeId, Instant liveSince) {
+        Timestamp bound = jdbcTemplate.queryForObject(
+                "SELECT MIN(oldest_in_flight) FROM commit_watermarks WHERE node_id <> ? AND updated_at > ?",
+                Timestamp.class,
+                nodeId,
+                Timestamp.from(liveSince));
+        return bound == null ? Instant.MAX : bound.toInstant();
+    }
+
+    public void remove(String nodeId) {
+        jdbcTemplate.update("DELETE FROM commit_watermarks WHERE node_id = ?", nodeId);
+    }
+
+    public int deleteStale(Instant before) {
+        return jdbcTemplate.update("DELETE FROM commit_watermarks WHERE updated_at < ?", Timestamp.from(before));
+    }
+
+    /** Moves the backdate generation; keep the caller's transaction short, every backdated posting updates this row. */
+    public void incrementBackdateGeneration() {
+        jdbcTemplate.update("UPDATE backdate_generation SET generation = generation + 1 WHERE id = 1");
+    }
+
+    public long findBackdateGeneration() {
+        Long generation = jdbcTemplate.queryForObject(
+                "SELECT generation FROM backdate_generation WHERE id = 1", Long.class);
+        return generation == null ? 0 : generation;
+    }
+}
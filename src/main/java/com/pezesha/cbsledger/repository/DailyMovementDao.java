@@ -0,0 +1,83 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.EntryLine;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DailyMovementDao {
+
+    private record Movement(String accountId, BigDecimal debit, BigDecimal credit, int lineCount) {
+        static Movement of(EntryLine line) {
+            return new Movement(line.accountId(), line.debit(), line.credit(), 1);
+        }
+
+        Movement plus(Movement other) {
+            return new Movement(
+                    accountId, debit.add(other.debit), credit.add(other.credit), lineCount + other.lineCount);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyMovementDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds a journal's lines to the day's per-account totals. Runs in the posting transaction after the accounts
+     * were updated, so their row locks keep two postings from creating the same (account, day) row at once.
+     */
+    public void add(LocalDate day, Collection<EntryLine> lines) {
+        Map<String, Movement> byAccount = new TreeMap<>();
+        for (EntryLine line : lines) {
+            byAccount.merge(line.accountId(), Movement.of(line), Movement::plus);
+        }
+        List<Movement> movements = new ArrayList<>(byAccount.values());
+        Date date = Date.valueOf(day);
+
+        int[] updated = jdbcTemplate.batchUpdate(
+                """
+                UPDATE account_daily_movements
+                SET debit_total = debit_total + ?, credit_total = credit_total + ?, line_count = line_count + ?
+                WHERE account_id = ? AND movement_date = ?
+                """,
+                movements,
+                movements.size(),
+                (ps, movement) -> {
+                    ps.setBigDecimal(1, movement.debit());
+                    ps.setBigDecimal(2, movement.credit());
+                    ps.setInt(3, movement.lineCount());
+                    ps.setString(4, movement.accountId());
+                    ps.setDate(5, date);
+                })[0];
+
+        List<Movement> missing = new ArrayList<>();
+        for (int i = 0; i < movements.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(movements.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                """
+                INSERT INTO account_daily_movements (account_id, movement_date, debit_total, credit_total, line_count)
+                VALUES (?, ?, ?, ?, ?)
+                """,
+                missing,
+                missing.size(),
+                (ps, movement) -> {
+                    ps.setString(1, movement.accountId());
+                    ps.setDate(2, date);
+                    ps.setBigDecimal(3, movement.debit());
+                    ps.setBigDecimal(4, movement.credit());
+                    ps.setInt(5, movement.lineCount());
+                });
+    }
+}
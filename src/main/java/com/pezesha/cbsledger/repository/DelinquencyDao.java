@@ -0,0 +1,248 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.AgingBucket;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DelinquencyDao {
+
+    public record LoanPosition(String accountId, BigDecimal outstanding, LocalDate dueDate) {}
+
+    public record DelinquencyState(
+            String accountId,
+            String accountName,
+            BigDecimal outstanding,
+            LocalDate dueDate,
+            AgingBucket bucket,
+            AgingBucket previousBucket,
+            LocalDate bucketChangedOn,
+            LocalDate nextTransitionDate) {}
+
+    public record BucketTotal(long loanCount, BigDecimal totalOutstanding) {}
+
+    private static final String SELECT_STATE =
+            """
+            SELECT d.account_id, a.name AS account_name, d.outstanding, d.due_date, d.bucket, d.previous_bucket,
+                   d.bucket_changed_on, d.next_transition_date
+            FROM loan_delinquency d JOIN accounts a ON a.id = d.account_id
+            """;
+
+    private static final String SELECT_POSITION =
+            """
+            SELECT a.id, a.balance, a.created_at, MIN(l.due_date) AS due_date
+            FROM accounts a LEFT JOIN loans l ON a.id = l.account_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DelinquencyDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<LoanPosition> findPosition(String accountId) {
+        return jdbcTemplate
+                .query(
+                        SELECT_POSITION + " WHERE a.id = ? GROUP BY a.id, a.balance, a.created_at",
+                        (rs, rowNum) -> mapPosition(rs),
+                        accountId)
+                .stream()
+                .findFirst();
+    }
+
+    /** Positions for every account the aging report has always treated as a loan receivable. */
+    public List<LoanPosition> findLoanReceivablePositions() {
+        return jdbcTemplate.query(
+                SELECT_POSITION
+                        + """
+                        WHERE a.account_type = 'ASSET'
+                        AND (LOWER(a.name) LIKE '%loan%' OR LOWER(a.name) LIKE '%receivable%')
+                        AND a.balance > 0
+                        GROUP BY a.id, a.balance, a.created_at
+                        """,
+                (rs, rowNum) -> mapPosition(rs));
+    }
+
+    public Optional<DelinquencyState> find(String accountId) {
+        return jdbcTemplate
+                .query(SELECT_STATE + " WHERE d.account_id = ?", (rs, rowNum) -> mapState(rs), accountId)
+                .stream()
+                .findFirst();
+    }
+
+    /** The longest-overdue loans in {@code bucket}, read along the bucket and due date index. */
+    public List<DelinquencyState> findByBucket(AgingBucket bucket, int limit) {
+        return jdbcTemplate.query(
+                SELECT_STATE + " WHERE d.bucket = ? ORDER BY d.due_date, d.account_id LIMIT ?",
+                (rs, rowNum) -> mapState(rs),
+                bucket.name(),
+                limit);
+    }
+
+    /** Next keyset page of loans whose bucket boundary falls on or before {@code date}. */
+    public List<DelinquencyState> findDueForTransition(LocalDate date, String afterAccountId, int limit) {
+        return jdbcTemplate.query(
+                SELECT_STATE
+                        + """
+                        WHERE d.next_transition_date <= ? AND d.account_id > ?
+                        ORDER BY d.account_id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> mapState(rs),
+                Date.valueOf(date),
+                afterAccountId,
+                limit);
+    }
+
+    public List<DelinquencyState> findBucketChangesOn(LocalDate date) {
+        return jdbcTemplate.query(
+                SELECT_STATE + " WHERE d.bucket_changed_on = ? ORDER BY d.account_id",
+                (rs, rowNum) -> mapState(rs),
+                Date.valueOf(date));
+    }
+
+    /** Totals as kept in {@code delinquency_bucket_totals}. */
+    public Map<AgingBucket, BucketTotal> findBucketTotals() {
+        Map<AgingBucket, BucketTotal> totals = new EnumMap<>(AgingBucket.class);
+        jdbcTemplate.query(
+                "SELECT bucket, loan_count, total_outstanding FROM delinquency_bucket_totals",
+                rs -> {
+                    totals.put(
+                            AgingBucket.valueOf(rs.getString("bucket")),
+                            new BucketTotal(rs.getLong("loan_count"), rs.getBigDecimal("total_outstanding")));
+                });
+        return totals;
+    }
+
+    /**
+     * Adds {@code deltas} to the bucket totals in the caller's transaction. Buckets are updated in enum order, so two
+     * transactions adjusting the same buckets never wait on each other in a cycle.
+     */
+    public void adjustBucketTotals(Map<AgingBucket, BucketTotal> deltas) {
+        new EnumMap<>(deltas).forEach((bucket, delta) -> {
+            if (delta.loanCount() != 0 || delta.totalOutstanding().signum() != 0) {
+                jdbcTemplate.update(
+                        """
+                        UPDATE delinquency_bucket_totals
+                        SET loan_count = loan_count + ?, total_outstanding = total_outstanding + ?
+                        WHERE bucket = ?
+                        """,
+                        delta.loanCount(),
+                        delta.totalOutstanding(),
+                        bucket.name());
+            }
+        });
+    }
+
+    /** Totals recomputed from the loans themselves; a full scan, for checking the kept totals. */
+    public Map<AgingBucket, BucketTotal> sumByBucket() {
+        Map<AgingBucket, BucketTotal> totals = new EnumMap<>(AgingBucket.class);
+        jdbcTemplate.query(
+                """
+                SELECT bucket, COUNT(*) AS loan_count, SUM(outstanding) AS total_outstanding
+                FROM loan_delinquency GROUP BY bucket
+                """,
+                rs -> {
+                    totals.put(
+                            AgingBucket.valueOf(rs.getString("bucket")),
+                            new BucketTotal(rs.getLong("loan_count"), rs.getBigDecimal("total_outstanding")));
+                });
+        return totals;
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT account_id FROM loan_delinquency LIMIT 1", String.class)
+                .isEmpty();
+    }
+
+    /**
+     * Writes {@code state} if the row still holds the bucket and outstanding amount of {@code expected}, or does not
+     * exist yet when {@code expected} is null. Returns false when another transaction changed the row first, so the
+     * caller never adjusts the bucket totals from a state that is no longer there.
+     */
+    public boolean save(DelinquencyState state, DelinquencyState expected, Instant updatedAt) {
+        Object[] values = {
+            state.outstanding(),
+            Date.valueOf(state.dueDate()),
+            state.bucket().name(),
+            state.previousBucket() == null ? null : state.previousBucket().name(),
+            state.bucketChangedOn() == null ? null : Date.valueOf(state.bucketChangedOn()),
+            state.nextTransitionDate() == null ? null : Date.valueOf(state.nextTransitionDate()),
+            Timestamp.from(updatedAt),
+            state.accountId()
+        };
+        if (expected == null) {
+            return jdbcTemplate.update(
+                            """
+                            INSERT INTO loan_delinquency (outstanding, due_date, bucket, previous_bucket,
+                                bucket_changed_on, next_transition_date, updated_at, account_id)
+                            SELECT ?, ?, ?, ?, ?, ?, ?, ?
+                            WHERE NOT EXISTS (SELECT 1 FROM loan_delinquency WHERE account_id = ?)
+                            """,
+                            append(values, state.accountId()))
+                    == 1;
+        }
+        return jdbcTemplate.update(
+                        """
+                        UPDATE loan_delinquency SET outstanding = ?, due_date = ?, bucket = ?, previous_bucket = ?,
+                            bucket_changed_on = ?, next_transition_date = ?, updated_at = ?
+                        WHERE account_id = ? AND bucket = ? AND outstanding = ?
+                        """,
+                        append(values, expected.bucket().name(), expected.outstanding()))
+                == 1;
+    }
+
+    /** Deletes the row if it still holds the bucket and outstanding amount of {@code expected}. */
+    public boolean delete(DelinquencyState expected) {
+        return jdbcTemplate.update(
+                        "DELETE FROM loan_delinquency WHERE account_id = ? AND bucket = ? AND outstanding = ?",
+                        expected.accountId(),
+                        expected.bucket().name(),
+                        expected.outstanding())
+                == 1;
+    }
+
+    private static Object[] append(Object[] values, Object... more) {
+        Object[] all = Arrays.copyOf(values, values.length + more.length);
+        System.arraycopy(more, 0, all, values.length, more.length);
+        return all;
+    }
+
+    private LoanPosition mapPosition(ResultSet rs) throws SQLException {
+        Date dueDate = rs.getDate("due_date");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        // Same fallback the aging report has always used: thirty days after the account was opened.
+        LocalDate due = dueDate != null
+                ? dueDate.toLocalDate()
+                : createdAt.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().plusDays(30);
+        return new LoanPosition(rs.getString("id"), rs.getBigDecimal("balance"), due);
+    }
+
+    private DelinquencyState mapState(ResultSet rs) throws SQLException {
+        String previousBucket = rs.getString("previous_bucket");
+        Date changedOn = rs.getDate("bucket_changed_on");
+        Date nextTransition = rs.getDate("next_transition_date");
+        return new DelinquencyState(
+                rs.getString("account_id"),
+                rs.getString("account_name"),
+                rs.getBigDecimal("outstanding"),
+                rs.getDate("due_date").toLocalDate(),
+                AgingBucket.valueOf(rs.getString("bucket")),
+                previousBucket == null ? null : AgingBucket.valueOf(previousBucket),
+                changedOn == null ? null : changedOn.toLocalDate(),
+                nextTransition == null ? null : nextTransition.toLocalDate());
+    }
+}
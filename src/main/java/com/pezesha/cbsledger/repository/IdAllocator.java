@@ -0,0 +1,122 @@
+package com.pezesha.cbsledger.repository;
+
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns journal, entry line and account numbers in-process from pooled database sequences. Each sequence advances
+ * by {@link #POOL_SIZE}, so one {@code nextval} reserves a block of that many ids and the next ids come from memory;
+ * rows can then be inserted with their keys already set, in JDBC batches, without asking for generated keys.
+ *
+ * <p>Ids stay small and dense (the column store indexes journals by id), and a restart only skips the rest of the
+ * current block. At startup each sequence is moved past the highest id already stored, so rows inserted by other
+ * means (seed data, identity defaults) are never collided with; on H2 that is DDL, which is why it happens here and
+ * never inside a posting transaction.
+ */
+@Component
+@Slf4j
+public class IdAllocator {
+
+    public static final int POOL_SIZE = 100;
+
+    private final PooledSequence journalIds;
+    private final PooledSequence lineIds;
+    private final PooledSequence accountNumbers;
+
+    public IdAllocator(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        boolean postgres = "PostgreSQL".equals(databaseProduct(dataSource));
+        this.journalIds = new PooledSequence(
+                jdbcTemplate,
+                postgres,
+                "journal_entry_id_seq",
+                """
+                SELECT GREATEST(COALESCE((SELECT MAX(id) FROM journal_entries), 0),
+                                COALESCE((SELECT MAX(id) FROM journal_entries_archive), 0))
+                """);
+        this.lineIds = new PooledSequence(
+                jdbcTemplate,
+                postgres,
+                "entry_line_id_seq",
+                """
+                SELECT GREATEST(COALESCE((SELECT MAX(id) FROM entry_lines), 0),
+                                COALESCE((SELECT MAX(id) FROM entry_lines_archive), 0))
+                """);
+        this.accountNumbers = new PooledSequence(
+                jdbcTemplate, postgres, "account_no_seq", "SELECT COALESCE(MAX(account_no), 0) FROM accounts");
+        journalIds.align();
+        lineIds.align();
+        accountNumbers.align();
+    }
+
+    public long nextJournalId() {
+        return journalIds.next();
+    }
+
+    public long nextLineId() {
+        return lineIds.next();
+    }
+
+    public long nextAccountNo() {
+        return accountNumbers.next();
+    }
+
+    private static String databaseProduct(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot determine database product for id sequences", e);
+        }
+    }
+
+    private static final class PooledSequence {
+        private final JdbcTemplate jdbcTemplate;
+        private final boolean postgres;
+        private final String name;
+        private final String maxStoredSql;
+        private long next;
+        private long limit;
+
+        PooledSequence(JdbcTemplate jdbcTemplate, boolean postgres, String name, String maxStoredSql) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.postgres = postgres;
+            this.name = name;
+            this.maxStoredSql = maxStoredSql;
+        }
+
+        synchronized long next() {
+            if (next == limit) {
+                next = nextval();
+                limit = next + POOL_SIZE;
+            }
+            return next++;
+        }
+
+        /** Takes the first block, first restarting the sequence past the stored ids if it is behind them. */
+        synchronized void align() {
+            long start = nextval();
+            long maxStored = jdbcTemplate.queryForObject(maxStoredSql, Long.class);
+            if (start <= maxStored) {
+                long restart = maxStored + 1;
+                if (postgres) {
+                    jdbcTemplate.queryForObject("SELECT setval('" + name + "', ?, false)", Long.class, restart);
+                } else {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + name + " RESTART WITH " + restart);
+                }
+                log.info("Moved sequence {} past stored id {}", name, maxStored);
+                start = nextval();
+            }
+            next = start;
+            limit = start + POOL_SIZE;
+        }
+
+        private long nextval() {
+            return jdbcTemplate.queryForObject(
+                    postgres ? "SELECT nextval('" + name + "')" : "SELECT NEXT VALUE FOR " + name, Long.class);
+        }
+    }
+}
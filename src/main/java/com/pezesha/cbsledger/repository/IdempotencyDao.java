@@ -0,0 +1,128 @@
+package com.pezesha.cbsledger.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Idempotency keys, one table per calendar month of posting ({@code idempotency_keys_yyyymm}) listed in
+ * {@code idempotency_partitions}. Rows are fixed width: a 128-bit key hash as two BIGINTs and the journal id. Expired
+ * months are first retired, which takes them out of {@link #findPartitions()}, and later removed with DROP TABLE, never
+ * row by row. Creating and dropping partitions is DDL, which H2 commits immediately, so callers run it outside any
+ * posting transaction.
+ */
+@Repository
+public class IdempotencyDao {
+
+    public record KeyHash(long hi, long lo) {}
+
+    public record StoredKey(KeyHash hash, long journalEntryId, Instant createdAt) {}
+
+    private static final DateTimeFormatter TABLE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String INSERT =
+            "INSERT INTO %s (key_hi, key_lo, journal_entry_id, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Partitions keys are looked up in: every one not retired. */
+    public List<YearMonth> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT partition_start FROM idempotency_partitions WHERE retired_at IS NULL ORDER BY partition_start",
+                (rs, rowNum) -> YearMonth.from(rs.getDate("partition_start").toLocalDate()));
+    }
+
+    public List<YearMonth> findRetiredBefore(Instant before) {
+        return jdbcTemplate.query(
+                "SELECT partition_start FROM idempotency_partitions WHERE retired_at < ? ORDER BY partition_start",
+                (rs, rowNum) -> YearMonth.from(rs.getDate("partition_start").toLocalDate()),
+                Timestamp.from(before));
+    }
+
+    public void retirePartition(YearMonth month, Instant now) {
+        jdbcTemplate.update(
+                "UPDATE idempotency_partitions SET retired_at = ? WHERE partition_start = ? AND retired_at IS NULL",
+                Timestamp.from(now),
+                Date.valueOf(month.atDay(1)));
+    }
+
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.execute(
+                """
+                CREATE TABLE IF NOT EXISTS %s (
+                    key_hi BIGINT NOT NULL,
+                    key_lo BIGINT NOT NULL,
+                    journal_entry_id BIGINT NOT NULL,
+                    created_at TIMESTAMP NOT NULL,
+                    PRIMARY KEY (key_hi, key_lo)
+                )
+                """
+                        .formatted(table(month)));
+        jdbcTemplate.update(
+                """
+                INSERT INTO idempotency_partitions (partition_start)
+                SELECT CAST(? AS DATE) WHERE NOT EXISTS (SELECT 1 FROM idempotency_partitions WHERE partition_start = ?)
+                """,
+                Date.valueOf(month.atDay(1)),
+                Date.valueOf(month.atDay(1)));
+    }
+
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.update(
+                "DELETE FROM idempotency_partitions WHERE partition_start = ?", Date.valueOf(month.atDay(1)));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table(month));
+    }
+
+    /** Journal the key points at, looking in every given partition with one primary-key probe each. */
+    public Optional<Long> find(List<YearMonth> partitions, KeyHash hash) {
+        if (partitions.isEmpty()) {
+            return Optional.empty();
+        }
+        String sql = partitions.stream()
+                .map(month -> "SELECT journal_entry_id FROM " + table(month) + " WHERE key_hi = ? AND key_lo = ?")
+                .collect(Collectors.joining(" UNION ALL "));
+        Object[] params = new Object[partitions.size() * 2];
+        for (int i = 0; i < partitions.size(); i++) {
+            params[2 * i] = hash.hi();
+            params[2 * i + 1] = hash.lo();
+        }
+        return jdbcTemplate.queryForList(sql, Long.class, params).stream().findFirst();
+    }
+
+    /** Fails with a duplicate-key exception if the partition already holds the hash. */
+    public void insert(YearMonth partition, StoredKey key) {
+        jdbcTemplate.update(
+                INSERT.formatted(table(partition)),
+                key.hash().hi(),
+                key.hash().lo(),
+                key.journalEntryId(),
+                Timestamp.from(key.createdAt()));
+    }
+
+    public void insertAll(YearMonth partition, List<StoredKey> keys) {
+        jdbcTemplate.batchUpdate(
+                INSERT.formatted(table(partition)),
+                keys,
+                1_000,
+                (ps, key) -> {
+                    ps.setLong(1, key.hash().hi());
+                    ps.setLong(2, key.hash().lo());
+                    ps.setLong(3, key.journalEntryId());
+                    ps.setTimestamp(4, Timestamp.from(key.createdAt()));
+                });
+    }
+
+    private static String table(YearMonth month) {
+        return "idempotency_keys_" + month.format(TABLE_SUFFIX);
+    }
+}
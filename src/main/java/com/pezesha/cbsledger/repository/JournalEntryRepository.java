@@ -1,7 +1,6 @@
 package com.pezesha.cbsledger.repository;
 
 import com.pezesha.cbsledger.domain.JournalEntry;
-import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
@@ -12,7 +11,5 @@ import org.springframework.stereotype.Repository;
 public interface JournalEntryRepository
         extends CrudRepository<JournalEntry, Long>, PagingAndSortingRepository<JournalEntry, Long> {
 
-    Optional<JournalEntry> findByIdempotencyKey(String idempotencyKey);
-
     Page<JournalEntry> findAll(Pageable pageable);
 }
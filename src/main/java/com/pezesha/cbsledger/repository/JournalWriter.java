@@ -0,0 +1,98 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes a posting with plain JDBC instead of Spring Data's aggregate mapping: one delta UPDATE per distinct account
+ * guarded by its version, one INSERT for the journal and multi-row INSERTs for its lines. Statements are built from a
+ * fixed set of SQL strings, so the driver's prepared statement cache keeps hitting. Ids must already be assigned (see
+ * {@link IdAllocator}).
+ */
+@Repository
+public class JournalWriter {
+
+    /** Lines per multi-row INSERT; larger journals use several statements of at most this many rows. */
+    static final int MAX_ROWS_PER_INSERT = 32;
+
+    private static final String UPDATE_BALANCE =
+            "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ? AND version = ?";
+    private static final String INSERT_JOURNAL =
+            """
+            INSERT INTO journal_entries (id, idempotency_key, description, transaction_date, posted_at, status)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String[] INSERT_LINES = new String[MAX_ROWS_PER_INSERT + 1];
+
+    static {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO entry_lines (id, journal_entry_id, account_id, account_no, debit, credit) VALUES");
+        sql.append(" (?, ?, ?, ?, ?, ?)");
+        for (int rows = 1; rows <= MAX_ROWS_PER_INSERT; rows++) {
+            INSERT_LINES[rows] = sql.toString();
+            sql.append(", (?, ?, ?, ?, ?, ?)");
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JournalWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies each account's net change in one batch, in account id order so concurrent postings lock rows in the
+     * same order. Throws if any account's version moved since {@code accounts} was read.
+     */
+    public void applyBalanceChanges(Map<String, Account> accounts, Map<String, BigDecimal> netChanges) {
+        List<Map.Entry<String, BigDecimal>> changes = new ArrayList<>(new TreeMap<>(netChanges).entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_BALANCE, changes, changes.size(), (ps, change) -> {
+            ps.setBigDecimal(1, change.getValue());
+            ps.setString(2, change.getKey());
+            ps.setInt(3, accounts.get(change.getKey()).version());
+        });
+        for (int i = 0; i < changes.size(); i++) {
+            if (counts[0][i] != 1) {
+                throw new OptimisticLockingFailureException(
+                        "Account " + changes.get(i).getKey() + " was updated concurrently");
+            }
+        }
+    }
+
+    public void insert(JournalEntry journal) {
+        jdbcTemplate.update(INSERT_JOURNAL, ps -> {
+            ps.setLong(1, journal.id());
+            ps.setString(2, journal.idempotencyKey());
+            ps.setString(3, journal.description());
+            ps.setTimestamp(4, Timestamp.from(journal.transactionDate()));
+            ps.setTimestamp(5, Timestamp.from(journal.postedAt()));
+            ps.setString(6, journal.status());
+        });
+
+        List<EntryLine> lines = new ArrayList<>(journal.entries());
+        for (int from = 0; from < lines.size(); from += MAX_ROWS_PER_INSERT) {
+            List<EntryLine> rows = lines.subList(from, Math.min(lines.size(), from + MAX_ROWS_PER_INSERT));
+            jdbcTemplate.update(INSERT_LINES[rows.size()], ps -> {
+                int p = 1;
+                for (EntryLine line : rows) {
+                    ps.setLong(p++, line.id());
+                    ps.setLong(p++, journal.id());
+                    ps.setString(p++, line.accountId());
+                    ps.setLong(p++, line.accountNo());
+                    ps.setBigDecimal(p++, line.debit());
+                    ps.setBigDecimal(p++, line.credit());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.pezesha.cbsledger.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The ledger version: a counter every posting and account change moves in the transaction making the change, so the
+ * version commits with it and changes exactly when committed ledger data does, whichever node wrote it. It is striped
+ * over {@link #SLOTS} rows to keep concurrent postings off one hot row; the version is their sum, which only ever
+ * grows. Readers take it from the pool they read the data from ({@link ReportingDao#findLedgerVersion()}).
+ */
+@Repository
+public class LedgerVersionDao {
+
+    public static final int SLOTS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerVersionDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Moves the version in the caller's transaction; it becomes visible when that transaction commits. */
+    public void increment() {
+        jdbcTemplate.update(
+                "UPDATE ledger_version SET version = version + 1 WHERE slot = ?",
+                ThreadLocalRandom.current().nextInt(SLOTS));
+    }
+}
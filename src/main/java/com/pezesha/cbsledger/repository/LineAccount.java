@@ -0,0 +1,22 @@
+package com.pezesha.cbsledger.repository;
+
+/**
+ * How entry lines are matched to an account: by the numeric {@code account_no} once lines have been backfilled,
+ * otherwise by the external {@code account_id}.
+ */
+public record LineAccount(String accountId, Long accountNo) {
+
+    /** Column on {@code entry_lines} / {@code entry_lines_archive}. */
+    public String lineColumn() {
+        return accountNo != null ? "account_no" : "account_id";
+    }
+
+    /** Matching column on {@code accounts}. */
+    public String accountColumn() {
+        return accountNo != null ? "account_no" : "id";
+    }
+
+    public Object key() {
+        return accountNo != null ? accountNo : accountId;
+    }
+}
@@ -0,0 +1,290 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.AccountingPeriod;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class PeriodDao {
+
+    private static final String SIGNED_AMOUNT = """
+            CASE WHEN a.account_type IN ('ASSET', 'EXPENSE') THEN el.debit - el.credit
+                 ELSE el.credit - el.debit END""";
+
+    public record PeriodMovement(
+            String accountId, BigDecimal debitTotal, BigDecimal creditTotal, BigDecimal movement) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PeriodDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static final int CLOSE_LOCK_SLOTS = 16;
+
+    /** Locks one close-lock slot until the caller's transaction ends; {@link #lockAllCloseSlots()} waits for it. */
+    public void lockCloseSlot(int slot) {
+        jdbcTemplate.queryForList("SELECT slot FROM period_close_locks WHERE slot = ? FOR UPDATE", Integer.class, slot);
+    }
+
+    /** Locks every close-lock slot until the caller's transaction ends, in slot order. */
+    public void lockAllCloseSlots() {
+        jdbcTemplate.queryForList("SELECT slot FROM period_close_locks ORDER BY slot FOR UPDATE", Integer.class);
+    }
+
+    public List<AccountingPeriod> findPeriods() {
+        return jdbcTemplate.query(
+                "SELECT period_start, period_end, status, closed_at FROM accounting_periods ORDER BY period_start",
+                (rs, rowNum) -> new AccountingPeriod(
+                        rs.getDate("period_start").toLocalDate(),
+                        rs.getDate("period_end").toLocalDate(),
+                        rs.getString("status"),
+                        rs.getTimestamp("closed_at") == null
+                                ? null
+                                : rs.getTimestamp("closed_at").toInstant()));
+    }
+
+    public Optional<AccountingPeriod> findLastClosedPeriod() {
+        return jdbcTemplate
+                .query(
+                        """
+                        SELECT period_start, period_end, status, closed_at FROM accounting_periods
+                        WHERE status = 'CLOSED' ORDER BY period_start DESC LIMIT 1
+                        """,
+                        (rs, rowNum) -> new AccountingPeriod(
+                                rs.getDate("period_start").toLocalDate(),
+                                rs.getDate("period_end").toLocalDate(),
+                                rs.getString("status"),
+                                rs.getTimestamp("closed_at").toInstant()))
+                .stream()
+                .findFirst();
+    }
+
+    public boolean hasActiveTransactionsBefore(Instant instant) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM journal_entries WHERE transaction_date < ?)", Boolean.class, instant));
+    }
+
+    public List<PeriodMovement> findActiveMovements(Instant from, Instant to) {
+        return jdbcTemplate.query(
+                """
+                SELECT el.account_id,
+                       SUM(el.debit) AS debit_total,
+                       SUM(el.credit) AS credit_total,
+                       SUM(%s) AS movement
+                FROM entry_lines el
+                JOIN journal_entries je ON el.journal_entry_id = je.id
+                JOIN accounts a ON el.account_id = a.id
+                WHERE je.transaction_date >= ? AND je.transaction_date < ?
+                GROUP BY el.account_id
+                """
+                        .formatted(SIGNED_AMOUNT),
+                (rs, rowNum) -> new PeriodMovement(
+                        rs.getString("account_id"),
+                        rs.getBigDecimal("debit_total"),
+                        rs.getBigDecimal("credit_total"),
+                        rs.getBigDecimal("movement")),
+                from,
+                to);
+    }
+
+    /** Cumulative closing balance of the latest closed period ending on or before {@code onOrBefore}. */
+    public BigDecimal findClosingBalance(String accountId, LocalDate onOrBefore) {
+        return jdbcTemplate
+                .query(
+                        """
+                        SELECT closing_balance FROM account_period_balances
+                        WHERE account_id = ? AND period_end <= ?
+                        ORDER BY period_start DESC LIMIT 1
+                        """,
+                        (rs, rowNum) -> rs.getBigDecimal("closing_balance"),
+                        accountId,
+                        Date.valueOf(onOrBefore))
+                .stream()
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+    }
+
+    /** Latest cumulative closing balance of every account that has one. */
+    public Map<String, BigDecimal> findLatestClosingBalances() {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(
+                """
+                SELECT b.account_id, b.closing_balance FROM account_period_balances b
+                WHERE b.period_start = (SELECT MAX(period_start) FROM account_period_balances
+                                        WHERE account_id = b.account_id)
+                """,
+                rs -> {
+                    balances.put(rs.getString("account_id"), rs.getBigDecimal("closing_balance"));
+                });
+        return balances;
+    }
+
+    public void insertClosingBalances(
+            AccountingPeriod period, List<PeriodMovement> movements, Map<String, BigDecimal> opening) {
+        jdbcTemplate.batchUpdate(
+                """
+                INSERT INTO account_period_balances
+                    (account_id, period_start, period_end, debit_total, credit_total, closing_balance)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """,
+                movements,
+                500,
+                (ps, movement) -> {
+                    ps.setString(1, movement.accountId());
+                    ps.setDate(2, Date.valueOf(period.periodStart()));
+                    ps.setDate(3, Date.valueOf(period.periodEnd()));
+                    ps.setBigDecimal(4, movement.debitTotal());
+                    ps.setBigDecimal(5, movement.creditTotal());
+                    ps.setBigDecimal(
+                            6, opening.getOrDefault(movement.accountId(), BigDecimal.ZERO).add(movement.movement()));
+                });
+    }
+
+    /** Moves the period's journals and lines out of the active tables. Returns the number of journals moved. */
+    public int archive(AccountingPeriod period) {
+        Date periodStart = Date.valueOf(period.periodStart());
+        Instant from = period.startInstant();
+        Instant to = period.endInstant();
+
+        jdbcTemplate.update(
+                """
+                INSERT INTO entry_lines_archive
+                    (period_start, id, journal_entry_id, account_id, account_no, debit, credit, transaction_date)
+                SELECT ?, el.id, el.journal_entry_id, el.account_id, el.account_no, el.debit, el.credit,
+                       je.transaction_date
+                FROM entry_lines el JOIN journal_entries je ON el.journal_entry_id = je.id
+                WHERE je.transaction_date >= ? AND je.transaction_date < ?
+                """,
+                periodStart,
+                from,
+                to);
+        int journals = jdbcTemplate.update(
+                """
+                INSERT INTO journal_entries_archive
+                    (period_start, id, idempotency_key, description, transaction_date, posted_at, status)
+                SELECT ?, id, idempotency_key, description, transaction_date, posted_at, status
+                FROM journal_entries WHERE transaction_date >= ? AND transaction_date < ?
+                """,
+                periodStart,
+                from,
+                to);
+        jdbcTemplate.update(
+                """
+                DELETE FROM entry_lines WHERE journal_entry_id IN
+                    (SELECT id FROM journal_entries WHERE transaction_date >= ? AND transaction_date < ?)
+                """,
+                from,
+                to);
+        jdbcTemplate.update(
+                "DELETE FROM journal_entries WHERE transaction_date >= ? AND transaction_date < ?", from, to);
+        return journals;
+    }
+
+    public void markClosed(AccountingPeriod period, Instant closedAt) {
+        int updated = jdbcTemplate.update(
+                "UPDATE accounting_periods SET status = 'CLOSED', closed_at = ? WHERE period_start = ?",
+                Timestamp.from(closedAt),
+                Date.valueOf(period.periodStart()));
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    """
+                    INSERT INTO accounting_periods (period_start, period_end, status, closed_at)
+                    VALUES (?, ?, 'CLOSED', ?)
+                    """,
+                    Date.valueOf(period.periodStart()),
+                    Date.valueOf(period.periodEnd()),
+                    Timestamp.from(closedAt));
+        }
+    }
+
+    public BigDecimal sumActiveMovement(LineAccount account, Instant asOf) {
+        return jdbcTemplate.queryForObject(
+                """
+                SELECT COALESCE(SUM(%1$s), 0)
+                FROM entry_lines el
+                JOIN journal_entries je ON el.journal_entry_id = je.id
+                JOIN accounts a ON el.%2$s = a.%3$s
+                WHERE el.%2$s = ? AND je.transaction_date <= ?
+                """
+                        .formatted(SIGNED_AMOUNT, account.lineColumn(), account.accountColumn()),
+                BigDecimal.class,
+                account.key(),
+                asOf);
+    }
+
+    /** Movement inside a single archived period up to {@code asOf}; only that period's rows are read. */
+    public BigDecimal sumArchivedMovement(LineAccount account, LocalDate periodStart, Instant asOf) {
+        return jdbcTemplate.queryForObject(
+                """
+                SELECT COALESCE(SUM(%1$s), 0)
+                FROM entry_lines_archive el
+                JOIN accounts a ON el.%2$s = a.%3$s
+                WHERE el.%2$s = ? AND el.period_start = ? AND el.transaction_date <= ?
+                """
+                        .formatted(SIGNED_AMOUNT, account.lineColumn(), account.accountColumn()),
+                BigDecimal.class,
+                account.key(),
+                Date.valueOf(periodStart),
+                asOf);
+    }
+
+    public Optional<JournalEntry> findArchivedJournal(Long journalEntryId) {
+        List<ArchivedHeader> headers = jdbcTemplate.query(
+                """
+                SELECT period_start, idempotency_key, description, transaction_date, posted_at, status
+                FROM journal_entries_archive WHERE id = ?
+                """,
+                (rs, rowNum) -> new ArchivedHeader(
+                        rs.getDate("period_start"),
+                        new JournalEntry(
+                                journalEntryId,
+                                rs.getString("idempotency_key"),
+                                rs.getString("description"),
+                                rs.getTimestamp("transaction_date").toInstant(),
+                                rs.getTimestamp("posted_at") == null
+                                        ? null
+                                        : rs.getTimestamp("posted_at").toInstant(),
+                                rs.getString("status"),
+                                Set.of())),
+                journalEntryId);
+        if (headers.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ArchivedHeader header = headers.get(0);
+        List<EntryLine> lines = jdbcTemplate.query(
+                """
+                SELECT id, account_id, account_no, debit, credit FROM entry_lines_archive
+                WHERE period_start = ? AND journal_entry_id = ?
+                """,
+                (rs, rowNum) -> new EntryLine(
+                        rs.getLong("id"),
+                        rs.getString("account_id"),
+                        rs.getObject("account_no", Long.class),
+                        rs.getBigDecimal("debit"),
+                        rs.getBigDecimal("credit")),
+                header.periodStart(),
+                journalEntryId);
+
+        JournalEntry journal = header.journal();
+        return Optional.of(new JournalEntry(
+                journal.id(),
+                journal.idempotencyKey(),
+                journal.description(),
+                journal.transactionDate(),
+                journal.postedAt(),
+                journal.status(),
+                new HashSet<>(lines)));
+    }
+
+    private record ArchivedHeader(Date periodStart, JournalEntry journal) {}
+}
@@ -0,0 +1,55 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.common.config.DataSourceConfig;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ReconciliationDao {
+
+    /** One entry line on the reconciled account; {@code amount} is signed as debit minus credit. */
+    public record LedgerLine(long journalEntryId, String reference, LocalDate date, BigDecimal amount) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReconciliationDao(@Qualifier(DataSourceConfig.REPORTING_JDBC_TEMPLATE) JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Streams the account's lines posted in {@code [from, to)}, archived periods included. */
+    public void streamLines(LineAccount account, Instant from, Instant to, Consumer<LedgerLine> consumer) {
+        ZoneId zone = ZoneId.systemDefault();
+        jdbcTemplate.query(
+                """
+                SELECT je.id, je.idempotency_key, je.transaction_date, el.debit - el.credit AS amount
+                FROM entry_lines el JOIN journal_entries je ON el.journal_entry_id = je.id
+                WHERE el.%1$s = ? AND je.transaction_date >= ? AND je.transaction_date < ?
+                UNION ALL
+                SELECT je.id, je.idempotency_key, el.transaction_date, el.debit - el.credit AS amount
+                FROM entry_lines_archive el
+                JOIN journal_entries_archive je ON el.journal_entry_id = je.id AND el.period_start = je.period_start
+                WHERE el.%1$s = ? AND el.transaction_date >= ? AND el.transaction_date < ?
+                """
+                        .formatted(account.lineColumn()),
+                rs -> {
+                    consumer.accept(new LedgerLine(
+                            rs.getLong("id"),
+                            rs.getString("idempotency_key"),
+                            LocalDate.ofInstant(rs.getTimestamp("transaction_date").toInstant(), zone),
+                            rs.getBigDecimal("amount")));
+                },
+                account.key(),
+                Timestamp.from(from),
+                Timestamp.from(to),
+                account.key(),
+                Timestamp.from(from),
+                Timestamp.from(to));
+    }
+}
@@ -0,0 +1,146 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.ReportType;
+import com.pezesha.cbsledger.dto.DTO;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ReportJobDao {
+
+    private static final String COLUMNS = """
+            id, report_type, parameters, high_water_mark, status, result_bytes, error, created_at, completed_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReportJobDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long insert(
+            ReportType reportType, String parameters, String cacheKey, long highWaterMark, String nodeId, Instant now) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            """
+                            INSERT INTO report_jobs (report_type, parameters, cache_key, high_water_mark, status,
+                                node_id, created_at)
+                            VALUES (?, ?, ?, ?, 'QUEUED', ?, ?)
+                            """,
+                            new String[] {"id"});
+                    ps.setString(1, reportType.name());
+                    ps.setString(2, parameters);
+                    ps.setString(3, cacheKey);
+                    ps.setLong(4, highWaterMark);
+                    ps.setString(5, nodeId);
+                    ps.setTimestamp(6, Timestamp.from(now));
+                    return ps;
+                },
+                keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    public Optional<DTO.ReportJobResponse> find(long id) {
+        return jdbcTemplate
+                .query("SELECT " + COLUMNS + " FROM report_jobs WHERE id = ?", ReportJobDao::mapJob, id)
+                .stream()
+                .findFirst();
+    }
+
+    /** Latest queued, running or completed job for the same report, parameters and high-water mark. */
+    public Optional<DTO.ReportJobResponse> findReusable(String cacheKey, long highWaterMark) {
+        return jdbcTemplate
+                .query(
+                        """
+                        SELECT %s FROM report_jobs
+                        WHERE cache_key = ? AND high_water_mark = ? AND status IN ('QUEUED', 'RUNNING', 'COMPLETED')
+                        ORDER BY id DESC LIMIT 1
+                        """
+                                .formatted(COLUMNS),
+                        ReportJobDao::mapJob,
+                        cacheKey,
+                        highWaterMark)
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<byte[]> findResult(long id) {
+        List<byte[]> results = jdbcTemplate.query(
+                "SELECT result FROM report_jobs WHERE id = ? AND status = 'COMPLETED'",
+                (rs, rowNum) -> rs.getBytes("result"),
+                id);
+        return results.stream().findFirst();
+    }
+
+    /** Marks the job running at the ledger version it is about to be computed at. */
+    public void markRunning(long id, long highWaterMark) {
+        jdbcTemplate.update(
+                "UPDATE report_jobs SET status = 'RUNNING', high_water_mark = ? WHERE id = ?", highWaterMark, id);
+    }
+
+    public void complete(long id, byte[] result, Instant completedAt) {
+        jdbcTemplate.update(
+                """
+                UPDATE report_jobs SET status = 'COMPLETED', result = ?, result_bytes = ?, completed_at = ?
+                WHERE id = ?
+                """,
+                result,
+                result.length,
+                Timestamp.from(completedAt),
+                id);
+    }
+
+    public void fail(long id, String error, Instant completedAt) {
+        jdbcTemplate.update(
+                "UPDATE report_jobs SET status = 'FAILED', error = ?, completed_at = ? WHERE id = ?",
+                error == null || error.length() <= 500 ? error : error.substring(0, 500),
+                Timestamp.from(completedAt),
+                id);
+    }
+
+    /**
+     * Fails the jobs left queued or running by nodes that have not published a commit watermark since
+     * {@code liveSince}, other than {@code nodeId} itself. Returns how many there were.
+     */
+    public int failOrphaned(String nodeId, Instant liveSince, Instant now) {
+        return jdbcTemplate.update(
+                """
+                UPDATE report_jobs SET status = 'FAILED', error = 'Interrupted by restart', completed_at = ?
+                WHERE status IN ('QUEUED', 'RUNNING')
+                    AND (node_id IS NULL OR node_id <> ? AND node_id NOT IN (
+                        SELECT node_id FROM commit_watermarks WHERE updated_at > ?))
+                """,
+                Timestamp.from(now),
+                nodeId,
+                Timestamp.from(liveSince));
+    }
+
+    public int deleteFinishedBefore(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM report_jobs WHERE completed_at < ?", Timestamp.from(cutoff));
+    }
+
+    private static DTO.ReportJobResponse mapJob(ResultSet rs, int rowNum) throws SQLException {
+        return new DTO.ReportJobResponse(
+                rs.getLong("id"),
+                ReportType.valueOf(rs.getString("report_type")),
+                rs.getString("parameters"),
+                rs.getLong("high_water_mark"),
+                rs.getString("status"),
+                rs.getObject("result_bytes", Integer.class),
+                rs.getString("error"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getTimestamp("completed_at") == null
+                        ? null
+                        : rs.getTimestamp("completed_at").toInstant());
+    }
+}
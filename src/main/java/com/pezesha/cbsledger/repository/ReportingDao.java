@@ -1,11 +1,16 @@
 package com.pezesha.cbsledger.repository;
 
+import com.pezesha.cbsledger.common.config.DataSourceConfig;
+import com.pezesha.cbsledger.common.metrics.LedgerMetrics;
+import com.pezesha.cbsledger.domain.AccountingPeriod;
 import com.pezesha.cbsledger.domain.JournalEntry;
 import com.pezesha.cbsledger.dto.DTO;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
@@ -14,41 +19,28 @@ import org.springframework.stereotype.Repository;
 public class ReportingDao {
 
     private final JdbcTemplate jdbcTemplate;
+    private final LedgerMetrics metrics;
 
-    public ReportingDao(JdbcTemplate jdbcTemplate) {
+    public ReportingDao(
+            @Qualifier(DataSourceConfig.REPORTING_JDBC_TEMPLATE) JdbcTemplate jdbcTemplate, LedgerMetrics metrics) {
         this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
     }
 
+    /**
+     * Pages through the journals touching an account. Archived periods are only read when the requested range starts
+     * before {@code archivedBefore}, and then only the months that overlap the range.
+     */
     public List<JournalEntry> findTransactionsPaginated(
-            String accountId, Instant start, Instant end, int limit, long offset) {
-        StringBuilder sql = new StringBuilder("""
-                SELECT DISTINCT je.id, je.idempotency_key, je.description,
-                       je.transaction_date, je.posted_at, je.status
-                FROM journal_entries je
-                INNER JOIN entry_lines el ON je.id = el.journal_entry_id
-                """);
-
+            LineAccount account, Instant start, Instant end, Instant archivedBefore, int limit, long offset) {
         List<Object> params = new ArrayList<>();
-        if (accountId != null) {
-            sql.append(" WHERE el.account_id = ?");
-            params.add(accountId);
-        }
-
-        if (start != null) {
-            sql.append(" AND je.transaction_date >= ?");
-            params.add(start);
-        }
-        if (end != null) {
-            sql.append(" AND je.transaction_date <= ?");
-            params.add(end);
-        }
-
-        sql.append(" ORDER BY je.transaction_date DESC LIMIT ? OFFSET ?");
+        String sql = "SELECT * FROM (" + transactionSource(account, start, end, archivedBefore, params)
+                + ") t ORDER BY t.transaction_date DESC LIMIT ? OFFSET ?";
         params.add(limit);
         params.add(offset);
 
-        return jdbcTemplate.query(
-                sql.toString(),
+        return metrics.timeQuery("transactions_paginated", () -> jdbcTemplate.query(
+                sql,
                 (rs, rowNum) -> new JournalEntry(
                         rs.getLong("id"),
                         rs.getString("idempotency_key"),
@@ -57,22 +49,57 @@ public class ReportingDao {
                         rs.getTimestamp("posted_at").toInstant(),
                         rs.getString("status"),
                         Collections.emptySet()),
-                params.toArray());
+                params.toArray()));
     }
 
-    public Long countTransactions(String accountId, Instant start, Instant end) {
-        StringBuilder sql = new StringBuilder("""
-                SELECT COUNT(DISTINCT je.id)
-                FROM journal_entries je
-                INNER JOIN entry_lines el ON je.id = el.journal_entry_id
-                """);
+    public Long countTransactions(LineAccount account, Instant start, Instant end, Instant archivedBefore) {
         List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM (" + transactionSource(account, start, end, archivedBefore, params) + ") t";
+
+        return metrics.timeQuery(
+                "count_transactions", () -> jdbcTemplate.queryForObject(sql, Long.class, params.toArray()));
+    }
+
+    private String transactionSource(
+            LineAccount account, Instant start, Instant end, Instant archivedBefore, List<Object> params) {
+        boolean readActive = archivedBefore == null || end == null || !end.isBefore(archivedBefore);
+        boolean readArchive = archivedBefore != null && (start == null || start.isBefore(archivedBefore));
 
-        if (accountId != null) {
-            sql.append(" WHERE el.account_id = ?");
-            params.add(accountId);
+        List<String> parts = new ArrayList<>();
+        if (readActive) {
+            parts.add(selectTransactions("journal_entries", "entry_lines", account, start, end, params));
         }
+        if (readArchive) {
+            StringBuilder archived = new StringBuilder(selectTransactions(
+                    "journal_entries_archive", "entry_lines_archive", account, start, end, params));
+            archived.append(" AND el.period_start = je.period_start");
+            if (start != null) {
+                archived.append(" AND je.period_start >= ?");
+                params.add(java.sql.Date.valueOf(AccountingPeriod.startOf(start)));
+            }
+            if (end != null && end.isBefore(archivedBefore)) {
+                archived.append(" AND je.period_start <= ?");
+                params.add(java.sql.Date.valueOf(AccountingPeriod.startOf(end)));
+            }
+            parts.add(archived.toString());
+        }
+        return String.join(" UNION ALL ", parts);
+    }
 
+    private String selectTransactions(
+            String journals, String lines, LineAccount account, Instant start, Instant end, List<Object> params) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT DISTINCT je.id, je.idempotency_key, je.description,
+                       je.transaction_date, je.posted_at, je.status
+                FROM %s je
+                INNER JOIN %s el ON je.id = el.journal_entry_id
+                WHERE 1 = 1
+                """.formatted(journals, lines));
+
+        if (account != null) {
+            sql.append(" AND el.").append(account.lineColumn()).append(" = ?");
+            params.add(account.key());
+        }
         if (start != null) {
             sql.append(" AND je.transaction_date >= ?");
             params.add(start);
@@ -81,59 +108,55 @@ public class ReportingDao {
             sql.append(" AND je.transaction_date <= ?");
             params.add(end);
         }
+        return sql.toString();
+    }
 
-        return jdbcTemplate.queryForObject(sql.toString(), Long.class, params.toArray());
+    /**
+     * The ledger version as this pool sees it (see {@link LedgerVersionDao}). A replica applies the version with the
+     * data it counts, so the value never runs ahead of what the reports read here.
+     */
+    public long findLedgerVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(version), 0) FROM ledger_version", Long.class);
+        return version == null ? 0 : version;
     }
 
     public List<Map<String, Object>> getTrialBalanceData() {
-        return jdbcTemplate.queryForList("""
+        return metrics.timeQuery("trial_balance", () -> jdbcTemplate.queryForList("""
             SELECT a.account_type,
                    CASE WHEN a.account_type IN ('ASSET', 'EXPENSE') THEN COALESCE(SUM(a.balance), 0)
                         ELSE COALESCE(SUM(a.balance), 0) * -1 END as balance
             FROM accounts a GROUP BY a.account_type
             ORDER BY CASE a.account_type WHEN 'ASSET' THEN 1 WHEN 'LIABILITY' THEN 2
                      WHEN 'EQUITY' THEN 3 WHEN 'INCOME' THEN 4 WHEN 'EXPENSE' THEN 5 END
-        """);
+        """));
     }
 
     public List<Map<String, Object>> getBalanceSheetData() {
-        return jdbcTemplate.queryForList("""
+        return metrics.timeQuery("balance_sheet", () -> jdbcTemplate.queryForList("""
             SELECT a.account_type, a.name, a.balance FROM accounts a
             WHERE a.account_type IN ('ASSET', 'LIABILITY', 'EQUITY')
             ORDER BY CASE a.account_type WHEN 'ASSET' THEN 1 WHEN 'LIABILITY' THEN 2 WHEN 'EQUITY' THEN 3 END, a.name
-        """);
+        """));
     }
 
-    public List<DTO.LoanAgingDTO> findLoanAgingData() {
-        String sql = """
-            SELECT DISTINCT
-                a.id as account_id,
-                a.name as account_name,
-                a.balance as outstanding_amount,
-                COALESCE(l.due_date, DATEADD('DAY', 30, a.created_at)) as due_date
-            FROM accounts a
-            LEFT JOIN loans l ON a.id = l.account_id
-            WHERE a.account_type = 'ASSET'
-            AND (LOWER(a.name) LIKE '%loan%' OR LOWER(a.name) LIKE '%receivable%')
-            AND a.balance > 0
-            ORDER BY due_date
-            """;
-
-        return jdbcTemplate.query(sql, new LoanAgingRowMapper());
+    /** INCOME and EXPENSE accounts with their debit and credit totals for the days {@code from} to {@code to}. */
+    public List<Map<String, Object>> getIncomeStatementData(LocalDate from, LocalDate to) {
+        return metrics.timeQuery("income_statement", () -> jdbcTemplate.queryForList(
+                """
+                SELECT a.id AS account_id, a.name, a.account_type,
+                       SUM(m.debit_total) AS debit_total, SUM(m.credit_total) AS credit_total
+                FROM account_daily_movements m
+                JOIN accounts a ON m.account_id = a.id
+                WHERE m.movement_date >= ? AND m.movement_date <= ?
+                AND a.account_type IN ('INCOME', 'EXPENSE')
+                GROUP BY a.id, a.name, a.account_type
+                ORDER BY a.account_type DESC, a.id
+                """,
+                java.sql.Date.valueOf(from),
+                java.sql.Date.valueOf(to)));
     }
 
     // Row Mappers
-    private static class LoanAgingRowMapper implements RowMapper<DTO.LoanAgingDTO> {
-        @Override
-        public DTO.LoanAgingDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
-            return new DTO.LoanAgingDTO(
-                    rs.getString("account_id"),
-                    rs.getString("account_name"),
-                    rs.getBigDecimal("outstanding_amount"),
-                    rs.getTimestamp("due_date").toInstant());
-        }
-    }
-
     private static class TrialBalanceRowMapper implements RowMapper<DTO.TrialBalanceDTO> {
         @Override
         public DTO.TrialBalanceDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -0,0 +1,164 @@
+package com.pezesha.cbsledger.repository;
+
+import com.pezesha.cbsledger.domain.Recurrence;
+import com.pezesha.cbsledger.dto.DTO;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ScheduledPostingDao {
+
+    public record DueRun(long id, int runCount, Instant nextRunAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScheduledPostingDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long insert(
+            DTO.ScheduledPostingRequest request,
+            Recurrence recurrence,
+            Integer remainingRuns,
+            Instant createdAt) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            """
+                            INSERT INTO scheduled_postings (idempotency_key, description, recurrence, next_run_at,
+                                remaining_runs, run_count, status, created_at)
+                            VALUES (?, ?, ?, ?, ?, 0, 'ACTIVE', ?)
+                            """,
+                            new String[] {"id"});
+                    ps.setString(1, request.idempotencyKey());
+                    ps.setString(2, request.description());
+                    ps.setString(3, recurrence.name());
+                    ps.setTimestamp(4, Timestamp.from(request.executeAt()));
+                    ps.setObject(5, remainingRuns);
+                    ps.setTimestamp(6, Timestamp.from(createdAt));
+                    return ps;
+                },
+                keyHolder);
+        long id = keyHolder.getKey().longValue();
+
+        List<DTO.EntryRequest> entries = request.entries();
+        jdbcTemplate.batchUpdate(
+                """
+                INSERT INTO scheduled_posting_lines (scheduled_posting_id, line_no, account_id, debit, credit)
+                VALUES (?, ?, ?, ?, ?)
+                """,
+                entries,
+                entries.size(),
+                (ps, entry) -> {
+                    ps.setLong(1, id);
+                    ps.setInt(2, entries.indexOf(entry));
+                    ps.setString(3, entry.accountId());
+                    ps.setBigDecimal(4, entry.debit());
+                    ps.setBigDecimal(5, entry.credit());
+                });
+        return id;
+    }
+
+    public Optional<DTO.ScheduledPostingResponse> find(long id) {
+        List<DTO.EntryRequest> entries = jdbcTemplate.query(
+                """
+                SELECT account_id, debit, credit FROM scheduled_posting_lines
+                WHERE scheduled_posting_id = ? ORDER BY line_no
+                """,
+                (rs, rowNum) -> new DTO.EntryRequest(
+                        rs.getString("account_id"), rs.getBigDecimal("debit"), rs.getBigDecimal("credit")),
+                id);
+        return jdbcTemplate
+                .query(
+                        """
+                        SELECT id, idempotency_key, description, recurrence, next_run_at, remaining_runs, run_count,
+                               status, last_journal_entry_id, last_error
+                        FROM scheduled_postings WHERE id = ?
+                        """,
+                        (rs, rowNum) -> new DTO.ScheduledPostingResponse(
+                                rs.getLong("id"),
+                                rs.getString("idempotency_key"),
+                                rs.getString("description"),
+                                Recurrence.valueOf(rs.getString("recurrence")),
+                                rs.getTimestamp("next_run_at") == null
+                                        ? null
+                                        : rs.getTimestamp("next_run_at").toInstant(),
+                                rs.getObject("remaining_runs", Integer.class),
+                                rs.getInt("run_count"),
+                                rs.getString("status"),
+                                rs.getObject("last_journal_entry_id", Long.class),
+                                rs.getString("last_error"),
+                                entries),
+                        id)
+                .stream()
+                .findFirst();
+    }
+
+    /** Streams the active runs due before {@code until}, overdue ones included. */
+    public void findDueBefore(Instant until, Consumer<DueRun> consumer) {
+        jdbcTemplate.query(
+                """
+                SELECT id, run_count, next_run_at FROM scheduled_postings
+                WHERE status = 'ACTIVE' AND next_run_at < ?
+                """,
+                rs -> {
+                    consumer.accept(new DueRun(
+                            rs.getLong("id"),
+                            rs.getInt("run_count"),
+                            rs.getTimestamp("next_run_at").toInstant()));
+                },
+                Timestamp.from(until));
+    }
+
+    /**
+     * Claims run {@code runCount} and moves the schedule on to its next run. Returns false when another node or an
+     * earlier attempt already claimed it, or the schedule is no longer active.
+     */
+    public boolean claim(long id, int runCount, Instant nextRunAt, Integer remainingRuns) {
+        return jdbcTemplate.update(
+                        """
+                        UPDATE scheduled_postings
+                        SET run_count = run_count + 1, next_run_at = ?, remaining_runs = ?, status = ?,
+                            last_error = NULL
+                        WHERE id = ? AND run_count = ? AND status = 'ACTIVE'
+                        """,
+                        nextRunAt == null ? null : Timestamp.from(nextRunAt),
+                        remainingRuns,
+                        nextRunAt == null ? "COMPLETED" : "ACTIVE",
+                        id,
+                        runCount)
+                == 1;
+    }
+
+    public void recordJournal(long id, Long journalEntryId) {
+        jdbcTemplate.update(
+                "UPDATE scheduled_postings SET last_journal_entry_id = ? WHERE id = ?", journalEntryId, id);
+    }
+
+    public void markFailed(long id, int runCount, String error) {
+        jdbcTemplate.update(
+                """
+                UPDATE scheduled_postings SET status = 'FAILED', last_error = ?
+                WHERE id = ? AND run_count = ? AND status = 'ACTIVE'
+                """,
+                error == null || error.length() <= 500 ? error : error.substring(0, 500),
+                id,
+                runCount);
+    }
+
+    public boolean cancel(long id) {
+        return jdbcTemplate.update(
+                        "UPDATE scheduled_postings SET status = 'CANCELLED' WHERE id = ? AND status = 'ACTIVE'", id)
+                == 1;
+    }
+}
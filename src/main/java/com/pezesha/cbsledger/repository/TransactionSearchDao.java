@@ -0,0 +1,247 @@
+package com.pezesha.cbsledger.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The transaction search index: {@code journal_search_grams} (gram, journal id) and {@code journal_search_amounts}
+ * (amount, journal id, date). Lookups are keyset pages walking journal ids downwards from {@code beforeId}, driven by
+ * one primary-key range and joined to the other terms by primary-key probes, so their cost follows the page and not
+ * the table. {@code journal_search_gram_counts} keeps roughly how many journals each gram indexes, so a lookup can be
+ * driven by its rarest gram.
+ */
+@Repository
+public class TransactionSearchDao {
+
+    /** What the index holds for one journal. */
+    public record IndexedJournal(long journalEntryId, Set<String> grams, Set<BigDecimal> amounts, Instant date) {}
+
+    /** A journal's searchable fields as read back from the journal tables. */
+    public record JournalText(long journalEntryId, String idempotencyKey, String description, Instant date) {}
+
+    public record JournalAmount(long journalEntryId, BigDecimal debit, BigDecimal credit) {}
+
+    private static final String INSERT_GRAM = "INSERT INTO journal_search_grams (gram, journal_entry_id) VALUES (?, ?)";
+    private static final String INSERT_AMOUNT =
+            "INSERT INTO journal_search_amounts (amount, journal_entry_id, transaction_date) VALUES (?, ?, ?)";
+    private static final String INSERT_MISSING_GRAM =
+            """
+            INSERT INTO journal_search_grams (gram, journal_entry_id)
+            SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM journal_search_grams WHERE gram = ? AND journal_entry_id = ?)
+            """;
+    private static final String INSERT_MISSING_AMOUNT =
+            """
+            INSERT INTO journal_search_amounts (amount, journal_entry_id, transaction_date)
+            SELECT ?, ?, ? WHERE NOT EXISTS
+                (SELECT 1 FROM journal_search_amounts WHERE amount = ? AND journal_entry_id = ?)
+            """;
+
+    private static final String ADD_GRAM_COUNT =
+            "UPDATE journal_search_gram_counts SET journal_count = journal_count + ? WHERE gram = ?";
+    private static final String INSERT_GRAM_COUNT =
+            """
+            INSERT INTO journal_search_gram_counts (gram, journal_count)
+            SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM journal_search_gram_counts WHERE gram = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionSearchDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Indexes a journal being posted, in the posting transaction. */
+    public void insert(IndexedJournal journal) {
+        List<Object[]> grams = new ArrayList<>(journal.grams().size());
+        for (String gram : journal.grams()) {
+            grams.add(new Object[] {gram, journal.journalEntryId()});
+        }
+        List<Object[]> amounts = new ArrayList<>(journal.amounts().size());
+        for (BigDecimal amount : journal.amounts()) {
+            amounts.add(new Object[] {amount, journal.journalEntryId(), Timestamp.from(journal.date())});
+        }
+        batch(INSERT_GRAM, grams);
+        batch(INSERT_AMOUNT, amounts);
+    }
+
+    /**
+     * Adds whatever the index lacks for these journals, leaving rows already there alone. Journals are never edited
+     * or deleted, so this is all a rebuild needs, and it cannot collide with postings indexing themselves meanwhile.
+     * Returns how many journals each gram was newly added for.
+     */
+    public Map<String, Long> insertMissing(Collection<IndexedJournal> journals) {
+        List<Object[]> grams = new ArrayList<>();
+        List<Object[]> amounts = new ArrayList<>();
+        for (IndexedJournal journal : journals) {
+            long id = journal.journalEntryId();
+            for (String gram : journal.grams()) {
+                grams.add(new Object[] {gram, id, gram, id});
+            }
+            for (BigDecimal amount : journal.amounts()) {
+                amounts.add(new Object[] {amount, id, Timestamp.from(journal.date()), amount, id});
+            }
+        }
+        int[] inserted = batch(INSERT_MISSING_GRAM, grams);
+        batch(INSERT_MISSING_AMOUNT, amounts);
+        Map<String, Long> added = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] == 1) {
+                added.merge((String) grams.get(i)[0], 1L, Long::sum);
+            }
+        }
+        return added;
+    }
+
+    /** Journal counts of the given grams; a gram no journal was counted under is left out. */
+    public Map<String, Long> findGramCounts(Collection<String> grams) {
+        Map<String, Long> counts = new HashMap<>();
+        if (grams.isEmpty()) {
+            return counts;
+        }
+        jdbcTemplate.query(
+                "SELECT gram, journal_count FROM journal_search_gram_counts WHERE gram IN (%s)"
+                        .formatted(String.join(", ", Collections.nCopies(grams.size(), "?"))),
+                rs -> {
+                    counts.put(rs.getString("gram"), rs.getLong("journal_count"));
+                },
+                grams.toArray());
+        return counts;
+    }
+
+    /**
+     * Adds {@code counts} to the per-gram journal counts, creating the rows it needs. Grams are written in order, so
+     * nodes flushing at the same time never wait on each other in a cycle.
+     */
+    public void addGramCounts(Map<String, Long> counts) {
+        List<Object[]> updates = new ArrayList<>(counts.size());
+        new TreeMap<>(counts).forEach((gram, count) -> updates.add(new Object[] {count, gram}));
+        int[] updated = batch(ADD_GRAM_COUNT, updates);
+        for (int i = 0; i < updated.length; i++) {
+            Object[] row = updates.get(i);
+            if (updated[i] == 0 && jdbcTemplate.update(INSERT_GRAM_COUNT, row[1], row[0], row[1]) == 0) {
+                jdbcTemplate.update(ADD_GRAM_COUNT, row);
+            }
+        }
+    }
+
+    /**
+     * Ids below {@code beforeId}, newest first, indexed under every gram and (when given) the amount, with the
+     * amount's date within {@code [from, to)}. The first gram drives the lookup, so callers put the rarest first. Gram
+     * hits are candidates only: the caller checks the text itself.
+     */
+    public List<Long> findCandidates(
+            List<String> grams, BigDecimal amount, Instant from, Instant to, long beforeId, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        String driver;
+        if (grams.isEmpty()) {
+            driver = "a";
+            sql.append("SELECT a.journal_entry_id FROM journal_search_amounts a");
+        } else {
+            driver = "g0";
+            sql.append("SELECT g0.journal_entry_id FROM journal_search_grams g0");
+            for (int i = 1; i < grams.size(); i++) {
+                sql.append(" JOIN journal_search_grams g%1$d ON g%1$d.gram = ? AND g%1$d.journal_entry_id = %2$s"
+                        .formatted(i, "g0.journal_entry_id"));
+                params.add(grams.get(i));
+            }
+            if (amount != null) {
+                sql.append(" JOIN journal_search_amounts a ON a.amount = ? AND a.journal_entry_id = %s"
+                        .formatted("g0.journal_entry_id"));
+                params.add(amount);
+            }
+        }
+
+        sql.append(" WHERE ").append(driver).append(".journal_entry_id < ?");
+        params.add(beforeId);
+        if (!grams.isEmpty()) {
+            sql.append(" AND g0.gram = ?");
+            params.add(grams.get(0));
+        } else {
+            sql.append(" AND a.amount = ?");
+            params.add(amount);
+        }
+        if (amount != null && from != null) {
+            sql.append(" AND a.transaction_date >= ?");
+            params.add(Timestamp.from(from));
+        }
+        if (amount != null && to != null) {
+            sql.append(" AND a.transaction_date < ?");
+            params.add(Timestamp.from(to));
+        }
+        sql.append(" ORDER BY ").append(driver).append(".journal_entry_id DESC LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, params.toArray());
+    }
+
+    // Rebuild
+
+    public long findRebuiltThrough() {
+        Long through = jdbcTemplate.queryForObject(
+                "SELECT rebuilt_through FROM journal_search_state WHERE id = 1", Long.class);
+        return through == null ? 0 : through;
+    }
+
+    public void setRebuiltThrough(long journalEntryId) {
+        jdbcTemplate.update("UPDATE journal_search_state SET rebuilt_through = ? WHERE id = 1", journalEntryId);
+    }
+
+    public long findMaxJournalId() {
+        Long max = jdbcTemplate.queryForObject(
+                """
+                SELECT GREATEST(COALESCE((SELECT MAX(id) FROM journal_entries), 0),
+                                COALESCE((SELECT MAX(id) FROM journal_entries_archive), 0))
+                """,
+                Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /** Up to {@code limit} journals after {@code afterId} and at most {@code throughId}, active and archived. */
+    public List<JournalText> findJournals(long afterId, long throughId, int limit) {
+        List<JournalText> journals = new ArrayList<>();
+        for (String table : List.of("journal_entries", "journal_entries_archive")) {
+            journals.addAll(jdbcTemplate.query(
+                    """
+                    SELECT id, idempotency_key, description, transaction_date FROM %s
+                    WHERE id > ? AND id <= ? ORDER BY id LIMIT ?
+                    """
+                            .formatted(table),
+                    (rs, rowNum) -> new JournalText(
+                            rs.getLong("id"),
+                            rs.getString("idempotency_key"),
+                            rs.getString("description"),
+                            rs.getTimestamp("transaction_date").toInstant()),
+                    afterId,
+                    throughId,
+                    limit));
+        }
+        journals.sort(Comparator.comparingLong(JournalText::journalEntryId));
+        return journals.size() > limit ? journals.subList(0, limit) : journals;
+    }
+
+    public List<JournalAmount> findAmounts(long afterId, long throughId) {
+        return jdbcTemplate.query(
+                """
+                SELECT journal_entry_id, debit, credit FROM entry_lines
+                WHERE journal_entry_id > ? AND journal_entry_id <= ?
+                UNION ALL
+                SELECT l.journal_entry_id, l.debit, l.credit FROM entry_lines_archive l
+                JOIN journal_entries_archive j ON j.period_start = l.period_start AND j.id = l.journal_entry_id
+                WHERE j.id > ? AND j.id <= ?
+                """,
+                (rs, rowNum) -> new JournalAmount(
+                        rs.getLong("journal_entry_id"), rs.getBigDecimal("debit"), rs.getBigDecimal("credit")),
+                afterId,
+                throughId,
+                afterId,
+                throughId);
+    }
+
+    private int[] batch(String sql, List<Object[]> rows) {
+        return rows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, rows);
+    }
+}
@@ -0,0 +1,285 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.exception.AccountNotFoundException;
+import com.pezesha.cbsledger.common.exception.InvalidAccountHierarchyException;
+import com.pezesha.cbsledger.common.exception.ValidationException;
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.event.AccountCreatedEvent;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.AccountsImportedEvent;
+import com.pezesha.cbsledger.domain.event.TransactionPostedEvent;
+import com.pezesha.cbsledger.repository.AccountRepository;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory copy of the chart of accounts. Nodes and each parent's children live in concurrent maps, so lookups never
+ * take a lock and a create or delete touches only the node and its parent's child set, however large the chart.
+ *
+ * <p>Every node keeps its own copy, and other nodes create and delete accounts too. A lookup that misses therefore
+ * falls back to the {@code accounts} table and caches what it finds. Checks that decide whether something may be
+ * created or deleted, {@link #contains} and {@link #hasChildren}, treat the cache as a hint only: they confirm it
+ * against the table and evict what another node has deleted. Loading and attaching share one lock, so a reload never
+ * interleaves with an attach.
+ *
+ * <p>Line counts are kept beside the tree and only ever incremented after commit. A positive count is therefore
+ * proof that an account has history; a zero count still falls back to an {@code EXISTS} probe.
+ */
+@Component
+@Slf4j
+public class AccountHierarchyCache {
+
+    public record Node(String id, AccountType type, String currency, String parentId, int depth) {}
+
+    private static final int LOAD_BATCH = 1_000;
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> lineCounts = new ConcurrentHashMap<>();
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> children = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public AccountHierarchyCache(AccountRepository accountRepository, JdbcTemplate jdbcTemplate) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<Account> accounts = new ArrayList<>();
+        accountRepository.findAll().forEach(accounts::add);
+        nodes.clear();
+        children.clear();
+        for (Account account : parentsFirst(accounts)) {
+            attach(account);
+        }
+
+        lineCounts.clear();
+        jdbcTemplate.query(
+                """
+                SELECT account_id, COUNT(*) AS line_count FROM entry_lines GROUP BY account_id
+                UNION ALL
+                SELECT account_id, COUNT(*) AS line_count FROM entry_lines_archive GROUP BY account_id
+                """,
+                rs -> {
+                    lineCounts.merge(rs.getString("account_id"), rs.getLong("line_count"), Long::sum);
+                });
+        loaded = true;
+        log.info("Loaded {} accounts into hierarchy cache", accounts.size());
+    }
+
+    /** Whether the account exists, as the table says now; a cached account deleted elsewhere is evicted. */
+    public boolean contains(String accountId) {
+        return findConfirmed(accountId).isPresent();
+    }
+
+    /** The cached node, or the account read from the database (and cached) when this node has not seen it yet. */
+    public Optional<Node> find(String accountId) {
+        ensureLoaded();
+        Node node = nodes.get(accountId);
+        if (node != null) {
+            return Optional.of(node);
+        }
+        return accountRepository.findById(accountId).map(this::attach);
+    }
+
+    /**
+     * The accounts among {@code accountIds} that exist, reading the ones not cached from the database in batches.
+     */
+    public Map<String, Node> findAll(Collection<String> accountIds) {
+        ensureLoaded();
+        Map<String, Node> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String accountId : accountIds) {
+            Node node = nodes.get(accountId);
+            if (node != null) {
+                found.put(accountId, node);
+            } else {
+                missing.add(accountId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += LOAD_BATCH) {
+            List<String> batch = missing.subList(from, Math.min(missing.size(), from + LOAD_BATCH));
+            List<Account> accounts = new ArrayList<>();
+            accountRepository.findAllById(batch).forEach(accounts::add);
+            for (Account account : parentsFirst(accounts)) {
+                found.put(account.id(), attach(account));
+            }
+        }
+        return found;
+    }
+
+    /** Children this node has cached; see {@link #hasChildren} for a check that sees other nodes' creates. */
+    public List<String> children(String accountId) {
+        ensureLoaded();
+        Set<String> ids = children.get(accountId);
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+
+    /** Asks the table; cached children it no longer has were deleted on another node and are evicted. */
+    public boolean hasChildren(String accountId) {
+        if (accountRepository.hasChildren(accountId)) {
+            return true;
+        }
+        children(accountId).forEach(this::remove);
+        return false;
+    }
+
+    /** Walks from the account up to its root, nearest ancestor first. */
+    public List<String> ancestors(String accountId) {
+        List<String> path = new ArrayList<>();
+        Optional<Node> node = find(accountId);
+        while (node.isPresent() && node.get().parentId() != null) {
+            path.add(node.get().parentId());
+            node = find(node.get().parentId());
+        }
+        return path;
+    }
+
+    /**
+     * Checks that {@code childType} may be attached under {@code parentId}. Runs in O(depth), reading ancestors this
+     * node has not cached from the database, and rejects any parent chain that would loop back to {@code childId}.
+     */
+    public Node validateParent(String childId, AccountType childType, String parentId) {
+        Node parent = findConfirmed(parentId).orElseThrow(() -> new AccountNotFoundException(parentId));
+
+        if (!isValidParentChildRelation(parent.type(), childType)) {
+            throw new InvalidAccountHierarchyException(parent.type(), childType);
+        }
+
+        Optional<Node> cursor = Optional.of(parent);
+        while (cursor.isPresent()) {
+            if (cursor.get().id().equals(childId)) {
+                throw new ValidationException("Account hierarchy cycle detected at " + childId);
+            }
+            cursor = cursor.get().parentId() == null ? Optional.empty() : find(cursor.get().parentId());
+        }
+        return parent;
+    }
+
+    public static boolean isValidParentChildRelation(AccountType parentType, AccountType childType) {
+        return parentType == childType;
+    }
+
+    public boolean hasTransactions(String accountId) {
+        if (lineCounts.getOrDefault(accountId, 0L) > 0) {
+            return true;
+        }
+        return accountRepository.hasTransactions(accountId);
+    }
+
+    public long lineCount(String accountId) {
+        return lineCounts.getOrDefault(accountId, 0L);
+    }
+
+    @TransactionalEventListener
+    public void onAccountCreated(AccountCreatedEvent event) {
+        addAll(List.of(event.account()));
+    }
+
+    @TransactionalEventListener
+    public void onAccountsImported(AccountsImportedEvent event) {
+        addAll(event.accounts());
+    }
+
+    @TransactionalEventListener
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        remove(event.accountId());
+    }
+
+    @TransactionalEventListener
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        for (EntryLine line : event.journalEntry().entries()) {
+            lineCounts.merge(line.accountId(), 1L, Long::sum);
+        }
+    }
+
+    /** Adds accounts in parent-first order; a parent neither cached nor earlier in the list is read from the table. */
+    public void addAll(List<Account> accounts) {
+        for (Account account : accounts) {
+            attach(account);
+        }
+    }
+
+    public synchronized void remove(String accountId) {
+        Node removed = nodes.remove(accountId);
+        if (removed != null && removed.parentId() != null) {
+            Set<String> siblings = children.get(removed.parentId());
+            if (siblings != null) {
+                siblings.remove(accountId);
+            }
+        }
+        children.remove(accountId);
+        lineCounts.remove(accountId);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /** Orders parents before children so every attach finds its parent node already in place. */
+    private static List<Account> parentsFirst(List<Account> accounts) {
+        Map<String, Account> byId = new HashMap<>();
+        for (Account account : accounts) {
+            byId.put(account.id(), account);
+        }
+
+        List<Account> ordered = new ArrayList<>(accounts.size());
+        Set<String> visited = new HashSet<>();
+        for (Account account : accounts) {
+            Deque<Account> chain = new ArrayDeque<>();
+            Account cursor = account;
+            while (cursor != null && !visited.contains(cursor.id())) {
+                chain.push(cursor);
+                visited.add(cursor.id());
+                cursor = cursor.parentAccountId() == null ? null : byId.get(cursor.parentAccountId());
+            }
+            ordered.addAll(chain);
+        }
+        return ordered;
+    }
+
+    /** Like {@link #find}, but a cached node is checked against the table first and evicted if the row is gone. */
+    private Optional<Node> findConfirmed(String accountId) {
+        ensureLoaded();
+        Node node = nodes.get(accountId);
+        if (node == null) {
+            return accountRepository.findById(accountId).map(this::attach);
+        }
+        if (accountRepository.existsById(accountId)) {
+            return Optional.of(node);
+        }
+        remove(accountId);
+        return Optional.empty();
+    }
+
+    private synchronized Node attach(Account account) {
+        String parentId = account.parentAccountId();
+        Node parent = parentId == null ? null : nodes.get(parentId);
+        if (parentId != null && parent == null) {
+            parent = accountRepository.findById(parentId).map(this::attach).orElse(null);
+        }
+        Node node = new Node(
+                account.id(),
+                account.accountType(),
+                account.currency(),
+                parentId,
+                parent == null ? 0 : parent.depth() + 1);
+        nodes.put(account.id(), node);
+        if (parentId != null) {
+            children.computeIfAbsent(parentId, id -> ConcurrentHashMap.newKeySet()).add(account.id());
+        }
+        return node;
+    }
+}
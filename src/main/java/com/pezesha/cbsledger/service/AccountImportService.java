@@ -0,0 +1,358 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.AccountImportProperties;
+import com.pezesha.cbsledger.common.exception.InvalidAccountHierarchyException;
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.ImportStatus;
+import com.pezesha.cbsledger.domain.event.AccountsImportedEvent;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.AccountImportDao;
+import com.pezesha.cbsledger.repository.LedgerVersionDao;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Creates many accounts from one CSV or NDJSON file. Every row is validated in memory against the hierarchy snapshot
+ * and the other rows of the file, so a parent may appear anywhere in the file, not only before its children. Valid
+ * rows are then ordered parents first and inserted with JDBC batches, {@code ledger.account-import.chunk-size} per
+ * transaction; the caches are updated once per committed chunk rather than once per account.
+ *
+ * <p>CSV files need a header naming {@code id}, {@code name}, {@code type} and {@code currency}, and optionally
+ * {@code parentId}; NDJSON lines have the same fields as a single account creation request.
+ */
+@Service
+@Slf4j
+public class AccountImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final class Row {
+        final long line;
+        final DTO.CreateAccountRequest request;
+        String error;
+        boolean onChain;
+        boolean resolved;
+
+        Row(long line, DTO.CreateAccountRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        String accountId() {
+            return request == null ? null : request.id();
+        }
+
+        String parentId() {
+            return request.parentId() == null || request.parentId().isBlank() ? null : request.parentId();
+        }
+    }
+
+    private record Columns(int id, int name, int type, int currency, int parentId) {}
+
+    private final AccountImportDao accountImportDao;
+    private final AccountHierarchyCache accountHierarchy;
+    private final AccountNumberRegistry accountNumbers;
+    private final AccountSearchIndex accountSearchIndex;
+    private final LedgerVersionDao ledgerVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final AccountImportProperties properties;
+
+    public AccountImportService(
+            AccountImportDao accountImportDao,
+            AccountHierarchyCache accountHierarchy,
+            AccountNumberRegistry accountNumbers,
+            AccountSearchIndex accountSearchIndex,
+            LedgerVersionDao ledgerVersion,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            JsonMapper jsonMapper,
+            AccountImportProperties properties) {
+        this.accountImportDao = accountImportDao;
+        this.accountHierarchy = accountHierarchy;
+        this.accountNumbers = accountNumbers;
+        this.accountSearchIndex = accountSearchIndex;
+        this.ledgerVersion = ledgerVersion;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Imports the file, passing one result per row to {@code sink}: rejections as soon as validation finishes, then
+     * creations and failures chunk by chunk. A malformed header or oversized file is thrown before anything reaches
+     * the sink.
+     */
+    public DTO.AccountImportSummary importAccounts(Reader file, Format format, Consumer<DTO.AccountImportResult> sink) {
+        List<Row> rows = read(new BufferedReader(file, 1 << 16), format);
+        List<Row> ordered = resolve(rows);
+
+        long rejected = 0;
+        for (Row row : rows) {
+            if (row.error != null) {
+                rejected++;
+                sink.accept(new DTO.AccountImportResult(row.line, row.accountId(), ImportStatus.REJECTED, row.error));
+            }
+        }
+
+        long created = 0;
+        long failed = 0;
+        Set<String> unwritten = new HashSet<>();
+        for (int from = 0; from < ordered.size(); from += properties.chunkSize()) {
+            List<Row> chunk = new ArrayList<>();
+            for (Row row : ordered.subList(from, Math.min(ordered.size(), from + properties.chunkSize()))) {
+                if (row.parentId() != null && unwritten.contains(row.parentId())) {
+                    unwritten.add(row.accountId());
+                    rejected++;
+                    sink.accept(new DTO.AccountImportResult(
+                            row.line, row.accountId(), ImportStatus.REJECTED, "Parent " + row.parentId() + " failed"));
+                } else {
+                    chunk.add(row);
+                }
+            }
+            if (chunk.isEmpty()) {
+                continue;
+            }
+
+            String error = write(chunk);
+            for (Row row : chunk) {
+                if (error != null) {
+                    unwritten.add(row.accountId());
+                }
+                sink.accept(new DTO.AccountImportResult(
+                        row.line,
+                        row.accountId(),
+                        error == null ? ImportStatus.CREATED : ImportStatus.FAILED,
+                        error));
+            }
+            if (error == null) {
+                created += chunk.size();
+            } else {
+                failed += chunk.size();
+            }
+        }
+
+        log.info("Imported {} accounts from {} rows ({} rejected, {} failed)", created, rows.size(), rejected, failed);
+        return new DTO.AccountImportSummary(rows.size(), created, rejected, failed);
+    }
+
+    /** Inserts one chunk in its own transaction; returns the reason it was rolled back, or null once committed. */
+    private String write(List<Row> chunk) {
+        Instant now = Instant.now();
+        List<Account> accounts = chunk.stream()
+                .map(row -> new Account(
+                        row.request.id(),
+                        row.request.name(),
+                        row.request.type(),
+                        row.request.currency().toUpperCase(Locale.ROOT),
+                        row.parentId(),
+                        BigDecimal.ZERO,
+                        now,
+                        0))
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accountImportDao.insertAll(accounts);
+                accountNumbers.assign(accounts.stream().map(Account::id).toList());
+                accountSearchIndex.index(accounts);
+                ledgerVersion.increment();
+                eventPublisher.publishEvent(new AccountsImportedEvent(accounts));
+            });
+            return null;
+        } catch (DuplicateKeyException e) {
+            log.warn("Account import chunk of {} rolled back: an account was created concurrently", chunk.size());
+            return "Chunk rolled back: an account in it was created concurrently";
+        } catch (RuntimeException e) {
+            log.warn("Account import chunk of {} rolled back", chunk.size(), e);
+            return "Chunk rolled back: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Rejects rows whose parent is missing, of another type, rejected itself or part of a cycle, and returns the rest
+     * parents first.
+     */
+    private List<Row> resolve(List<Row> rows) {
+        Set<String> referenced = new HashSet<>();
+        for (Row row : rows) {
+            if (row.error == null) {
+                referenced.add(row.accountId());
+                if (row.parentId() != null) {
+                    referenced.add(row.parentId());
+                }
+            }
+        }
+        Map<String, AccountHierarchyCache.Node> existing = accountHierarchy.findAll(referenced);
+
+        Map<String, Row> inFile = new HashMap<>();
+        for (Row row : rows) {
+            if (row.error != null) {
+                continue;
+            }
+            if (existing.containsKey(row.accountId())) {
+                row.error = "Account already exists: " + row.accountId();
+                continue;
+            }
+            Row first = inFile.putIfAbsent(row.accountId(), row);
+            if (first != null) {
+                row.error = "Duplicate of row " + first.line;
+            }
+        }
+
+        List<Row> ordered = new ArrayList<>(inFile.size());
+        for (Row row : rows) {
+            if (row.error != null || row.resolved) {
+                continue;
+            }
+
+            // Climb to the nearest ancestor already resolved or outside the file, then settle the chain top down.
+            Deque<Row> chain = new ArrayDeque<>();
+            Row cursor = row;
+            while (cursor != null && !cursor.resolved) {
+                if (cursor.onChain) {
+                    for (Row member : chain) {
+                        member.error = "Account hierarchy cycle detected at " + member.accountId();
+                        if (member == cursor) {
+                            break;
+                        }
+                    }
+                    break;
+                }
+                cursor.onChain = true;
+                chain.push(cursor);
+                cursor = cursor.parentId() == null ? null : inFile.get(cursor.parentId());
+            }
+
+            while (!chain.isEmpty()) {
+                Row current = chain.pop();
+                current.onChain = false;
+                current.resolved = true;
+                if (current.error == null) {
+                    current.error = checkParent(current, inFile, existing);
+                }
+                if (current.error == null) {
+                    ordered.add(current);
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private static String checkParent(
+            Row row, Map<String, Row> inFile, Map<String, AccountHierarchyCache.Node> existing) {
+        String parentId = row.parentId();
+        if (parentId == null) {
+            return null;
+        }
+        AccountType parentType;
+        Row parentRow = inFile.get(parentId);
+        if (parentRow != null) {
+            if (parentRow.error != null) {
+                return "Parent " + parentId + " was rejected";
+            }
+            parentType = parentRow.request.type();
+        } else {
+            AccountHierarchyCache.Node parent = existing.get(parentId);
+            if (parent == null) {
+                return "Parent account not found: " + parentId;
+            }
+            parentType = parent.type();
+        }
+        if (!AccountHierarchyCache.isValidParentChildRelation(parentType, row.request.type())) {
+            return new InvalidAccountHierarchyException(parentType, row.request.type()).getMessage();
+        }
+        return null;
+    }
+
+    private List<Row> read(BufferedReader reader, Format format) {
+        List<Row> rows = new ArrayList<>();
+        try {
+            Columns columns = format == Format.CSV ? readHeader(reader) : null;
+            long lineNo = format == Format.CSV ? 1 : 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (rows.size() == properties.maxRows()) {
+                    throw new IllegalArgumentException("Import is limited to " + properties.maxRows() + " rows");
+                }
+                rows.add(parse(lineNo, line, format, columns));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private Row parse(long lineNo, String line, Format format, Columns columns) {
+        DTO.CreateAccountRequest request;
+        try {
+            request = format == Format.CSV
+                    ? fromCsv(Csv.split(line), columns)
+                    : jsonMapper.readValue(line, DTO.CreateAccountRequest.class);
+        } catch (RuntimeException e) {
+            return new Row(lineNo, null, "Unreadable row: " + e.getMessage());
+        }
+        try {
+            LedgerService.validateAccountRequest(request);
+            if (request.type() == null) {
+                throw new IllegalArgumentException("Account type is required");
+            }
+        } catch (RuntimeException e) {
+            return new Row(lineNo, request, e.getMessage());
+        }
+        return new Row(lineNo, request, null);
+    }
+
+    private static DTO.CreateAccountRequest fromCsv(List<String> fields, Columns columns) {
+        String type = fields.get(columns.type());
+        String parentId = columns.parentId() < 0 || columns.parentId() >= fields.size()
+                ? null
+                : fields.get(columns.parentId());
+        return new DTO.CreateAccountRequest(
+                fields.get(columns.id()),
+                fields.get(columns.name()),
+                type.isEmpty() ? null : AccountType.valueOf(type.toUpperCase(Locale.ROOT)),
+                fields.get(columns.currency()),
+                parentId == null || parentId.isEmpty() ? null : parentId);
+    }
+
+    private static Columns readHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+        List<String> names = Csv.header(header);
+        if (!names.containsAll(List.of("id", "name", "type", "currency"))) {
+            throw new IllegalArgumentException("Import header must name id, name, type and currency columns");
+        }
+        int parentId = names.indexOf("parentid");
+        return new Columns(
+                names.indexOf("id"),
+                names.indexOf("name"),
+                names.indexOf("type"),
+                names.indexOf("currency"),
+                parentId >= 0 ? parentId : names.indexOf("parent_id"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.pezesha.cbsledger.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Online migration to numeric account keys. Runs in the background after startup: numbers every account that lacks
+ * one, then fills {@code account_no} on existing entry lines in short batches, each in its own transaction so
+ * postings are never blocked for long. New lines are written with their number, so once no line is left without one
+ * the registry switches line lookups from the external id to the number.
+ *
+ * <p>Every pass walks the table's primary key from where the previous batch ended, so each row is read once however
+ * far the backfill has got. Completion is recorded in {@code account_no_backfill}; later startups, on any node, read
+ * the flag and skip the walk.
+ */
+@Component
+@Slf4j
+public class AccountNumberBackfill {
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountNumberRegistry registry;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-no-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AccountNumberBackfill(JdbcTemplate jdbcTemplate, AccountNumberRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (isComplete()) {
+            registry.markLinesBackfilled();
+            log.info("Account number backfill already complete; line lookups use account_no");
+            executor.shutdown();
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException e) {
+                log.error("Account number backfill failed; line lookups stay on account_id", e);
+            } finally {
+                executor.shutdown();
+            }
+        });
+    }
+
+    void run() {
+        int accounts = 0;
+        String afterId = "";
+        while (true) {
+            List<String> page = jdbcTemplate.queryForList(
+                    "SELECT id FROM accounts WHERE id > ? ORDER BY id LIMIT ?", String.class, afterId, BATCH_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1);
+            accounts += registry.assign(page);
+        }
+
+        long lines = backfill("entry_lines", "id") + backfill("entry_lines_archive", "period_start, id");
+        if (hasUnnumbered("accounts") || hasUnnumbered("entry_lines") || hasUnnumbered("entry_lines_archive")) {
+            log.warn("Account number backfill left rows without a number; line lookups stay on account_id");
+            return;
+        }
+        jdbcTemplate.update(
+                """
+                INSERT INTO account_no_backfill (id, completed_at)
+                SELECT 1, ? WHERE NOT EXISTS (SELECT 1 FROM account_no_backfill)
+                """,
+                Timestamp.from(Instant.now()));
+        registry.markLinesBackfilled();
+        log.info("Account number backfill complete: {} accounts numbered, {} lines updated", accounts, lines);
+    }
+
+    private boolean isComplete() {
+        return !jdbcTemplate
+                .queryForList("SELECT id FROM account_no_backfill", Integer.class)
+                .isEmpty();
+    }
+
+    /**
+     * Numbers the lines of {@code table} a batch of primary keys at a time. Each batch ends at the key
+     * {@value #BATCH_SIZE} rows past the last one, found along the primary key index, and the last batch takes
+     * whatever is left.
+     */
+    private long backfill(String table, String key) {
+        int columns = key.split(",").length;
+        String params = String.join(", ", Collections.nCopies(columns, "?"));
+        String after = "(%s) > (%s)".formatted(key, params);
+        String upTo = "(%s) <= (%s)".formatted(key, params);
+        String update =
+                "UPDATE %1$s SET account_no = (SELECT a.account_no FROM accounts a WHERE a.id = %1$s.account_id)"
+                        .formatted(table);
+        long total = 0;
+        Object[] last = null;
+        while (true) {
+            String from = last == null ? "" : " AND " + after;
+            List<Object[]> end = jdbcTemplate.query(
+                    "SELECT %s FROM %s WHERE 1 = 1%s ORDER BY %s LIMIT 1 OFFSET ?".formatted(key, table, from, key),
+                    (rs, rowNum) -> {
+                        Object[] row = new Object[columns];
+                        for (int i = 0; i < columns; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        return row;
+                    },
+                    append(last, BATCH_SIZE - 1));
+            if (end.isEmpty()) {
+                return total + jdbcTemplate.update(update + " WHERE account_no IS NULL" + from, append(last));
+            }
+            total += jdbcTemplate.update(
+                    update + " WHERE account_no IS NULL" + from + " AND " + upTo, append(last, end.get(0)));
+            last = end.get(0);
+        }
+    }
+
+    private boolean hasUnnumbered(String table) {
+        return !jdbcTemplate
+                .queryForList("SELECT 1 FROM %s WHERE account_no IS NULL LIMIT 1".formatted(table), Integer.class)
+                .isEmpty();
+    }
+
+    private static Object[] append(Object[] values, Object... more) {
+        Object[] head = values == null ? new Object[0] : values;
+        Object[] all = Arrays.copyOf(head, head.length + more.length);
+        System.arraycopy(more, 0, all, head.length, more.length);
+        return all;
+    }
+}
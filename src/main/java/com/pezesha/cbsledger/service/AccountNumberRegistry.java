@@ -0,0 +1,131 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.repository.IdAllocator;
+import com.pezesha.cbsledger.repository.LineAccount;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Cached two-way map between external account ids and their numeric {@code account_no}. Numbers come from the pooled
+ * {@code account_no_seq} (see {@link IdAllocator}) and are assigned once, when the account is created or by the
+ * backfill for older accounts.
+ */
+@Component
+@Slf4j
+public class AccountNumberRegistry {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final Map<String, Long> numbers = new ConcurrentHashMap<>();
+    private final Map<Long, String> ids = new ConcurrentHashMap<>();
+    private volatile boolean linesBackfilled;
+
+    public AccountNumberRegistry(JdbcTemplate jdbcTemplate, IdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query("SELECT id, account_no FROM accounts WHERE account_no IS NOT NULL", rs -> {
+            cache(rs.getString("id"), rs.getLong("account_no"));
+        });
+        log.info("Loaded {} account numbers", numbers.size());
+    }
+
+    /** The account's number, assigning one if it has none yet; empty when the account does not exist. */
+    public Optional<Long> numberOf(String accountId) {
+        Long cached = numbers.get(accountId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> stored = find(accountId);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        return assign(List.of(accountId)) > 0 ? find(accountId) : Optional.empty();
+    }
+
+    public Optional<String> idOf(long accountNo) {
+        String cached = ids.get(accountNo);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<String> stored = jdbcTemplate
+                .queryForList("SELECT id FROM accounts WHERE account_no = ?", String.class, accountNo)
+                .stream()
+                .findFirst();
+        stored.ifPresent(id -> cache(id, accountNo));
+        return stored;
+    }
+
+    /** Assigns numbers to the given accounts that do not have one; returns how many were numbered. */
+    public int assign(List<String> accountIds) {
+        List<Object[]> rows = accountIds.stream()
+                .map(id -> new Object[] {idAllocator.nextAccountNo(), id})
+                .toList();
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "UPDATE accounts SET account_no = ? WHERE id = ? AND account_no IS NULL",
+                rows,
+                rows.size(),
+                (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setString(2, (String) row[1]);
+                });
+        int assigned = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (counts[0][i] != 0) {
+                cache((String) rows.get(i)[1], (Long) rows.get(i)[0]);
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+
+    /** Line matcher for queries: by number once every line carries one, by external id until then. */
+    public LineAccount lineAccount(String accountId) {
+        Long accountNo = linesBackfilled ? numberOf(accountId).orElse(null) : null;
+        return new LineAccount(accountId, accountNo);
+    }
+
+    public boolean isLinesBackfilled() {
+        return linesBackfilled;
+    }
+
+    void markLinesBackfilled() {
+        linesBackfilled = true;
+    }
+
+    @TransactionalEventListener
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        Long accountNo = numbers.remove(event.accountId());
+        if (accountNo != null) {
+            ids.remove(accountNo);
+        }
+    }
+
+    private Optional<Long> find(String accountId) {
+        Optional<Long> stored = jdbcTemplate
+                .queryForList("SELECT account_no FROM accounts WHERE id = ?", Long.class, accountId)
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst();
+        stored.ifPresent(accountNo -> cache(accountId, accountNo));
+        return stored;
+    }
+
+    private void cache(String accountId, long accountNo) {
+        numbers.put(accountId, accountNo);
+        ids.put(accountNo, accountId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.repository.AccountSearchDao;
+import java.util.*;
+import java.util.function.Predicate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Case-insensitive prefix search over account ids and names. The keys live in {@code account_search_keys}, written in
+ * the transaction that creates each account and removed with it, so every node sees every other node's creates,
+ * imports and deletes once they commit. A lookup walks the matching keys in order, a page at a time, until it has
+ * enough accounts the filter accepts.
+ */
+@Component
+public class AccountSearchIndex {
+
+    private static final int PAGE = 100;
+
+    private final AccountSearchDao accountSearchDao;
+
+    public AccountSearchIndex(AccountSearchDao accountSearchDao) {
+        this.accountSearchDao = accountSearchDao;
+    }
+
+    /** Writes the accounts' keys in the caller's transaction. */
+    public void index(List<Account> accounts) {
+        Set<AccountSearchDao.SearchKey> keys = new LinkedHashSet<>();
+        for (Account account : accounts) {
+            keys.add(new AccountSearchDao.SearchKey(key(account.id()), account.id()));
+            keys.add(new AccountSearchDao.SearchKey(key(account.name()), account.id()));
+        }
+        accountSearchDao.insertAll(List.copyOf(keys));
+    }
+
+    /** Account ids whose id or name starts with {@code prefix}, in key order, accepted by {@code filter}. */
+    public List<String> search(String prefix, Predicate<String> filter, int limit) {
+        String from = key(prefix);
+        Set<String> matches = new LinkedHashSet<>();
+        Set<String> seen = new HashSet<>();
+        AccountSearchDao.SearchKey after = null;
+        while (matches.size() < limit) {
+            List<AccountSearchDao.SearchKey> page = accountSearchDao.findByPrefix(from, after, PAGE);
+            for (AccountSearchDao.SearchKey key : page) {
+                if (matches.size() >= limit) {
+                    break;
+                }
+                if (seen.add(key.accountId()) && filter.test(key.accountId())) {
+                    matches.add(key.accountId());
+                }
+            }
+            if (page.size() < PAGE) {
+                break;
+            }
+            after = page.get(page.size() - 1);
+        }
+        return List.copyOf(matches);
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,187 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.AccrualProperties;
+import com.pezesha.cbsledger.common.metrics.LedgerMetrics;
+import com.pezesha.cbsledger.domain.IdempotencyScope;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.AccrualDao;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books daily interest on the loan portfolio. Loans are read in keyset pages, each page is priced on a worker pool,
+ * and a single writer posts one aggregated journal per page and currency together with the per-loan sub-ledger rows
+ * in the same transaction. Posting from one thread keeps the two accrual accounts free of optimistic-lock retries.
+ * Interest runs on the loan account's outstanding balance, and the journals are dated at the end of the business
+ * date, whenever the run happens.
+ *
+ * <p>A run is idempotent per business date: loans already in {@code loan_accruals} for the date are never picked up
+ * again, so a crashed run simply resumes where its last committed page ended.
+ */
+@Service
+@Slf4j
+public class AccrualService {
+
+    private record AccrualBatch(String currency, List<AccrualDao.LoanAccrual> accruals, BigDecimal total) {}
+
+    private final AccrualDao accrualDao;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final AccrualProperties properties;
+    private final LedgerMetrics metrics;
+
+    public AccrualService(
+            AccrualDao accrualDao,
+            LedgerService ledgerService,
+            TransactionTemplate transactionTemplate,
+            AccrualProperties properties,
+            LedgerMetrics metrics) {
+        this.accrualDao = accrualDao;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    @Scheduled(cron = "${ledger.accrual.cron:0 30 0 * * *}")
+    public void scheduledRun() {
+        if (properties.scheduled()) {
+            runDailyAccrual(LocalDate.now().minusDays(1));
+        }
+    }
+
+    public List<AccrualDao.LoanAccrualEntry> getLoanAccruals(String loanId) {
+        return accrualDao.findAccruals(loanId);
+    }
+
+    public synchronized DTO.AccrualRunResponse runDailyAccrual(LocalDate businessDate) {
+        if (!businessDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot accrue for a business date that has not ended: " + businessDate);
+        }
+
+        Optional<AccrualDao.AccrualRun> existing = accrualDao.findRun(businessDate);
+        if (existing.isPresent() && "COMPLETED".equals(existing.get().status())) {
+            return toResponse(existing.get());
+        }
+        if (existing.isEmpty()) {
+            accrualDao.startRun(businessDate, Instant.now());
+        }
+
+        return metrics.timeLoanOperation("accrual_run", () -> {
+            accrue(businessDate);
+            accrualDao.completeRun(businessDate, Instant.now());
+            AccrualDao.AccrualRun run = accrualDao.findRun(businessDate).orElseThrow();
+            log.info(
+                    "Accrued {} on {} loans in {} journals for {}",
+                    run.totalAmount(),
+                    run.loanCount(),
+                    run.journalCount(),
+                    businessDate);
+            return toResponse(run);
+        });
+    }
+
+    private void accrue(LocalDate businessDate) {
+        ExecutorService workers = Executors.newFixedThreadPool(properties.parallelism());
+        Deque<Future<List<AccrualBatch>>> inFlight = new ArrayDeque<>();
+        try {
+            String afterLoanId = "";
+            while (true) {
+                List<AccrualDao.AccrualCandidate> page = accrualDao.findUnaccruedLoans(
+                        businessDate, afterLoanId, properties.chunkSize(), properties.defaultAnnualRate());
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterLoanId = page.get(page.size() - 1).loanId();
+                inFlight.add(workers.submit(() -> price(page)));
+
+                if (inFlight.size() >= properties.parallelism() * 2) {
+                    write(businessDate, inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(businessDate, inFlight.poll());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private List<AccrualBatch> price(List<AccrualDao.AccrualCandidate> page) {
+        BigDecimal basis = BigDecimal.valueOf(properties.dayCountBasis());
+        Map<String, List<AccrualDao.LoanAccrual>> byCurrency = new TreeMap<>();
+        for (AccrualDao.AccrualCandidate loan : page) {
+            if (!properties.accounts().containsKey(loan.currency())) {
+                continue;
+            }
+            BigDecimal amount =
+                    loan.outstanding().multiply(loan.annualRate()).divide(basis, 4, RoundingMode.HALF_EVEN);
+            if (amount.signum() > 0) {
+                byCurrency
+                        .computeIfAbsent(loan.currency(), c -> new ArrayList<>())
+                        .add(new AccrualDao.LoanAccrual(loan.loanId(), amount));
+            }
+        }
+
+        List<AccrualBatch> batches = new ArrayList<>();
+        byCurrency.forEach((currency, accruals) -> batches.add(new AccrualBatch(
+                currency,
+                accruals,
+                accruals.stream().map(AccrualDao.LoanAccrual::amount).reduce(BigDecimal.ZERO, BigDecimal::add))));
+        return batches;
+    }
+
+    private void write(LocalDate businessDate, Future<List<AccrualBatch>> pricing) {
+        List<AccrualBatch> batches;
+        try {
+            batches = pricing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Accrual run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Accrual pricing failed", e.getCause());
+        }
+
+        for (AccrualBatch batch : batches) {
+            AccrualProperties.AccrualAccounts accounts = properties.accounts().get(batch.currency());
+            String firstLoanId = batch.accruals().get(0).loanId();
+            DTO.TransactionRequest request = new DTO.TransactionRequest(
+                    "accrual-" + businessDate + "-" + batch.currency() + "-" + firstLoanId,
+                    "Interest accrual " + businessDate + " (" + batch.accruals().size() + " loans)",
+                    List.of(
+                            new DTO.EntryRequest(accounts.receivable(), batch.total(), BigDecimal.ZERO),
+                            new DTO.EntryRequest(accounts.income(), BigDecimal.ZERO, batch.total())));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                DTO.TransactionResponse journal =
+                        ledgerService.postTransaction(IdempotencyScope.TRANSACTION, request, endOfDay(businessDate));
+                accrualDao.insertAccruals(businessDate, journal.id(), batch.accruals());
+            });
+        }
+    }
+
+    /** Last instant of the business date, so the accrual falls in that day's movements and as-of balances. */
+    static Instant endOfDay(LocalDate businessDate) {
+        return businessDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().minusMillis(1);
+    }
+
+    private DTO.AccrualRunResponse toResponse(AccrualDao.AccrualRun run) {
+        return new DTO.AccrualRunResponse(
+                run.businessDate(),
+                run.status(),
+                run.loanCount(),
+                run.journalCount(),
+                run.totalAmount(),
+                run.startedAt(),
+                run.completedAt());
+    }
+}
@@ -0,0 +1,307 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.exception.AccountNotFoundException;
+import com.pezesha.cbsledger.common.exception.BalanceWatchRuleNotFoundException;
+import com.pezesha.cbsledger.domain.AlertDirection;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.BalancesChangedEvent;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.BalanceAlertDao;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Raises an alert when a posting moves a watched account's balance across a threshold. Rules are indexed per account
+ * in two sorted maps, one per direction, and swapped in whole when they change, so the after-commit check on the
+ * posting thread takes no lock: it looks up the account and reads only the thresholds between the old and the new
+ * balance. Alerts are written to {@code balance_alerts} on a separate thread.
+ *
+ * <p>Every node polls the database every {@code ledger.alerts.poll-interval}: it reloads the rules when the rules
+ * version in {@code balance_alert_state} has moved, so a rule created or deleted on any node applies everywhere within
+ * one interval, and it sends its SSE subscribers every alert logged since the last poll, whichever node raised it.
+ * Each poll re-reads the ids of the previous one as well, so an alert whose insert commits behind a later id is still
+ * sent, once.
+ */
+@Service
+@Slf4j
+public class BalanceAlertService {
+
+    private static final int DISPATCH_QUEUE_CAPACITY = 10_000;
+    private static final int FAN_OUT_BATCH = 500;
+
+    private record Thresholds(
+            NavigableMap<BigDecimal, List<DTO.BalanceWatchRule>> below,
+            NavigableMap<BigDecimal, List<DTO.BalanceWatchRule>> above) {}
+
+    private record Subscriber(SseEmitter emitter, String accountId) {}
+
+    private final BalanceAlertDao balanceAlertDao;
+    private final AccountHierarchyCache accountHierarchy;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor dispatcher;
+    private volatile List<DTO.BalanceWatchRule> rules = List.of();
+    private volatile Map<String, Thresholds> index = Map.of();
+    private long rulesVersion = -1;
+    /** Fan-out cursor: the highest alert id sent, that of the poll before, and the ids sent since then. */
+    private long sentThrough = -1;
+    private long previousSentThrough;
+    private final NavigableSet<Long> recentlySent = new TreeSet<>();
+
+    public BalanceAlertService(
+            BalanceAlertDao balanceAlertDao,
+            AccountHierarchyCache accountHierarchy,
+            PlatformTransactionManager transactionManager) {
+        this.balanceAlertDao = balanceAlertDao;
+        this.accountHierarchy = accountHierarchy;
+        // Its own transaction, also when called after another one commits (account deletion).
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dispatcher = new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DISPATCH_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "balance-alerts");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        rulesVersion = balanceAlertDao.findRulesVersion();
+        replaceRules(balanceAlertDao.findRules());
+        log.info("Loaded {} balance watch rules", rules.size());
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.alerts.poll-interval:1s}")
+    public void poll() {
+        synchronized (this) {
+            long version = balanceAlertDao.findRulesVersion();
+            if (version != rulesVersion) {
+                rulesVersion = version;
+                replaceRules(balanceAlertDao.findRules());
+                log.debug("Reloaded {} balance watch rules at version {}", rules.size(), version);
+            }
+        }
+        fanOut();
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    public synchronized DTO.BalanceWatchRule createRule(DTO.BalanceWatchRuleRequest request) {
+        if (request.accountId() == null || request.direction() == null || request.threshold() == null) {
+            throw new IllegalArgumentException("accountId, direction and threshold are required");
+        }
+        if (!accountHierarchy.contains(request.accountId())) {
+            throw new AccountNotFoundException(request.accountId());
+        }
+        Instant now = Instant.now();
+        Long id = transactionTemplate.execute(status -> {
+            long inserted =
+                    balanceAlertDao.insertRule(request.accountId(), request.direction(), request.threshold(), now);
+            balanceAlertDao.incrementRulesVersion();
+            return inserted;
+        });
+        DTO.BalanceWatchRule rule =
+                new DTO.BalanceWatchRule(id, request.accountId(), request.direction(), request.threshold(), now);
+
+        List<DTO.BalanceWatchRule> updated = new ArrayList<>(rules);
+        updated.add(rule);
+        replaceRules(updated);
+        return rule;
+    }
+
+    public synchronized void deleteRule(Long id) {
+        boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!balanceAlertDao.deleteRule(id)) {
+                return false;
+            }
+            balanceAlertDao.incrementRulesVersion();
+            return true;
+        }));
+        if (!deleted) {
+            throw new BalanceWatchRuleNotFoundException(id);
+        }
+        replaceRules(rules.stream().filter(rule -> !rule.id().equals(id)).toList());
+    }
+
+    public List<DTO.BalanceWatchRule> getRules(String accountId) {
+        return rules.stream()
+                .filter(rule -> accountId == null || rule.accountId().equals(accountId))
+                .toList();
+    }
+
+    public List<DTO.BalanceAlert> getAlerts(String accountId, int limit) {
+        return balanceAlertDao.findAlerts(accountId, Math.clamp(limit, 1, 1_000));
+    }
+
+    /** Live alerts for one account, or for every account when {@code accountId} is null. */
+    public SseEmitter subscribe(String accountId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, accountId);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onBalancesChanged(BalancesChangedEvent event) {
+        Map<String, Thresholds> current = index;
+        if (current.isEmpty()) {
+            return;
+        }
+        List<DTO.BalanceAlert> alerts = null;
+        for (BalancesChangedEvent.BalanceChange change : event.changes()) {
+            Thresholds thresholds = current.get(change.accountId());
+            if (thresholds == null) {
+                continue;
+            }
+            int movement = change.after().compareTo(change.before());
+            Collection<List<DTO.BalanceWatchRule>> crossed = movement < 0
+                    ? thresholds.below().subMap(change.after(), false, change.before(), true).values()
+                    : movement > 0
+                            ? thresholds.above().subMap(change.before(), true, change.after(), false).values()
+                            : List.of();
+            for (List<DTO.BalanceWatchRule> atThreshold : crossed) {
+                for (DTO.BalanceWatchRule rule : atThreshold) {
+                    if (alerts == null) {
+                        alerts = new ArrayList<>();
+                    }
+                    alerts.add(alert(rule, change, event.journalEntryId()));
+                }
+            }
+        }
+        if (alerts != null) {
+            dispatch(alerts);
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onAccountDeleted(AccountDeletedEvent event) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            int count = balanceAlertDao.deleteRulesFor(event.accountId());
+            if (count > 0) {
+                balanceAlertDao.incrementRulesVersion();
+            }
+            return count;
+        });
+        if (deleted != null && deleted > 0) {
+            replaceRules(rules.stream()
+                    .filter(rule -> !rule.accountId().equals(event.accountId()))
+                    .toList());
+        }
+    }
+
+    private void dispatch(List<DTO.BalanceAlert> alerts) {
+        try {
+            dispatcher.execute(() -> {
+                for (DTO.BalanceAlert alert : alerts) {
+                    try {
+                        balanceAlertDao.insertAlert(alert);
+                    } catch (RuntimeException e) {
+                        log.error("Could not record balance alert {}", alert, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Balance alert queue full, dropped {}", alerts);
+        }
+    }
+
+    /** Sends subscribers the alerts logged since the last poll; only the first poll after startup skips the backlog. */
+    private synchronized void fanOut() {
+        if (sentThrough < 0) {
+            sentThrough = balanceAlertDao.findMaxAlertId();
+            previousSentThrough = sentThrough;
+            return;
+        }
+        long highest = sentThrough;
+        long after = previousSentThrough;
+        while (true) {
+            List<DTO.BalanceAlert> alerts = balanceAlertDao.findAlertsAfter(after, FAN_OUT_BATCH);
+            for (DTO.BalanceAlert alert : alerts) {
+                if (recentlySent.add(alert.id()) && !subscribers.isEmpty()) {
+                    publish(alert);
+                }
+                after = alert.id();
+                highest = Math.max(highest, alert.id());
+            }
+            if (alerts.size() < FAN_OUT_BATCH) {
+                break;
+            }
+        }
+        previousSentThrough = sentThrough;
+        sentThrough = highest;
+        recentlySent.headSet(previousSentThrough, true).clear();
+    }
+
+    private void publish(DTO.BalanceAlert alert) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accountId() != null && !subscriber.accountId().equals(alert.accountId())) {
+                continue;
+            }
+            try {
+                subscriber.emitter().send(SseEmitter.event()
+                        .id(String.valueOf(alert.id()))
+                        .name("balance-alert")
+                        .data(alert, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter().completeWithError(e);
+            }
+        }
+    }
+
+    /** Caller holds the lock. */
+    private void replaceRules(List<DTO.BalanceWatchRule> updated) {
+        Map<String, Thresholds> rebuilt = new HashMap<>();
+        for (DTO.BalanceWatchRule rule : updated) {
+            Thresholds thresholds =
+                    rebuilt.computeIfAbsent(rule.accountId(), a -> new Thresholds(new TreeMap<>(), new TreeMap<>()));
+            NavigableMap<BigDecimal, List<DTO.BalanceWatchRule>> side =
+                    rule.direction() == AlertDirection.BELOW ? thresholds.below() : thresholds.above();
+            side.computeIfAbsent(rule.threshold(), t -> new ArrayList<>(1)).add(rule);
+        }
+        rules = List.copyOf(updated);
+        index = rebuilt;
+    }
+
+    private static DTO.BalanceAlert alert(
+            DTO.BalanceWatchRule rule, BalancesChangedEvent.BalanceChange change, Long journalEntryId) {
+        return new DTO.BalanceAlert(
+                null,
+                rule.id(),
+                rule.accountId(),
+                rule.direction(),
+                rule.threshold(),
+                change.before(),
+                change.after(),
+                journalEntryId,
+                Instant.now());
+    }
+}
@@ -0,0 +1,214 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.BalanceCacheProperties;
+import com.pezesha.cbsledger.repository.CommitWatermarkDao;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out posting timestamps and tracks the postings still in flight, on this node and, through
+ * {@code commit_watermarks}, on every other. {@link #current()} is an instant before which no journal can appear any
+ * more: every posting that could still commit anywhere is stamped at or after it. Timestamps never go backwards, even
+ * if the system clock does.
+ *
+ * <p>Each node publishes the oldest instant it holds every {@code ledger.balance-cache.watermark-interval}; ordinary
+ * postings are stamped after anything already published, so they cost nothing extra. A posting dated earlier than its
+ * stamp, such as an accrual, holds the watermark back to its date and publishes that before it writes anything, and
+ * once it has committed moves the backdate generation, in a short transaction of its own, so other nodes drop their
+ * memoized balances. Another node sees either within one interval. Backdated postings therefore never queue on the
+ * generation row; a bump that fails is retried with the next publish. A node silent for {@code watermark-expiry} is
+ * taken for dead and no longer holds anyone back.
+ */
+@Component
+@Slf4j
+public class CommitWatermark {
+
+    private final CommitWatermarkDao watermarkDao;
+    private final TransactionTemplate publishTransaction;
+    private final BalanceCacheProperties properties;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final TreeMap<Instant, Integer> inFlight = new TreeMap<>();
+    /** Serializes writes of this node's row, so the row never goes above what a posting has relied on. */
+    private final ReentrantLock publishLock = new ReentrantLock();
+    /** Set when a backdated posting has committed and the generation has not been moved since. */
+    private final AtomicBoolean backdatePending = new AtomicBoolean();
+    private Instant lastIssued = Instant.EPOCH;
+    private Instant published;
+    private volatile Instant othersBound = Instant.MIN;
+    private volatile long backdateGeneration;
+
+    public CommitWatermark(
+            CommitWatermarkDao watermarkDao,
+            PlatformTransactionManager transactionManager,
+            BalanceCacheProperties properties) {
+        this.watermarkDao = watermarkDao;
+        this.publishTransaction = new TransactionTemplate(transactionManager);
+        this.publishTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+    }
+
+    /** Stamps a posting in the current transaction; it stops holding the watermark back once the transaction ends. */
+    public Instant begin() {
+        return begin(Instant.MAX);
+    }
+
+    /**
+     * Stamps a posting dated {@code transactionDate}, which may be earlier than the stamp: until the transaction ends
+     * the watermark is held back at whichever of the two is earlier.
+     */
+    public Instant begin(Instant transactionDate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Postings must run inside a transaction");
+        }
+        synchronized (this) {
+            if (published != null) {
+                Instant stamp = tick();
+                Instant held = transactionDate.isBefore(stamp) ? transactionDate : stamp;
+                if (!held.isBefore(published)) {
+                    hold(held);
+                    return stamp;
+                }
+            }
+        }
+
+        Instant stamp;
+        publishLock.lock();
+        try {
+            Instant held;
+            boolean publish;
+            synchronized (this) {
+                stamp = tick();
+                held = transactionDate.isBefore(stamp) ? transactionDate : stamp;
+                hold(held);
+                publish = published == null || held.isBefore(published);
+            }
+            if (publish) {
+                publishTransaction.executeWithoutResult(status -> watermarkDao.publish(nodeId, held, Instant.now()));
+                synchronized (this) {
+                    published = held;
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        if (transactionDate.isBefore(stamp)) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    backdatePending.set(true);
+                    moveBackdateGeneration();
+                }
+            });
+        }
+        return stamp;
+    }
+
+    public Instant current() {
+        Instant others = othersBound;
+        synchronized (this) {
+            Instant now = tick();
+            Instant local = inFlight.isEmpty() ? now : inFlight.firstKey();
+            return others.isBefore(local) ? others : local;
+        }
+    }
+
+    /** This node's row in {@code commit_watermarks}, new with every start. */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** Whether the last publish found no other live node; false until this node has published once. */
+    public boolean alone() {
+        return Instant.MAX.equals(othersBound);
+    }
+
+    /** Moves whenever a posting dated before its stamp commits on any node, as of the last publish. */
+    public long backdateGeneration() {
+        return backdateGeneration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ledger.balance-cache.watermark-interval:1s}")
+    public void publish() {
+        Instant now = Instant.now();
+        publishLock.lock();
+        try {
+            Instant bound;
+            synchronized (this) {
+                Instant stamp = tick();
+                bound = inFlight.isEmpty() ? stamp : inFlight.firstKey();
+            }
+            publishTransaction.executeWithoutResult(status -> watermarkDao.publish(nodeId, bound, now));
+            synchronized (this) {
+                published = bound;
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        moveBackdateGeneration();
+        othersBound = watermarkDao.findOthersBound(nodeId, now.minus(properties.watermarkExpiry()));
+        backdateGeneration = watermarkDao.findBackdateGeneration();
+        int stale = watermarkDao.deleteStale(now.minus(properties.watermarkExpiry().multipliedBy(10)));
+        if (stale > 0) {
+            log.info("Removed {} commit watermarks of nodes gone for over {}", stale, properties.watermarkExpiry());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            watermarkDao.remove(nodeId);
+        } catch (RuntimeException e) {
+            log.debug("Could not remove commit watermark of {}; it expires on its own", nodeId, e);
+        }
+    }
+
+    private void moveBackdateGeneration() {
+        if (!backdatePending.getAndSet(false)) {
+            return;
+        }
+        try {
+            publishTransaction.executeWithoutResult(status -> watermarkDao.incrementBackdateGeneration());
+        } catch (RuntimeException e) {
+            backdatePending.set(true);
+            log.warn("Could not move the backdate generation; retrying with the next publish", e);
+        }
+    }
+
+    private void hold(Instant held) {
+        inFlight.merge(held, 1, Integer::sum);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                end(held);
+            }
+        });
+    }
+
+    private synchronized void end(Instant held) {
+        inFlight.computeIfPresent(held, (s, count) -> count == 1 ? null : count - 1);
+    }
+
+    private Instant tick() {
+        Instant now = Instant.now();
+        if (now.isBefore(lastIssued)) {
+            now = lastIssued;
+        }
+        lastIssued = now;
+        return now;
+    }
+}
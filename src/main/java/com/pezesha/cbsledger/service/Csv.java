@@ -0,0 +1,47 @@
+package com.pezesha.cbsledger.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Minimal CSV record reading for the file uploads (statements, account imports). */
+final class Csv {
+
+    private Csv() {}
+
+    /** Splits one CSV record; fields may be double-quoted, with {@code ""} for a literal quote. */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /** Header names lower-cased, with any UTF-8 byte order mark dropped. */
+    static List<String> header(String line) {
+        return split(line.startsWith("\uFEFF") ? line.substring(1) : line).stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .toList();
+    }
+}
@@ -0,0 +1,189 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.domain.AgingBucket;
+import com.pezesha.cbsledger.repository.DelinquencyDao;
+import com.pezesha.cbsledger.repository.LedgerVersionDao;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Days-past-due tracking for loan receivable accounts. Each loan's bucket is stored in {@code loan_delinquency} and
+ * only rewritten when a loan operation posts against the account or when the loan reaches the next bucket boundary,
+ * so the daily roll-forward touches just the loans that actually cross one.
+ *
+ * <p>Bucket counts and totals live in {@code delinquency_bucket_totals} and are adjusted in the same transaction as
+ * the loan rows, which makes the aging summary a constant-time read that every node agrees on. Each row is rewritten
+ * only if it still holds what was read, so a posting and a roll-forward racing on the same loan, on this node or
+ * another, never count it twice. Buckets move at the scheduled roll-forward, never on a read: between midnight and
+ * the job a loan still shows the bucket it was in yesterday.
+ */
+@Service
+@Slf4j
+public class DelinquencyService {
+
+    private static final int ROLL_FORWARD_PAGE_SIZE = 1_000;
+    private static final int REFRESH_ATTEMPTS = 3;
+
+    private final DelinquencyDao delinquencyDao;
+    private final LedgerVersionDao ledgerVersion;
+    private final TransactionTemplate transactionTemplate;
+
+    public DelinquencyService(
+            DelinquencyDao delinquencyDao, LedgerVersionDao ledgerVersion, TransactionTemplate transactionTemplate) {
+        this.delinquencyDao = delinquencyDao;
+        this.ledgerVersion = ledgerVersion;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (delinquencyDao.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            List<DelinquencyDao.LoanPosition> positions = delinquencyDao.findLoanReceivablePositions();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<AgingBucket, DelinquencyDao.BucketTotal> deltas = new EnumMap<>(AgingBucket.class);
+                    positions.forEach(p -> save(p, null, today, deltas));
+                    delinquencyDao.adjustBucketTotals(deltas);
+                    ledgerVersion.increment();
+                });
+                log.info("Seeded delinquency state for {} loan accounts", positions.size());
+            } catch (DataIntegrityViolationException e) {
+                log.info("Delinquency state was seeded concurrently by another node");
+            }
+        }
+        rollForward(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${ledger.delinquency.cron:0 5 0 * * *}")
+    public void scheduledRollForward() {
+        rollForward(LocalDate.now());
+    }
+
+    /**
+     * Re-reads the loan account's outstanding balance after a loan operation and moves it between buckets. Must run
+     * inside the posting transaction, which then carries the bucket totals with it.
+     */
+    public void refresh(String loanAccountId) {
+        for (int attempt = 1; !tryRefresh(loanAccountId); attempt++) {
+            if (attempt == REFRESH_ATTEMPTS) {
+                throw new IllegalStateException(
+                        "Delinquency state of " + loanAccountId + " keeps changing concurrently; retry the operation");
+            }
+        }
+    }
+
+    /**
+     * Moves every loan whose next bucket boundary is on or before {@code date}; other loans are not read. Loans another
+     * transaction moved since the page was read are left to it.
+     */
+    public void rollForward(LocalDate date) {
+        int moved = 0;
+        String afterAccountId = "";
+        while (true) {
+            List<DelinquencyDao.DelinquencyState> page =
+                    delinquencyDao.findDueForTransition(date, afterAccountId, ROLL_FORWARD_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterAccountId = page.get(page.size() - 1).accountId();
+            Integer saved = transactionTemplate.execute(status -> {
+                Map<AgingBucket, DelinquencyDao.BucketTotal> deltas = new EnumMap<>(AgingBucket.class);
+                int count = 0;
+                for (DelinquencyDao.DelinquencyState state : page) {
+                    DelinquencyDao.LoanPosition position =
+                            new DelinquencyDao.LoanPosition(state.accountId(), state.outstanding(), state.dueDate());
+                    if (save(position, state, date, deltas)) {
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    delinquencyDao.adjustBucketTotals(deltas);
+                    ledgerVersion.increment();
+                }
+                return count;
+            });
+            moved += saved == null ? 0 : saved;
+        }
+        log.info("Delinquency roll-forward to {} moved {} loans", date, moved);
+    }
+
+    /** Bucket counts and totals as of the last roll-forward. */
+    public Map<AgingBucket, DelinquencyDao.BucketTotal> getBucketTotals() {
+        return delinquencyDao.findBucketTotals();
+    }
+
+    /** Up to {@code limit} loans in {@code bucket}, longest overdue first. */
+    public List<DelinquencyDao.DelinquencyState> getLoans(AgingBucket bucket, int limit) {
+        return delinquencyDao.findByBucket(bucket, limit);
+    }
+
+    public List<DelinquencyDao.DelinquencyState> getBucketChanges(LocalDate date) {
+        return delinquencyDao.findBucketChangesOn(date);
+    }
+
+    private boolean tryRefresh(String loanAccountId) {
+        Optional<DelinquencyDao.DelinquencyState> before = delinquencyDao.find(loanAccountId);
+        Optional<DelinquencyDao.LoanPosition> position = delinquencyDao.findPosition(loanAccountId);
+        Map<AgingBucket, DelinquencyDao.BucketTotal> deltas = new EnumMap<>(AgingBucket.class);
+        if (position.isEmpty() || position.get().outstanding().signum() <= 0) {
+            if (before.isEmpty()) {
+                return true;
+            }
+            if (!delinquencyDao.delete(before.get())) {
+                return false;
+            }
+            add(deltas, before.get().bucket(), -1, before.get().outstanding().negate());
+        } else if (!save(position.get(), before.orElse(null), LocalDate.now(), deltas)) {
+            return false;
+        }
+        delinquencyDao.adjustBucketTotals(deltas);
+        return true;
+    }
+
+    /** Writes the loan's new state and adds its move to {@code deltas}; false if the row changed since it was read. */
+    private boolean save(
+            DelinquencyDao.LoanPosition position,
+            DelinquencyDao.DelinquencyState before,
+            LocalDate today,
+            Map<AgingBucket, DelinquencyDao.BucketTotal> deltas) {
+        AgingBucket bucket = AgingBucket.of(ChronoUnit.DAYS.between(position.dueDate(), today));
+        boolean moved = before != null && before.bucket() != bucket;
+        DelinquencyDao.DelinquencyState after = new DelinquencyDao.DelinquencyState(
+                position.accountId(),
+                null,
+                position.outstanding(),
+                position.dueDate(),
+                bucket,
+                moved ? before.bucket() : before == null ? null : before.previousBucket(),
+                moved ? today : before == null ? null : before.bucketChangedOn(),
+                bucket.nextTransition(position.dueDate()));
+        if (!delinquencyDao.save(after, before, Instant.now())) {
+            return false;
+        }
+        if (before != null) {
+            add(deltas, before.bucket(), -1, before.outstanding().negate());
+        }
+        add(deltas, after.bucket(), 1, after.outstanding());
+        return true;
+    }
+
+    private static void add(
+            Map<AgingBucket, DelinquencyDao.BucketTotal> deltas, AgingBucket bucket, long count, BigDecimal amount) {
+        deltas.merge(
+                bucket,
+                new DelinquencyDao.BucketTotal(count, amount),
+                (a, b) -> new DelinquencyDao.BucketTotal(
+                        a.loanCount() + b.loanCount(), a.totalOutstanding().add(b.totalOutstanding())));
+    }
+}
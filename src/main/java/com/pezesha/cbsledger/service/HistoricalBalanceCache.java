@@ -0,0 +1,106 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.BalanceCacheProperties;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.TransactionPostedEvent;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Memoizes point-in-time balances. A balance as of an instant before the {@link CommitWatermark} can no longer change,
+ * so it is kept until evicted by size (least recently read first); later instants are always recomputed.
+ *
+ * <p>Most journals are dated with their posting time, so nothing lands behind a memoized instant. Accruals are dated
+ * at the end of their business day; when such a journal commits, the affected accounts' entries from its date on are
+ * dropped, and any computation that overlapped the drop is discarded rather than stored. Other nodes drop everything
+ * they memoized once they see the watermark's backdate generation move, within one publish interval.
+ */
+@Component
+public class HistoricalBalanceCache {
+
+    private record Key(String accountId, Instant asOf) {}
+
+    private final CommitWatermark watermark;
+    private final Map<Key, BigDecimal> balances;
+    private long generation;
+    private long backdateGeneration;
+    private Instant latestMemoized = Instant.MIN;
+
+    public HistoricalBalanceCache(CommitWatermark watermark, BalanceCacheProperties properties) {
+        this.watermark = watermark;
+        int maxEntries = properties.maxEntries();
+        this.balances = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BigDecimal> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public BigDecimal get(String accountId, Instant asOf, Supplier<BigDecimal> compute) {
+        Key key = new Key(accountId, asOf);
+        long startedAt;
+        synchronized (this) {
+            long backdated = watermark.backdateGeneration();
+            if (backdated != backdateGeneration) {
+                invalidateAll();
+                backdateGeneration = backdated;
+            }
+            BigDecimal cached = balances.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            startedAt = generation;
+        }
+
+        // The watermark is read before computing, so every posting the result could miss is stamped after asOf.
+        boolean settled = asOf.isBefore(watermark.current());
+        BigDecimal balance = compute.get();
+        if (settled) {
+            synchronized (this) {
+                if (generation == startedAt) {
+                    balances.put(key, balance);
+                    if (asOf.isAfter(latestMemoized)) {
+                        latestMemoized = asOf;
+                    }
+                }
+            }
+        }
+        return balance;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        balances.clear();
+        latestMemoized = Instant.MIN;
+    }
+
+    @TransactionalEventListener
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Instant dated = event.journalEntry().transactionDate();
+        synchronized (this) {
+            if (dated.isAfter(latestMemoized)) {
+                return;
+            }
+            Set<String> accounts = event.journalEntry().entries().stream()
+                    .map(EntryLine::accountId)
+                    .collect(Collectors.toSet());
+            generation++;
+            balances.keySet()
+                    .removeIf(key -> accounts.contains(key.accountId()) && !key.asOf().isBefore(dated));
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onAccountDeleted(AccountDeletedEvent event) {
+        balances.keySet().removeIf(key -> key.accountId().equals(event.accountId()));
+    }
+}
@@ -0,0 +1,124 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.IdempotencyProperties;
+import com.pezesha.cbsledger.common.exception.DuplicateTransactionKeyException;
+import com.pezesha.cbsledger.domain.IdempotencyScope;
+import com.pezesha.cbsledger.repository.IdempotencyDao;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.*;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Remembers which journal each idempotency key produced, for {@code ledger.idempotency.retention}. Keys are stored as
+ * the first 128 bits of SHA-256 over scope and client key, so every row is the same small size whatever the client
+ * sends, and the same client key can be used once per scope (transaction, disbursement, repayment, write-off).
+ *
+ * <p>Each node re-reads the partitions to look in every {@code partition-refresh}. An expired partition is retired
+ * first, which drops it from those lists, and its table is dropped by a later maintenance run once every node has had
+ * time to stop probing it; a lookup never names a table that no longer exists.
+ */
+@Service
+@Slf4j
+public class IdempotencyStore {
+
+    private final IdempotencyDao idempotencyDao;
+    private final TransactionTemplate partitionTransaction;
+    private final IdempotencyProperties properties;
+    private volatile List<YearMonth> partitions = List.of();
+
+    public IdempotencyStore(
+            IdempotencyDao idempotencyDao,
+            PlatformTransactionManager transactionManager,
+            IdempotencyProperties properties) {
+        this.idempotencyDao = idempotencyDao;
+        this.partitionTransaction = new TransactionTemplate(transactionManager);
+        this.partitionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+    }
+
+    /**
+     * Keeps this and next month's partitions in place, drops the ones retired long enough ago and retires the ones
+     * past retention.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ledger.idempotency.maintenance-cron:0 20 0 * * *}")
+    public synchronized void maintain() {
+        YearMonth current = YearMonth.now();
+        ensurePartition(current);
+        ensurePartition(current.plusMonths(1));
+
+        Instant now = Instant.now();
+        Instant unprobedSince = now.minus(properties.partitionRefresh().multipliedBy(10));
+        for (YearMonth month : idempotencyDao.findRetiredBefore(unprobedSince)) {
+            partitionTransaction.executeWithoutResult(status -> idempotencyDao.dropPartition(month));
+            log.info("Dropped expired idempotency partition {}", month);
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(properties.retention().toDays());
+        for (YearMonth month : idempotencyDao.findPartitions()) {
+            if (month.atEndOfMonth().isBefore(cutoff)) {
+                idempotencyDao.retirePartition(month, now);
+                log.info("Retired expired idempotency partition {}; it is dropped by a later run", month);
+            }
+        }
+        partitions = idempotencyDao.findPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.idempotency.partition-refresh:1m}")
+    public synchronized void refreshPartitions() {
+        partitions = idempotencyDao.findPartitions();
+    }
+
+    public Optional<Long> find(IdempotencyScope scope, String clientKey) {
+        return idempotencyDao.find(partitions, hash(scope, clientKey));
+    }
+
+    /**
+     * Records the key in the current month's partition, in the caller's transaction. A concurrent request that
+     * recorded the same key first makes this throw, rolling the second posting back.
+     */
+    public void record(IdempotencyScope scope, String clientKey, long journalEntryId, Instant at) {
+        YearMonth month = YearMonth.from(at.atZone(ZoneId.systemDefault()));
+        if (!partitions.contains(month)) {
+            synchronized (this) {
+                ensurePartition(month);
+                partitions = idempotencyDao.findPartitions();
+            }
+        }
+        try {
+            idempotencyDao.insert(month, new IdempotencyDao.StoredKey(hash(scope, clientKey), journalEntryId, at));
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateTransactionKeyException(scope.journalKey(clientKey));
+        }
+    }
+
+    /** DDL runs in its own transaction so it never commits, or waits on, a posting in progress. */
+    private void ensurePartition(YearMonth month) {
+        partitionTransaction.executeWithoutResult(status -> idempotencyDao.createPartition(month));
+    }
+
+    private static IdempotencyDao.KeyHash hash(IdempotencyScope scope, String clientKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            ByteBuffer bytes = ByteBuffer.wrap(digest.digest(clientKey.getBytes(StandardCharsets.UTF_8)));
+            return new IdempotencyDao.KeyHash(bytes.getLong(), bytes.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,559 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.exception.AccountNotFoundException;
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import com.pezesha.cbsledger.domain.event.AccountCreatedEvent;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.AccountsImportedEvent;
+import com.pezesha.cbsledger.domain.event.TransactionPostedEvent;
+import com.pezesha.cbsledger.repository.AccountRepository;
+import com.pezesha.cbsledger.repository.AnalyticsDao;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional in-process column store of every entry line: account index, epoch day, debit and credit in minor units,
+ * each in its own primitive array (24 bytes per line). Loaded once at startup and appended to after each commit.
+ *
+ * <p>Columns only grow. A reader captures the current {@link Columns} and scans rows {@code [0, size)}, which are
+ * never rewritten, so scans run without locks while a single writer appends behind them. Scans are split into about
+ * one chunk per thread of the common fork/join pool, each summing into its own bucket array, so a scan allocates and
+ * merges a handful of arrays however many rows there are. Reports that only need totals by account type, or only some
+ * accounts, map each account to its bucket inside the chunk rather than summing the whole chart first.
+ *
+ * <p>Appends come from this node's commits only, so the store is complete only while no other node posts. When the
+ * commit watermarks show another live node it stops reporting ready, and reports go to the database, until the other
+ * nodes are gone and a fresh load has caught up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.analytics", name = "enabled", havingValue = "true")
+@Slf4j
+public class LedgerColumnStore {
+
+    public enum GroupBy {
+        ACCOUNT,
+        ACCOUNT_TYPE,
+        CURRENCY,
+        DAY,
+        PARENT
+    }
+
+    public record Aggregate(String key, BigDecimal debit, BigDecimal credit, BigDecimal net, long lines) {}
+
+    private static final int SCALE = 4;
+    private static final int SCAN_CHUNK = 1 << 16;
+    private static final int DEBIT = 0;
+    private static final int CREDIT = 1;
+    private static final int LINES = 2;
+    private static final int WIDTH = 3;
+
+    private record Columns(int[] account, int[] day, long[] debit, long[] credit, int size) {}
+
+    private record Dictionary(Account[] accounts, int size) {}
+
+    private final AnalyticsDao analyticsDao;
+    private final AccountRepository accountRepository;
+    private final CommitWatermark watermark;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, Integer> accountIndex = new ConcurrentHashMap<>();
+    private final Set<String> deletedAccounts = ConcurrentHashMap.newKeySet();
+    private final List<JournalEntry> pending = new ArrayList<>();
+    private volatile Columns columns = new Columns(new int[0], new int[0], new long[0], new long[0], 0);
+    private volatile Dictionary dictionary = new Dictionary(new Account[0], 0);
+    private volatile boolean ready;
+    private volatile boolean shared;
+
+    public LedgerColumnStore(
+            AnalyticsDao analyticsDao, AccountRepository accountRepository, CommitWatermark watermark) {
+        this.analyticsDao = analyticsDao;
+        this.accountRepository = accountRepository;
+        this.watermark = watermark;
+    }
+
+    public boolean isReady() {
+        return ready && !shared;
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            for (Account account : analyticsDao.findAccounts()) {
+                indexOf(account);
+            }
+        }
+
+        // Lines are read outside the lock; postings that commit meanwhile are queued and replayed unless the
+        // load already saw them.
+        LoadBuffer buffer = new LoadBuffer();
+        analyticsDao.streamLines(buffer::add);
+
+        synchronized (this) {
+            columns = buffer.columns();
+            for (JournalEntry entry : pending) {
+                if (!buffer.journals.contains(entry.id())) {
+                    appendRows(entry);
+                }
+            }
+            pending.clear();
+            ready = true;
+        }
+        log.info(
+                "Analytics store loaded {} lines for {} accounts in {} ms",
+                columns.size(),
+                dictionary.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Stops serving while other nodes are live, and reloads once they are gone. */
+    @Scheduled(fixedDelayString = "${ledger.balance-cache.watermark-interval:1s}")
+    public void checkNodes() {
+        if (!ready) {
+            return;
+        }
+        if (!watermark.alone()) {
+            if (!shared) {
+                log.warn("Another node is posting; the analytics store is bypassed until it has gone");
+                shared = true;
+            }
+        } else if (shared) {
+            load();
+            shared = false;
+            log.info("No other node is posting; the analytics store is served again");
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountCreated(AccountCreatedEvent event) {
+        synchronized (this) {
+            indexOf(event.account());
+            deletedAccounts.remove(event.account().id());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountsImported(AccountsImportedEvent event) {
+        synchronized (this) {
+            for (Account account : event.accounts()) {
+                indexOf(account);
+                deletedAccounts.remove(account.id());
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        deletedAccounts.add(event.accountId());
+    }
+
+    @TransactionalEventListener
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        append(event.journalEntry());
+    }
+
+    public synchronized void append(JournalEntry entry) {
+        if (!ready) {
+            pending.add(entry);
+            return;
+        }
+        appendRows(entry);
+    }
+
+    // ==================== Reports ====================
+
+    /** Same shape as {@code ReportingDao.getTrialBalanceData()}: one row per account type, debit-positive. */
+    public List<Map<String, Object>> trialBalanceRows() {
+        Dictionary dict = dictionary;
+        AccountType[] types = AccountType.values();
+        int[] typeOf = new int[dict.size()];
+        boolean[] present = new boolean[types.length];
+        for (int i = 0; i < dict.size(); i++) {
+            if (deletedAccounts.contains(dict.accounts()[i].id())) {
+                typeOf[i] = -1;
+                continue;
+            }
+            typeOf[i] = dict.accounts()[i].accountType().ordinal();
+            present[typeOf[i]] = true;
+        }
+        long[] byType = scanByAccount(typeOf, types.length, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (AccountType type : types) {
+            int base = type.ordinal() * WIDTH;
+            if (present[type.ordinal()]) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("account_type", type.name());
+                row.put("balance", toAmount(byType[base + DEBIT] - byType[base + CREDIT]));
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /** Same shape as {@code ReportingDao.getBalanceSheetData()}: balance-sheet accounts in their natural sign. */
+    public List<Map<String, Object>> balanceSheetRows() {
+        Dictionary dict = dictionary;
+        int[] rowOf = new int[dict.size()];
+        List<Account> sheet = new ArrayList<>();
+        for (int i = 0; i < dict.size(); i++) {
+            Account account = dict.accounts()[i];
+            if (account.accountType() == AccountType.INCOME
+                    || account.accountType() == AccountType.EXPENSE
+                    || deletedAccounts.contains(account.id())) {
+                rowOf[i] = -1;
+                continue;
+            }
+            rowOf[i] = sheet.size();
+            sheet.add(account);
+        }
+        long[] totals = scanByAccount(rowOf, sheet.size(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        List<Map<String, Object>> rows = new ArrayList<>(sheet.size());
+        for (int r = 0; r < sheet.size(); r++) {
+            Account account = sheet.get(r);
+            long net = totals[r * WIDTH + DEBIT] - totals[r * WIDTH + CREDIT];
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("account_type", account.accountType().name());
+            row.put("name", account.name());
+            row.put("balance", toAmount(account.accountType() == AccountType.ASSET ? net : -net));
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparing((Map<String, Object> row) ->
+                        AccountType.valueOf((String) row.get("account_type")).ordinal())
+                .thenComparing(row -> (String) row.get("name")));
+        return rows;
+    }
+
+    /** Debit, credit and line totals between two days (inclusive, either may be null), grouped as requested. */
+    public List<Aggregate> aggregate(GroupBy groupBy, LocalDate from, LocalDate to) {
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+
+        if (groupBy == GroupBy.DAY) {
+            return aggregateByDay(fromDay, toDay);
+        }
+
+        Dictionary dict = dictionary;
+        long[] totals = scanByAccount(null, dict.size(), fromDay, toDay);
+        Map<String, long[]> groups = new TreeMap<>();
+        for (int i = 0; i < dict.size(); i++) {
+            if (totals[i * WIDTH + LINES] == 0) {
+                continue;
+            }
+            for (String key : groupKeys(groupBy, dict, i)) {
+                long[] group = groups.computeIfAbsent(key, k -> new long[WIDTH]);
+                for (int f = 0; f < WIDTH; f++) {
+                    group[f] += totals[i * WIDTH + f];
+                }
+            }
+        }
+
+        List<Aggregate> result = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> result.add(toAggregate(key, group, 0)));
+        return result;
+    }
+
+    // ==================== Scans ====================
+
+    /**
+     * Sums rows between two days into {@code buckets}, each account going to {@code bucketOf[account]} (skipped when
+     * negative), or to its own index when {@code bucketOf} is null.
+     */
+    private long[] scanByAccount(int[] bucketOf, int buckets, int fromDay, int toDay) {
+        Columns c = columns;
+        return ForkJoinPool.commonPool()
+                .invoke(new Scan(c, 0, c.size(), leafRows(c.size()), buckets, bucketOf, fromDay, toDay, false, 0));
+    }
+
+    /** About one chunk per pool thread, but never so small that splitting costs more than it saves. */
+    private static int leafRows(int rows) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(SCAN_CHUNK, (rows + parallelism - 1) / parallelism);
+    }
+
+    private List<Aggregate> aggregateByDay(int fromDay, int toDay) {
+        Columns c = columns;
+        if (c.size() == 0) {
+            return List.of();
+        }
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int i = 0; i < c.size(); i++) {
+            minDay = Math.min(minDay, c.day()[i]);
+            maxDay = Math.max(maxDay, c.day()[i]);
+        }
+        int first = Math.max(minDay, fromDay);
+        int last = Math.min(maxDay, toDay);
+        if (first > last) {
+            return List.of();
+        }
+
+        long[] totals = ForkJoinPool.commonPool()
+                .invoke(new Scan(c, 0, c.size(), leafRows(c.size()), last - first + 1, null, first, last, true, first));
+        List<Aggregate> result = new ArrayList<>();
+        for (int d = 0; d <= last - first; d++) {
+            if (totals[d * WIDTH + LINES] > 0) {
+                result.add(toAggregate(LocalDate.ofEpochDay(first + d).toString(), totals, d * WIDTH));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums rows {@code [from, to)} into buckets keyed by day offset, or by account through {@code bucketOf}. Splits
+     * until a chunk holds at most {@code leafRows} rows.
+     */
+    private static final class Scan extends RecursiveTask<long[]> {
+        private final Columns c;
+        private final int from;
+        private final int to;
+        private final int leafRows;
+        private final int buckets;
+        private final int[] bucketOf;
+        private final int fromDay;
+        private final int toDay;
+        private final boolean byDay;
+        private final int dayOffset;
+
+        Scan(
+                Columns c,
+                int from,
+                int to,
+                int leafRows,
+                int buckets,
+                int[] bucketOf,
+                int fromDay,
+                int toDay,
+                boolean byDay,
+                int dayOffset) {
+            this.c = c;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+            this.buckets = buckets;
+            this.bucketOf = bucketOf;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.byDay = byDay;
+            this.dayOffset = dayOffset;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > leafRows) {
+                int mid = (from + to) >>> 1;
+                Scan left = new Scan(c, from, mid, leafRows, buckets, bucketOf, fromDay, toDay, byDay, dayOffset);
+                Scan right = new Scan(c, mid, to, leafRows, buckets, bucketOf, fromDay, toDay, byDay, dayOffset);
+                left.fork();
+                long[] sum = right.compute();
+                long[] other = left.join();
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += other[i];
+                }
+                return sum;
+            }
+
+            long[] sum = new long[buckets * WIDTH];
+            int[] account = c.account();
+            int[] day = c.day();
+            long[] debit = c.debit();
+            long[] credit = c.credit();
+            for (int i = from; i < to; i++) {
+                int d = day[i];
+                if (d < fromDay || d > toDay) {
+                    continue;
+                }
+                int bucket = byDay ? d - dayOffset : account[i];
+                if (!byDay && bucketOf != null) {
+                    // Accounts indexed after the caller built bucketOf have no bucket yet.
+                    bucket = bucket < bucketOf.length ? bucketOf[bucket] : -1;
+                }
+                if (bucket < 0 || bucket >= buckets) {
+                    continue;
+                }
+                int base = bucket * WIDTH;
+                sum[base + DEBIT] += debit[i];
+                sum[base + CREDIT] += credit[i];
+                sum[base + LINES]++;
+            }
+            return sum;
+        }
+    }
+
+    // ==================== Writers (callers hold the monitor) ====================
+
+    /** Each commit's event arrives once; only the replay after a load has to skip journals the load already read. */
+    private void appendRows(JournalEntry entry) {
+        int day = (int) entry.transactionDate().atZone(zone).toLocalDate().toEpochDay();
+        Columns c = ensureCapacity(columns, entry.entries().size());
+        int row = c.size();
+        for (EntryLine line : entry.entries()) {
+            c.account()[row] = indexOf(line.accountId());
+            c.day()[row] = day;
+            c.debit()[row] = toUnits(line.debit());
+            c.credit()[row] = toUnits(line.credit());
+            row++;
+        }
+        columns = new Columns(c.account(), c.day(), c.debit(), c.credit(), row);
+    }
+
+    private int indexOf(String accountId) {
+        Integer index = accountIndex.get(accountId);
+        if (index != null) {
+            return index;
+        }
+        Account account =
+                accountRepository.findById(accountId).orElseThrow(() -> new AccountNotFoundException(accountId));
+        return indexOf(account);
+    }
+
+    private int indexOf(Account account) {
+        Integer existing = accountIndex.get(account.id());
+        if (existing != null) {
+            return existing;
+        }
+        Dictionary dict = dictionary;
+        Account[] accounts = dict.accounts();
+        if (dict.size() == accounts.length) {
+            accounts = Arrays.copyOf(accounts, Math.max(64, accounts.length * 2));
+        }
+        accounts[dict.size()] = account;
+        dictionary = new Dictionary(accounts, dict.size() + 1);
+        accountIndex.put(account.id(), dict.size());
+        return dict.size();
+    }
+
+    private static Columns ensureCapacity(Columns c, int extra) {
+        int needed = c.size() + extra;
+        if (needed <= c.account().length) {
+            return c;
+        }
+        int capacity = Math.max(needed, Math.max(1024, c.account().length + (c.account().length >> 1)));
+        return new Columns(
+                Arrays.copyOf(c.account(), capacity),
+                Arrays.copyOf(c.day(), capacity),
+                Arrays.copyOf(c.debit(), capacity),
+                Arrays.copyOf(c.credit(), capacity),
+                c.size());
+    }
+
+    private final class LoadBuffer {
+        private int[] account = new int[1024];
+        private int[] day = new int[1024];
+        private long[] debit = new long[1024];
+        private long[] credit = new long[1024];
+        private int size;
+        private final JournalIds journals = new JournalIds();
+
+        void add(
+                long journalEntryId, String accountId, LocalDate lineDay, BigDecimal lineDebit, BigDecimal lineCredit) {
+            int accountIdx;
+            synchronized (LedgerColumnStore.this) {
+                accountIdx = indexOf(accountId);
+            }
+            if (size == account.length) {
+                int capacity = account.length + (account.length >> 1);
+                account = Arrays.copyOf(account, capacity);
+                day = Arrays.copyOf(day, capacity);
+                debit = Arrays.copyOf(debit, capacity);
+                credit = Arrays.copyOf(credit, capacity);
+            }
+            account[size] = accountIdx;
+            day[size] = (int) lineDay.toEpochDay();
+            debit[size] = toUnits(lineDebit);
+            credit[size] = toUnits(lineCredit);
+            size++;
+            journals.add(journalEntryId);
+        }
+
+        Columns columns() {
+            return new Columns(account, day, debit, credit, size);
+        }
+    }
+
+    /**
+     * Journal ids read by a load, so the replay of commits queued meanwhile can skip them. Long-keyed: a bit per id in
+     * pages of 2^16 ids, allocated only where ids fall, so pooled id blocks far apart stay cheap.
+     */
+    private static final class JournalIds {
+        private static final int PAGE_BITS = 16;
+        private final Map<Long, long[]> pages = new HashMap<>();
+
+        void add(long id) {
+            long[] page = pages.computeIfAbsent(id >>> PAGE_BITS, p -> new long[1 << (PAGE_BITS - 6)]);
+            int bit = (int) (id & ((1 << PAGE_BITS) - 1));
+            page[bit >>> 6] |= 1L << bit;
+        }
+
+        boolean contains(long id) {
+            long[] page = pages.get(id >>> PAGE_BITS);
+            int bit = (int) (id & ((1 << PAGE_BITS) - 1));
+            return page != null && (page[bit >>> 6] & (1L << bit)) != 0;
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    private List<String> groupKeys(GroupBy groupBy, Dictionary dict, int index) {
+        Account account = dict.accounts()[index];
+        return switch (groupBy) {
+            case ACCOUNT -> List.of(account.id());
+            case ACCOUNT_TYPE -> List.of(account.accountType().name());
+            case CURRENCY -> List.of(account.currency());
+            case PARENT -> ancestors(dict, account);
+            case DAY -> throw new IllegalArgumentException("DAY is aggregated by its own scan");
+        };
+    }
+
+    /** Every ancestor of the account, so each parent aggregates its whole subtree. */
+    private List<String> ancestors(Dictionary dict, Account account) {
+        List<String> keys = new ArrayList<>();
+        String parentId = account.parentAccountId();
+        while (parentId != null && keys.size() < dict.size()) {
+            keys.add(parentId);
+            Integer parent = accountIndex.get(parentId);
+            parentId = parent == null || parent >= dict.size() ? null : dict.accounts()[parent].parentAccountId();
+        }
+        return keys;
+    }
+
+    private static Aggregate toAggregate(String key, long[] totals, int base) {
+        return new Aggregate(
+                key,
+                toAmount(totals[base + DEBIT]),
+                toAmount(totals[base + CREDIT]),
+                toAmount(totals[base + DEBIT] - totals[base + CREDIT]),
+                totals[base + LINES]);
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        return amount == null
+                ? 0
+                : amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+}
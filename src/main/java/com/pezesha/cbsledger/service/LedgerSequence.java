@@ -0,0 +1,49 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.repository.AccountQueryDao;
+import com.pezesha.cbsledger.repository.ReportingDao;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong ETags from what the database says has changed, so every node behind the load balancer hands out the same
+ * tag for the same data. Ledger-wide tags carry the persisted ledger version, which every posting and every account
+ * created, imported or deleted moves in the transaction making the change, so the version commits with it. They are
+ * read from the reporting pool, the same one the reports come from, so a tag never describes data the reports cannot
+ * see yet. Account tags carry the account row's version, which only its own postings move.
+ */
+@Component
+public class LedgerSequence {
+
+    private final ReportingDao reportingDao;
+    private final AccountQueryDao accountQueryDao;
+
+    public LedgerSequence(ReportingDao reportingDao, AccountQueryDao accountQueryDao) {
+        this.reportingDao = reportingDao;
+        this.accountQueryDao = accountQueryDao;
+    }
+
+    /** Tag for anything derived from the whole ledger. */
+    public String etag() {
+        return quote("l-" + reportingDao.findLedgerVersion());
+    }
+
+    /** Tag for a report that also depends on today's date, such as days past due. */
+    public String etag(LocalDate today) {
+        return quote("l-" + reportingDao.findLedgerVersion() + "-" + today);
+    }
+
+    /**
+     * Tag for one account: its creation time and row version, so postings to other accounts leave it alone and an id
+     * deleted and created again never matches. The ledger-wide tag when the account does not exist.
+     */
+    public String accountEtag(String accountId) {
+        Optional<String> version = accountQueryDao.findVersionTag(accountId);
+        return version.isEmpty() ? etag() : quote("a-" + version.get());
+    }
+
+    private static String quote(String tag) {
+        return '"' + tag + '"';
+    }
+}
@@ -1,18 +1,36 @@
 package com.pezesha.cbsledger.service;
 
 import com.pezesha.cbsledger.common.exception.*;
+import com.pezesha.cbsledger.common.metrics.LedgerMetrics;
 import com.pezesha.cbsledger.domain.*;
+import com.pezesha.cbsledger.domain.event.AccountCreatedEvent;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.BalancesChangedEvent;
+import com.pezesha.cbsledger.domain.event.TransactionPostedEvent;
 import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.AccountQueryDao;
 import com.pezesha.cbsledger.repository.AccountRepository;
+import com.pezesha.cbsledger.repository.DailyMovementDao;
+import com.pezesha.cbsledger.repository.IdAllocator;
 import com.pezesha.cbsledger.repository.JournalEntryRepository;
+import com.pezesha.cbsledger.repository.JournalWriter;
+import com.pezesha.cbsledger.repository.LedgerVersionDao;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.relational.core.conversion.DbActionExecutionException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,11 +39,58 @@ public class LedgerService {
 
     private final AccountRepository accountRepository;
     private final JournalEntryRepository journalEntryRepository;
+    private final JournalWriter journalWriter;
+    private final LedgerVersionDao ledgerVersion;
+    private final IdAllocator idAllocator;
+    private final AccountHierarchyCache accountHierarchy;
+    private final AccountQueryDao accountQueryDao;
+    private final AccountSearchIndex accountSearchIndex;
+    private final AccountNumberRegistry accountNumbers;
+    private final DailyMovementDao dailyMovements;
+    private final TransactionSearchIndex transactionSearch;
+    private final IdempotencyStore idempotencyStore;
+    private final PeriodService periodService;
+    private final CommitWatermark commitWatermark;
+    private final ObjectProvider<OffHeapBalanceStore> balanceStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LedgerMetrics metrics;
     private final Map<String, Object> accountLocks = new ConcurrentHashMap<>();
 
-    public LedgerService(AccountRepository accountRepository, JournalEntryRepository journalEntryRepository) {
+    public LedgerService(
+            AccountRepository accountRepository,
+            JournalEntryRepository journalEntryRepository,
+            JournalWriter journalWriter,
+            LedgerVersionDao ledgerVersion,
+            IdAllocator idAllocator,
+            AccountHierarchyCache accountHierarchy,
+            AccountQueryDao accountQueryDao,
+            AccountSearchIndex accountSearchIndex,
+            AccountNumberRegistry accountNumbers,
+            DailyMovementDao dailyMovements,
+            TransactionSearchIndex transactionSearch,
+            IdempotencyStore idempotencyStore,
+            PeriodService periodService,
+            CommitWatermark commitWatermark,
+            ObjectProvider<OffHeapBalanceStore> balanceStore,
+            ApplicationEventPublisher eventPublisher,
+            LedgerMetrics metrics) {
         this.accountRepository = accountRepository;
         this.journalEntryRepository = journalEntryRepository;
+        this.journalWriter = journalWriter;
+        this.ledgerVersion = ledgerVersion;
+        this.idAllocator = idAllocator;
+        this.accountHierarchy = accountHierarchy;
+        this.accountQueryDao = accountQueryDao;
+        this.accountSearchIndex = accountSearchIndex;
+        this.accountNumbers = accountNumbers;
+        this.dailyMovements = dailyMovements;
+        this.transactionSearch = transactionSearch;
+        this.idempotencyStore = idempotencyStore;
+        this.periodService = periodService;
+        this.commitWatermark = commitWatermark;
+        this.balanceStore = balanceStore;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
     }
 
     public DTO.AccountResponse getAccount(String accountId) {
@@ -38,18 +103,12 @@ public class LedgerService {
     public DTO.AccountResponse createAccount(DTO.CreateAccountRequest request) {
         validateAccountRequest(request);
 
-        if (accountRepository.existsById(request.id())) {
+        if (accountHierarchy.contains(request.id())) {
             throw new AccountAlreadyExistsException(request.id());
         }
 
         if (request.parentId() != null && !request.parentId().isEmpty()) {
-            Account parent = accountRepository
-                    .findById(request.parentId())
-                    .orElseThrow(() -> new AccountNotFoundException(request.parentId()));
-
-            if (!isValidParentChildRelation(parent.accountType(), request.type())) {
-                throw new InvalidAccountHierarchyException(parent.accountType(), request.type());
-            }
+            accountHierarchy.validateParent(request.id(), request.type(), request.parentId());
         }
 
         var account = new Account(
@@ -62,36 +121,123 @@ public class LedgerService {
                 Instant.now(),
                 null);
 
-        return mapAccountToResponse(accountRepository.save(account));
+        Account saved;
+        try {
+            saved = accountRepository.save(account);
+        } catch (DuplicateKeyException e) {
+            throw new AccountAlreadyExistsException(request.id());
+        } catch (DbActionExecutionException e) {
+            if (e.getCause() instanceof DuplicateKeyException) {
+                throw new AccountAlreadyExistsException(request.id());
+            }
+            if (e.getCause() instanceof DataIntegrityViolationException
+                    && request.parentId() != null
+                    && !request.parentId().isEmpty()) {
+                // The parent was deleted on another node after it was checked.
+                throw new AccountNotFoundException(request.parentId());
+            }
+            throw e;
+        }
+        accountNumbers.assign(List.of(saved.id()));
+        accountSearchIndex.index(List.of(saved));
+        ledgerVersion.increment();
+        eventPublisher.publishEvent(new AccountCreatedEvent(saved));
+        return mapAccountToResponse(saved);
     }
 
-    public Page<DTO.AccountResponse> getAccounts(Pageable pageable) {
-        return accountRepository.findAll(pageable).map(this::mapAccountToResponse);
+    public Page<DTO.AccountResponse> getAccounts(AccountQueryDao.AccountFilter filter, Pageable pageable) {
+        List<DTO.AccountResponse> accounts =
+                accountQueryDao.findPage(filter, pageable.getPageSize(), pageable.getOffset()).stream()
+                        .map(this::mapAccountToResponse)
+                        .toList();
+        return new PageImpl<>(accounts, pageable, accountQueryDao.count(filter));
+    }
+
+    /** Keyset page by account id; {@code nextAfterId} is null once the last page has been returned. */
+    public DTO.AccountSlice getAccountsAfter(AccountQueryDao.AccountFilter filter, String afterId, int limit) {
+        List<Account> accounts = accountQueryDao.findAfter(filter, afterId, limit);
+        String nextAfterId = accounts.size() < limit ? null : accounts.get(accounts.size() - 1).id();
+        return new DTO.AccountSlice(accounts.stream().map(this::mapAccountToResponse).toList(), nextAfterId);
+    }
+
+    public List<DTO.AccountResponse> searchAccounts(String prefix, AccountType type, String currency, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Search prefix must not be blank");
+        }
+        List<String> ids = accountSearchIndex.search(
+                prefix.strip(),
+                accountId -> accountHierarchy
+                        .find(accountId)
+                        .map(node -> (type == null || node.type() == type)
+                                && (currency == null || node.currency().equals(currency)))
+                        .orElse(false),
+                limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Account> byId = accountRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Account::id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapAccountToResponse)
+                .toList();
     }
 
     @Transactional
     public void deleteAccount(String accountId) {
-        Account account =
-                accountRepository.findById(accountId).orElseThrow(() -> new AccountNotFoundException(accountId));
+        if (!accountHierarchy.contains(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
 
-        List<Account> childAccounts = accountRepository.findByParentAccountId(accountId);
-        if (!childAccounts.isEmpty()) {
+        if (accountHierarchy.hasChildren(accountId)) {
             throw new AccountDeletionException(
                     "Cannot delete account with child accounts. Remove child accounts first.");
         }
 
-        if (accountRepository.hasTransactions(accountId)) {
+        if (accountHierarchy.hasTransactions(accountId)) {
             throw new AccountDeletionException("Cannot delete account with transaction history.");
         }
 
         accountRepository.deleteById(accountId);
+        ledgerVersion.increment();
+        eventPublisher.publishEvent(new AccountDeletedEvent(accountId));
     }
 
     @Transactional
     public DTO.TransactionResponse postTransaction(DTO.TransactionRequest request) {
-        Optional<JournalEntry> existing = journalEntryRepository.findByIdempotencyKey(request.idempotencyKey());
+        return postTransaction(IdempotencyScope.TRANSACTION, request);
+    }
+
+    /** Posts with the request's idempotency key taken as a client key of {@code scope}. */
+    @Transactional
+    public DTO.TransactionResponse postTransaction(IdempotencyScope scope, DTO.TransactionRequest request) {
+        return metrics.timePosting(
+                scope.journalKey(request.idempotencyKey()), () -> doPostTransaction(scope, request, null));
+    }
+
+    /**
+     * Posts a journal dated {@code transactionDate} rather than now, such as a day's accrual dated at the end of that
+     * day. The date must lie in an open period and not in the future; balances as of earlier instants are unaffected.
+     */
+    @Transactional
+    public DTO.TransactionResponse postTransaction(
+            IdempotencyScope scope, DTO.TransactionRequest request, Instant transactionDate) {
+        if (transactionDate.isAfter(Instant.now())) {
+            throw new ValidationException("Cannot post with a future transaction date: " + transactionDate);
+        }
+        periodService.checkOpen(transactionDate);
+        return metrics.timePosting(
+                scope.journalKey(request.idempotencyKey()), () -> doPostTransaction(scope, request, transactionDate));
+    }
+
+    private DTO.TransactionResponse doPostTransaction(
+            IdempotencyScope scope, DTO.TransactionRequest request, Instant transactionDate) {
+        Optional<Long> existing = metrics.timePhase(
+                LedgerMetrics.Phase.IDEMPOTENCY_LOOKUP, () -> idempotencyStore.find(scope, request.idempotencyKey()));
         if (existing.isPresent()) {
-            throw new DuplicateTransactionKeyException("Duplicate idempotency key: " + request.idempotencyKey());
+            throw new DuplicateTransactionKeyException(
+                    scope.journalKey(request.idempotencyKey()) + " (transaction " + existing.get() + ")");
         }
 
         validateTransaction(request);
@@ -101,42 +247,58 @@ public class LedgerService {
                 .distinct()
                 .toList();
 
-        Map<String, Account> accounts = getAndLockAccounts(accountIds);
+        metrics.describePosting(accountIds, request.entries().size());
+        Map<String, Account> accounts =
+                metrics.timePhase(LedgerMetrics.Phase.ACCOUNT_LOAD, () -> getAndLockAccounts(accountIds));
 
         List<EntryLine> entryLines = new ArrayList<>();
-        Instant now = Instant.now();
-
-        for (DTO.EntryRequest entry : request.entries()) {
-            Account account = accounts.get(entry.accountId());
-            validateEntryAgainstAccount(entry, account);
-
-            BigDecimal balanceChange = calculateBalanceChange(account.accountType(), entry.debit(), entry.credit());
-
-            Account updatedAccount = account.withBalance(account.balance().add(balanceChange));
-
-            accountRepository.save(updatedAccount);
-
-            entryLines.add(new EntryLine(null, entry.accountId(), entry.debit(), entry.credit()));
-        }
+        Map<String, BigDecimal> netChanges = new LinkedHashMap<>();
+        Instant now = transactionDate == null ? commitWatermark.begin() : commitWatermark.begin(transactionDate);
+        Instant dated = transactionDate == null ? now : transactionDate;
+
+        metrics.timePhase(LedgerMetrics.Phase.BALANCE_UPDATE, () -> {
+            for (DTO.EntryRequest entry : request.entries()) {
+                Account account = accounts.get(entry.accountId());
+                validateEntryAgainstAccount(entry, account);
+
+                BigDecimal balanceChange =
+                        calculateBalanceChange(account.accountType(), entry.debit(), entry.credit());
+
+                netChanges.merge(entry.accountId(), balanceChange, BigDecimal::add);
+                entryLines.add(new EntryLine(
+                        idAllocator.nextLineId(),
+                        entry.accountId(),
+                        accountNumbers.numberOf(entry.accountId()).orElseThrow(),
+                        entry.debit(),
+                        entry.credit()));
+            }
+            // One versioned delta per account, however many lines it has in this journal.
+            journalWriter.applyBalanceChanges(accounts, netChanges);
+        });
 
         JournalEntry journalEntry = new JournalEntry(
-                null,
-                request.idempotencyKey(),
+                idAllocator.nextJournalId(),
+                scope.journalKey(request.idempotencyKey()),
                 request.description(),
-                now, // transaction date
+                dated, // transaction date
                 now, // posted at
                 "POSTED",
-                new HashSet<>(entryLines));
-
-        JournalEntry savedEntry = journalEntryRepository.save(journalEntry);
-        return mapTransactionToResponse(savedEntry);
+                new LinkedHashSet<>(entryLines));
+
+        metrics.timePhase(LedgerMetrics.Phase.JOURNAL_INSERT, () -> journalWriter.insert(journalEntry));
+        idempotencyStore.record(scope, request.idempotencyKey(), journalEntry.id(), now);
+        dailyMovements.add(LocalDate.ofInstant(dated, ZoneId.systemDefault()), entryLines);
+        transactionSearch.index(journalEntry);
+        ledgerVersion.increment();
+        metrics.timeCommit();
+        eventPublisher.publishEvent(new TransactionPostedEvent(journalEntry));
+        eventPublisher.publishEvent(new BalancesChangedEvent(journalEntry.id(), balanceChanges(accounts, netChanges)));
+        return mapTransactionToResponse(journalEntry);
     }
 
     @Transactional
     public DTO.TransactionResponse reverseTransaction(Long transactionId, String reversalIdempotencyKey) {
-        JournalEntry original = journalEntryRepository
-                .findById(transactionId)
-                .orElseThrow(() -> new TransactionNotFoundException(transactionId));
+        JournalEntry original = findJournalEntry(transactionId);
 
         if ("REVERSED".equals(original.status())) {
             throw new TransactionAlreadyReversedException(transactionId);
@@ -154,13 +316,22 @@ public class LedgerService {
     }
 
     public DTO.TransactionResponse getTransaction(Long transactionId) {
-        JournalEntry entry = journalEntryRepository
-                .findById(transactionId)
-                .orElseThrow(() -> new TransactionNotFoundException(transactionId));
-        return mapTransactionToResponse(entry);
+        return mapTransactionToResponse(findJournalEntry(transactionId));
+    }
+
+    public DTO.TransactionSlice searchTransactions(
+            String text, BigDecimal amount, Instant from, Instant to, Long beforeId, int limit) {
+        TransactionSearchIndex.Hits hits = transactionSearch.search(text, amount, from, to, beforeId, limit);
+        return new DTO.TransactionSlice(
+                hits.journals().stream().map(this::mapTransactionToResponse).toList(), hits.nextBeforeId());
     }
 
     public BigDecimal getAccountBalance(String accountId) {
+        OffHeapBalanceStore store = balanceStore.getIfAvailable();
+        Optional<BigDecimal> cached = store == null ? Optional.empty() : store.balance(accountId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
         Account account =
                 accountRepository.findById(accountId).orElseThrow(() -> new AccountNotFoundException(accountId));
         return account.balance();
@@ -170,11 +341,31 @@ public class LedgerService {
         if (!accountRepository.existsById(accountId)) {
             throw new AccountNotFoundException(accountId);
         }
-        return accountRepository.getBalanceAsOf(accountId, asOf);
+        return periodService.getBalanceAsOf(accountId, asOf);
     }
 
     // Helper Methods
-    private void validateAccountRequest(DTO.CreateAccountRequest request) {
+    private static List<BalancesChangedEvent.BalanceChange> balanceChanges(
+            Map<String, Account> before, Map<String, BigDecimal> netChanges) {
+        List<BalancesChangedEvent.BalanceChange> changes = new ArrayList<>(netChanges.size());
+        netChanges.forEach((accountId, net) -> {
+            Account account = before.get(accountId);
+            BigDecimal balance = account.balance();
+            // JournalWriter moves each account's version by exactly one per journal.
+            changes.add(new BalancesChangedEvent.BalanceChange(
+                    accountId, balance, balance.add(net), account.version() + 1L));
+        });
+        return changes;
+    }
+
+    private JournalEntry findJournalEntry(Long transactionId) {
+        return journalEntryRepository
+                .findById(transactionId)
+                .or(() -> periodService.findArchivedTransaction(transactionId))
+                .orElseThrow(() -> new TransactionNotFoundException(transactionId));
+    }
+
+    static void validateAccountRequest(DTO.CreateAccountRequest request) {
         if (request.id() == null || request.id().trim().isEmpty()) {
             throw new ValidationException("Account ID is required");
         }
@@ -194,7 +385,7 @@ public class LedgerService {
 
     private void validateEntryAgainstAccount(DTO.EntryRequest entry, Account account) {}
 
-    private void validateTransaction(DTO.TransactionRequest request) {
+    void validateTransaction(DTO.TransactionRequest request) {
         if (request.entries() == null || request.entries().isEmpty()) {
             throw new ValidationException("Transaction must have at least one entry");
         }
@@ -242,10 +433,6 @@ public class LedgerService {
         return accounts;
     }
 
-    private boolean isValidParentChildRelation(AccountType parentType, AccountType childType) {
-        return parentType == childType;
-    }
-
     private BigDecimal calculateBalanceChange(AccountType type, BigDecimal debit, BigDecimal credit) {
         BigDecimal net = debit.subtract(credit);
         return switch (type) {
@@ -1,20 +1,28 @@
 // [file name]: LoanService.java
 package com.pezesha.cbsledger.service;
 
+import com.pezesha.cbsledger.common.metrics.LedgerMetrics;
+import com.pezesha.cbsledger.domain.IdempotencyScope;
 import com.pezesha.cbsledger.dto.DTO;
 import java.math.BigDecimal;
 import java.util.List;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class LoanService {
 
     private final LedgerService ledgerService;
+    private final DelinquencyService delinquencyService;
+    private final LedgerMetrics metrics;
 
-    public LoanService(LedgerService ledgerService) {
+    public LoanService(LedgerService ledgerService, DelinquencyService delinquencyService, LedgerMetrics metrics) {
         this.ledgerService = ledgerService;
+        this.delinquencyService = delinquencyService;
+        this.metrics = metrics;
     }
 
+    @Transactional
     public DTO.TransactionResponse disburseLoan(
             String loanAccountId, String cashAccountId, BigDecimal principal, BigDecimal fee, String idempotencyKey) {
         // Journal Entry 1: Record loan receivable
@@ -22,12 +30,13 @@ public class LoanService {
                 new DTO.EntryRequest(loanAccountId, principal, BigDecimal.ZERO),
                 new DTO.EntryRequest(cashAccountId, BigDecimal.ZERO, principal));
 
-        DTO.TransactionRequest disbursementRequest = new DTO.TransactionRequest(
-                idempotencyKey + "-disbursement", "Loan disbursement - Principal", disbursementEntries);
+        DTO.TransactionRequest disbursementRequest =
+                new DTO.TransactionRequest(idempotencyKey, "Loan disbursement - Principal", disbursementEntries);
 
-        return ledgerService.postTransaction(disbursementRequest);
+        return post("disbursement", IdempotencyScope.DISBURSEMENT, loanAccountId, disbursementRequest);
     }
 
+    @Transactional
     public DTO.TransactionResponse recordRepayment(
             String cashAccountId,
             String loanAccountId,
@@ -40,12 +49,13 @@ public class LoanService {
                 new DTO.EntryRequest(loanAccountId, BigDecimal.ZERO, principal),
                 new DTO.EntryRequest(interestIncomeAccountId, BigDecimal.ZERO, interest));
 
-        DTO.TransactionRequest repaymentRequest = new DTO.TransactionRequest(
-                idempotencyKey + "-repayment", "Loan repayment with interest", repaymentEntries);
+        DTO.TransactionRequest repaymentRequest =
+                new DTO.TransactionRequest(idempotencyKey, "Loan repayment with interest", repaymentEntries);
 
-        return ledgerService.postTransaction(repaymentRequest);
+        return post("repayment", IdempotencyScope.REPAYMENT, loanAccountId, repaymentRequest);
     }
 
+    @Transactional
     public DTO.TransactionResponse writeOffLoan(
             String loanAccountId, String badDebtExpenseAccountId, BigDecimal amount, String idempotencyKey) {
         List<DTO.EntryRequest> writeOffEntries = List.of(
@@ -53,8 +63,17 @@ public class LoanService {
                 new DTO.EntryRequest(loanAccountId, BigDecimal.ZERO, amount));
 
         DTO.TransactionRequest writeOffRequest =
-                new DTO.TransactionRequest(idempotencyKey + "-writeoff", "Loan write-off", writeOffEntries);
+                new DTO.TransactionRequest(idempotencyKey, "Loan write-off", writeOffEntries);
 
-        return ledgerService.postTransaction(writeOffRequest);
+        return post("write_off", IdempotencyScope.WRITE_OFF, loanAccountId, writeOffRequest);
+    }
+
+    private DTO.TransactionResponse post(
+            String operation, IdempotencyScope scope, String loanAccountId, DTO.TransactionRequest request) {
+        return metrics.timeLoanOperation(operation, loanAccountId, () -> {
+            DTO.TransactionResponse response = ledgerService.postTransaction(scope, request);
+            delinquencyService.refresh(loanAccountId);
+            return response;
+        });
     }
 }
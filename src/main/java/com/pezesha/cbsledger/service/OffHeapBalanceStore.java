@@ -0,0 +1,261 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.BalanceStoreProperties;
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.event.AccountCreatedEvent;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.AccountsImportedEvent;
+import com.pezesha.cbsledger.domain.event.BalancesChangedEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Account balances held outside the Java heap in a memory-mapped file of fixed 32-byte records, addressed by a compact
+ * account ordinal: balance in minor units (scale 4), version, account type code and currency code. Balance reads never
+ * materialise an {@code Account}, so heap use stays flat as the number of borrower accounts grows.
+ *
+ * <p>The {@code accounts} table stays the system of record: posting still updates it under its optimistic lock, and
+ * each committed posting's resulting balance and row version are copied here afterwards. A record only ever moves to
+ * a higher version, so commits applied out of order, or racing the startup scan, leave the newest balance in place.
+ *
+ * <p>Only postings committed by this process reach the store, so it suits a single-node deployment. When the commit
+ * watermarks show another live node, balance reads go to the database instead, and the store is reloaded once this
+ * node is alone again; a node joining is noticed within one watermark interval.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.balance-store", name = "enabled", havingValue = "true")
+@Slf4j
+public class OffHeapBalanceStore {
+
+    private static final int RECORD_SIZE = 32;
+    private static final int BALANCE = 0;
+    private static final int VERSION = 8;
+    private static final int TYPE = 16;
+    private static final int CURRENCY = 20;
+    private static final int SCALE = 4;
+    private static final int EMPTY = -1;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CommitWatermark watermark;
+    private final BalanceStoreProperties properties;
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final Map<String, Integer> currencyCodes = new ConcurrentHashMap<>();
+    private final List<String> currencies = new ArrayList<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+    private final Object[] locks = new Object[64];
+    private final MappedByteBuffer records;
+    private volatile boolean ready;
+    private volatile boolean shared;
+
+    public OffHeapBalanceStore(
+            JdbcTemplate jdbcTemplate, CommitWatermark watermark, BalanceStoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermark = watermark;
+        this.properties = properties;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.records = map(properties);
+    }
+
+    public boolean isReady() {
+        return ready && !shared;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        jdbcTemplate.query("SELECT id, account_type, currency, balance, version FROM accounts", rs -> {
+            put(
+                    rs.getString("id"),
+                    AccountType.valueOf(rs.getString("account_type")),
+                    rs.getString("currency"),
+                    rs.getBigDecimal("balance"),
+                    rs.getLong("version"));
+        });
+        ready = true;
+        log.info("Loaded {} account balances into off-heap store", ordinals.size());
+    }
+
+    /** Stops serving while other nodes are live, and reloads once they are gone. */
+    @Scheduled(fixedDelayString = "${ledger.balance-cache.watermark-interval:1s}")
+    public void checkNodes() {
+        if (!ready) {
+            return;
+        }
+        if (!watermark.alone()) {
+            if (!shared) {
+                log.warn("Another node is posting; off-heap balances are bypassed until it has gone");
+                shared = true;
+            }
+        } else if (shared) {
+            load();
+            shared = false;
+            log.info("No other node is posting; off-heap balances are served again");
+        }
+    }
+
+    /** Current balance, or empty when the store is not loaded or does not hold the account. */
+    public Optional<BigDecimal> balance(String accountId) {
+        Integer ordinal = isReady() ? ordinals.get(accountId) : null;
+        if (ordinal == null) {
+            return Optional.empty();
+        }
+        long units = (long) LONGS.getVolatile(records, offset(ordinal) + BALANCE);
+        return Optional.of(BigDecimal.valueOf(units, SCALE));
+    }
+
+    public OptionalLong version(String accountId) {
+        Integer ordinal = isReady() ? ordinals.get(accountId) : null;
+        return ordinal == null
+                ? OptionalLong.empty()
+                : OptionalLong.of((long) LONGS.getVolatile(records, offset(ordinal) + VERSION));
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+
+    @TransactionalEventListener
+    public void onBalancesChanged(BalancesChangedEvent event) {
+        for (BalancesChangedEvent.BalanceChange change : event.changes()) {
+            Integer ordinal = ordinals.get(change.accountId());
+            if (ordinal != null) {
+                apply(offset(ordinal), change.after(), change.version());
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountCreated(AccountCreatedEvent event) {
+        put(
+                event.account().id(),
+                event.account().accountType(),
+                event.account().currency(),
+                event.account().balance(),
+                event.account().version() == null ? 0 : event.account().version());
+    }
+
+    @TransactionalEventListener
+    public void onAccountsImported(AccountsImportedEvent event) {
+        for (Account account : event.accounts()) {
+            put(account.id(), account.accountType(), account.currency(), account.balance(), account.version());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        Integer ordinal = ordinals.remove(event.accountId());
+        if (ordinal != null) {
+            INTS.setVolatile(records, offset(ordinal) + TYPE, EMPTY);
+        }
+    }
+
+    /** Writes the balance if {@code version} is newer than the record's; the stripe lock keeps the pair together. */
+    private void apply(int base, BigDecimal balance, long version) {
+        synchronized (locks[(base / RECORD_SIZE) % locks.length]) {
+            if (version > (long) LONGS.getVolatile(records, base + VERSION)) {
+                LONGS.setVolatile(records, base + BALANCE, toUnits(balance));
+                LONGS.setVolatile(records, base + VERSION, version);
+            }
+        }
+    }
+
+    private void put(String accountId, AccountType type, String currency, BigDecimal balance, long version) {
+        boolean[] created = new boolean[1];
+        Integer ordinal = ordinals.computeIfAbsent(accountId, id -> {
+            int next = nextOrdinal.getAndIncrement();
+            if (next >= properties.capacity()) {
+                return null;
+            }
+            created[0] = true;
+            return next;
+        });
+        if (ordinal == null) {
+            log.warn(
+                    "Off-heap balance store is full ({} records); {} is served from the database",
+                    properties.capacity(),
+                    accountId);
+            return;
+        }
+        int base = offset(ordinal);
+        BigDecimal amount = balance == null ? BigDecimal.ZERO : balance;
+        if (created[0]) {
+            INTS.setVolatile(records, base + TYPE, type.ordinal());
+            INTS.setVolatile(records, base + CURRENCY, currencyCode(currency));
+        }
+        // A fresh record reads version 0, so a posting applied since it was claimed is not overwritten.
+        synchronized (locks[ordinal % locks.length]) {
+            if (version >= (long) LONGS.getVolatile(records, base + VERSION)) {
+                LONGS.setVolatile(records, base + BALANCE, toUnits(amount));
+                LONGS.setVolatile(records, base + VERSION, version);
+            }
+        }
+    }
+
+    private int currencyCode(String currency) {
+        return currencyCodes.computeIfAbsent(currency, c -> {
+            synchronized (currencies) {
+                currencies.add(c);
+                return currencies.size() - 1;
+            }
+        });
+    }
+
+    private static int offset(int ordinal) {
+        return ordinal * RECORD_SIZE;
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static MappedByteBuffer map(BalanceStoreProperties properties) {
+        long size = (long) properties.capacity() * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("ledger.balance-store.capacity is too large: " + properties.capacity());
+        }
+        try {
+            Path path = properties.path();
+            if (path == null) {
+                path = Files.createTempFile("cbs-ledger-balances", ".dat");
+                path.toFile().deleteOnExit();
+            }
+            try (FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                // A file left by an earlier run holds versions the rebuild must not be compared against.
+                for (int offset = 0; offset < size; offset += Long.BYTES) {
+                    LONGS.set(records, offset, 0L);
+                }
+                return records;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map off-heap balance store", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.domain.AccountingPeriod;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.PeriodDao;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Closes accounting periods and answers point-in-time balance questions around them. Only the period that contains
+ * the requested instant is ever scanned; everything before it comes from the stored closing balances.
+ *
+ * <p>The last closed period is read from the database each time (one row) rather than remembered, since any node may
+ * close one. Backdated postings and closes are serialized through {@code period_close_locks}: a posting locks one slot
+ * before checking its period is open, and a close locks them all before archiving anything.
+ */
+@Service
+@Slf4j
+public class PeriodService {
+
+    private final PeriodDao periodDao;
+    private final AccountNumberRegistry accountNumbers;
+    private final HistoricalBalanceCache historicalBalances;
+
+    public PeriodService(
+            PeriodDao periodDao, AccountNumberRegistry accountNumbers, HistoricalBalanceCache historicalBalances) {
+        this.periodDao = periodDao;
+        this.accountNumbers = accountNumbers;
+        this.historicalBalances = historicalBalances;
+    }
+
+    public List<AccountingPeriod> getPeriods() {
+        return periodDao.findPeriods();
+    }
+
+    /** Start of the active (unarchived) tables, or {@code null} when no period has been closed yet. */
+    public Instant getArchiveBoundary() {
+        return periodDao.findLastClosedPeriod().map(AccountingPeriod::endInstant).orElse(null);
+    }
+
+    /**
+     * Rejects a posting dated in a closed period. Runs in the posting's transaction and keeps a close from starting
+     * until that transaction ends, so a period cannot be closed between this check and the posting's commit.
+     */
+    public void checkOpen(Instant transactionDate) {
+        periodDao.lockCloseSlot(ThreadLocalRandom.current().nextInt(PeriodDao.CLOSE_LOCK_SLOTS));
+        Instant archiveBoundary = getArchiveBoundary();
+        if (archiveBoundary != null && transactionDate.isBefore(archiveBoundary)) {
+            throw new IllegalStateException("Cannot post into a closed period: " + transactionDate);
+        }
+    }
+
+    @Transactional
+    public synchronized DTO.PeriodCloseResponse closePeriod(YearMonth month) {
+        AccountingPeriod period = AccountingPeriod.of(month);
+        periodDao.lockAllCloseSlots();
+        Optional<AccountingPeriod> lastClosed = periodDao.findLastClosedPeriod();
+
+        if (lastClosed.isPresent() && !period.periodStart().isAfter(lastClosed.get().periodStart())) {
+            throw new IllegalStateException("Period " + month + " is already closed");
+        }
+        if (period.endInstant().isAfter(Instant.now())) {
+            throw new IllegalArgumentException("Period " + month + " has not ended yet");
+        }
+        if (periodDao.hasActiveTransactionsBefore(period.startInstant())) {
+            throw new IllegalStateException("Close earlier periods before " + month);
+        }
+
+        List<PeriodDao.PeriodMovement> movements =
+                periodDao.findActiveMovements(period.startInstant(), period.endInstant());
+        Map<String, BigDecimal> opening = periodDao.findLatestClosingBalances();
+        periodDao.insertClosingBalances(period, movements, opening);
+
+        int archived = periodDao.archive(period);
+        Instant closedAt = Instant.now();
+        periodDao.markClosed(period, closedAt);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                historicalBalances.invalidateAll();
+            }
+        });
+        log.info("Closed period {}: {} journals archived, {} accounts carried", month, archived, movements.size());
+
+        return new DTO.PeriodCloseResponse(
+                period.periodStart(), period.periodEnd(), archived, movements.size(), closedAt);
+    }
+
+    /**
+     * Balance of an account at {@code asOf}: the closing balance of the last period before it, plus the lines of the
+     * one period (archived or active) that contains it. Settled instants are answered from
+     * {@link HistoricalBalanceCache} after the first read.
+     */
+    public BigDecimal getBalanceAsOf(String accountId, Instant asOf) {
+        return historicalBalances.get(accountId, asOf, () -> computeBalanceAsOf(accountId, asOf));
+    }
+
+    /** Recomputed if a period was closed meanwhile, since the close may have moved the lines it was summing. */
+    private BigDecimal computeBalanceAsOf(String accountId, Instant asOf) {
+        Optional<AccountingPeriod> lastClosed = periodDao.findLastClosedPeriod();
+        while (true) {
+            BigDecimal balance = computeBalanceAsOf(accountId, asOf, lastClosed);
+            Optional<AccountingPeriod> after = periodDao.findLastClosedPeriod();
+            if (after.equals(lastClosed)) {
+                return balance;
+            }
+            lastClosed = after;
+        }
+    }
+
+    private BigDecimal computeBalanceAsOf(String accountId, Instant asOf, Optional<AccountingPeriod> lastClosed) {
+        if (lastClosed.isEmpty() || !asOf.isBefore(lastClosed.get().endInstant())) {
+            BigDecimal opening = lastClosed
+                    .map(period -> periodDao.findClosingBalance(accountId, period.periodEnd()))
+                    .orElse(BigDecimal.ZERO);
+            return opening.add(periodDao.sumActiveMovement(accountNumbers.lineAccount(accountId), asOf));
+        }
+
+        LocalDate periodStart = AccountingPeriod.startOf(asOf);
+        BigDecimal opening = periodDao.findClosingBalance(accountId, periodStart);
+        return opening.add(
+                periodDao.sumArchivedMovement(accountNumbers.lineAccount(accountId), periodStart, asOf));
+    }
+
+    public Optional<JournalEntry> findArchivedTransaction(Long transactionId) {
+        return getArchiveBoundary() == null ? Optional.empty() : periodDao.findArchivedJournal(transactionId);
+    }
+}
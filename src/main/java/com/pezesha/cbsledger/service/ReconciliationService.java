@@ -0,0 +1,332 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.ReconciliationProperties;
+import com.pezesha.cbsledger.common.exception.AccountNotFoundException;
+import com.pezesha.cbsledger.domain.MatchStatus;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.ReconciliationDao;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reconciles a bank or mobile-money statement against the ledger lines of one cash account. The ledger side of the
+ * statement window is loaded once into two indexes, a hash by reference (journal idempotency key) and a sorted one by
+ * amount and then date; the statement is then read a row at a time and each row probed against them, so memory grows
+ * with the window and not with the file. A paired line leaves the amount index, so a probe only ever visits lines
+ * still open within the tolerances. Every outcome is handed to the caller as soon as it is known.
+ *
+ * <p>Statement files are CSV with a header naming at least {@code date}, {@code reference} and {@code amount};
+ * amounts are signed from the account's side, money in positive.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private static final class LedgerEntry {
+        final ReconciliationDao.LedgerLine line;
+        boolean paired;
+
+        LedgerEntry(ReconciliationDao.LedgerLine line) {
+            this.line = line;
+        }
+    }
+
+    private record Rules(BigDecimal amountTolerance, int dateToleranceDays) {}
+
+    private record Columns(int date, int reference, int amount) {}
+
+    private final ReconciliationDao reconciliationDao;
+    private final AccountHierarchyCache accountHierarchy;
+    private final AccountNumberRegistry accountNumbers;
+    private final ReconciliationProperties properties;
+
+    public ReconciliationService(
+            ReconciliationDao reconciliationDao,
+            AccountHierarchyCache accountHierarchy,
+            AccountNumberRegistry accountNumbers,
+            ReconciliationProperties properties) {
+        this.reconciliationDao = reconciliationDao;
+        this.accountHierarchy = accountHierarchy;
+        this.accountNumbers = accountNumbers;
+        this.properties = properties;
+    }
+
+    /**
+     * Streams {@code statement} through the join, passing every statement row and then every unpaired ledger line to
+     * {@code sink}. Argument and header errors are thrown before anything reaches the sink.
+     */
+    public DTO.ReconciliationSummary reconcile(
+            DTO.ReconciliationRequest request, Reader statement, Consumer<DTO.ReconciliationItem> sink) {
+        if (request.accountId() == null || request.from() == null || request.to() == null) {
+            throw new IllegalArgumentException("accountId, from and to are required");
+        }
+        if (!accountHierarchy.contains(request.accountId())) {
+            throw new AccountNotFoundException(request.accountId());
+        }
+        if (request.from().isAfter(request.to())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(request.from(), request.to()) >= properties.maxWindowDays()) {
+            throw new IllegalArgumentException(
+                    "Statement window is limited to " + properties.maxWindowDays() + " days");
+        }
+        Rules rules = new Rules(
+                request.amountTolerance() == null
+                        ? properties.amountTolerance()
+                        : request.amountTolerance().abs(),
+                request.dateToleranceDays() == null
+                        ? properties.dateToleranceDays()
+                        : Math.max(0, request.dateToleranceDays()));
+
+        BufferedReader reader = new BufferedReader(statement, 1 << 16);
+        Columns columns = readHeader(reader);
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        Map<String, List<LedgerEntry>> byReference = new HashMap<>();
+        TreeMap<Long, TreeMap<LocalDate, ArrayDeque<LedgerEntry>>> byAmount = new TreeMap<>();
+        ZoneId zone = ZoneId.systemDefault();
+        reconciliationDao.streamLines(
+                accountNumbers.lineAccount(request.accountId()),
+                request.from().minusDays(rules.dateToleranceDays()).atStartOfDay(zone).toInstant(),
+                request.to().plusDays(rules.dateToleranceDays() + 1L).atStartOfDay(zone).toInstant(),
+                line -> {
+                    LedgerEntry entry = new LedgerEntry(line);
+                    entries.add(entry);
+                    byReference.computeIfAbsent(line.reference(), r -> new ArrayList<>(1)).add(entry);
+                    byAmount.computeIfAbsent(amountKey(line.amount()), a -> new TreeMap<>())
+                            .computeIfAbsent(line.date(), d -> new ArrayDeque<>(1))
+                            .add(entry);
+                });
+
+        long[] counts = new long[MatchStatus.values().length];
+        long lineNo = 1;
+        try {
+            String row;
+            while ((row = reader.readLine()) != null) {
+                lineNo++;
+                if (row.isBlank()) {
+                    continue;
+                }
+                DTO.ReconciliationItem item = match(lineNo, row, columns, rules, byReference, byAmount);
+                counts[item.status().ordinal()]++;
+                sink.accept(item);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (LedgerEntry entry : entries) {
+            if (!entry.paired) {
+                counts[MatchStatus.UNMATCHED_LEDGER.ordinal()]++;
+                sink.accept(new DTO.ReconciliationItem(
+                        MatchStatus.UNMATCHED_LEDGER,
+                        null,
+                        entry.line.reference(),
+                        null,
+                        null,
+                        entry.line.journalEntryId(),
+                        entry.line.date(),
+                        entry.line.amount(),
+                        null));
+            }
+        }
+
+        long statementRows = Arrays.stream(counts).sum() - counts[MatchStatus.UNMATCHED_LEDGER.ordinal()];
+        log.info(
+                "Reconciled {} statement rows against {} ledger lines on {}",
+                statementRows,
+                entries.size(),
+                request.accountId());
+        return new DTO.ReconciliationSummary(
+                request.accountId(),
+                request.from(),
+                request.to(),
+                statementRows,
+                entries.size(),
+                counts[MatchStatus.MATCHED.ordinal()],
+                counts[MatchStatus.PARTIAL.ordinal()],
+                counts[MatchStatus.UNMATCHED_STATEMENT.ordinal()],
+                counts[MatchStatus.UNMATCHED_LEDGER.ordinal()],
+                counts[MatchStatus.INVALID.ordinal()]);
+    }
+
+    private DTO.ReconciliationItem match(
+            long lineNo,
+            String row,
+            Columns columns,
+            Rules rules,
+            Map<String, List<LedgerEntry>> byReference,
+            TreeMap<Long, TreeMap<LocalDate, ArrayDeque<LedgerEntry>>> byAmount) {
+        List<String> fields = Csv.split(row);
+        String reference;
+        LocalDate date;
+        BigDecimal amount;
+        try {
+            reference = fields.get(columns.reference());
+            String rawDate = fields.get(columns.date());
+            date = LocalDate.parse(rawDate.length() > 10 ? rawDate.substring(0, 10) : rawDate);
+            amount = new BigDecimal(fields.get(columns.amount()).replace(",", ""));
+        } catch (RuntimeException e) {
+            return item(MatchStatus.INVALID, lineNo, null, null, null, null, "Unreadable row: " + e.getMessage());
+        }
+
+        // Reference first: the best unpaired line under it, preferring one within both tolerances.
+        LedgerEntry best = null;
+        for (LedgerEntry candidate : byReference.getOrDefault(reference, List.of())) {
+            if (candidate.paired) {
+                continue;
+            }
+            if (withinTolerance(candidate, amount, date, rules)) {
+                best = candidate;
+                break;
+            }
+            if (best == null) {
+                best = candidate;
+            }
+        }
+        if (best != null) {
+            pair(best, byAmount);
+            boolean matched = withinTolerance(best, amount, date, rules);
+            return item(
+                    matched ? MatchStatus.MATCHED : MatchStatus.PARTIAL,
+                    lineNo,
+                    reference,
+                    date,
+                    amount,
+                    best,
+                    matched ? null : difference(best, amount, date));
+        }
+
+        // Then amount and date alone, within both tolerances, taking the closest date and then the closest amount.
+        long key = amountKey(amount);
+        long toleranceCents = amountKey(rules.amountTolerance());
+        long bestDays = Long.MAX_VALUE;
+        for (TreeMap<LocalDate, ArrayDeque<LedgerEntry>> byDate :
+                byAmount.subMap(key - toleranceCents, true, key + toleranceCents, true).values()) {
+            LedgerEntry candidate = closest(byDate, date);
+            long days = Math.abs(ChronoUnit.DAYS.between(candidate.line.date(), date));
+            if (days <= rules.dateToleranceDays()
+                    && (days < bestDays
+                            || days == bestDays && gap(candidate, amount).compareTo(gap(best, amount)) < 0)) {
+                best = candidate;
+                bestDays = days;
+            }
+        }
+        if (best != null) {
+            pair(best, byAmount);
+            String note = difference(best, amount, date);
+            return item(
+                    MatchStatus.PARTIAL,
+                    lineNo,
+                    reference,
+                    date,
+                    amount,
+                    best,
+                    note.isEmpty() ? "Reference differs" : "Reference differs; " + note);
+        }
+        return item(MatchStatus.UNMATCHED_STATEMENT, lineNo, reference, date, amount, null, null);
+    }
+
+    /** The first open line on the date nearest {@code date}, the earlier one on a tie. */
+    private static LedgerEntry closest(TreeMap<LocalDate, ArrayDeque<LedgerEntry>> byDate, LocalDate date) {
+        Map.Entry<LocalDate, ArrayDeque<LedgerEntry>> floor = byDate.floorEntry(date);
+        Map.Entry<LocalDate, ArrayDeque<LedgerEntry>> ceiling = byDate.ceilingEntry(date);
+        if (floor == null
+                || ceiling != null
+                        && ChronoUnit.DAYS.between(date, ceiling.getKey())
+                                < ChronoUnit.DAYS.between(floor.getKey(), date)) {
+            return ceiling.getValue().peekFirst();
+        }
+        return floor.getValue().peekFirst();
+    }
+
+    /** Marks {@code entry} paired and takes it out of the amount index, dropping buckets it leaves empty. */
+    private static void pair(LedgerEntry entry, TreeMap<Long, TreeMap<LocalDate, ArrayDeque<LedgerEntry>>> byAmount) {
+        entry.paired = true;
+        long key = amountKey(entry.line.amount());
+        TreeMap<LocalDate, ArrayDeque<LedgerEntry>> byDate = byAmount.get(key);
+        ArrayDeque<LedgerEntry> sameDate = byDate.get(entry.line.date());
+        sameDate.remove(entry);
+        if (sameDate.isEmpty()) {
+            byDate.remove(entry.line.date());
+            if (byDate.isEmpty()) {
+                byAmount.remove(key);
+            }
+        }
+    }
+
+    private static boolean withinTolerance(LedgerEntry entry, BigDecimal amount, LocalDate date, Rules rules) {
+        return gap(entry, amount).compareTo(rules.amountTolerance()) <= 0
+                && Math.abs(ChronoUnit.DAYS.between(entry.line.date(), date)) <= rules.dateToleranceDays();
+    }
+
+    private static BigDecimal gap(LedgerEntry entry, BigDecimal amount) {
+        return entry.line.amount().subtract(amount).abs();
+    }
+
+    private static String difference(LedgerEntry entry, BigDecimal amount, LocalDate date) {
+        List<String> notes = new ArrayList<>(2);
+        BigDecimal amountDiff = amount.subtract(entry.line.amount());
+        if (amountDiff.signum() != 0) {
+            notes.add("amount differs by " + amountDiff.stripTrailingZeros().toPlainString());
+        }
+        long days = ChronoUnit.DAYS.between(entry.line.date(), date);
+        if (days != 0) {
+            notes.add("date differs by " + days + " days");
+        }
+        return String.join("; ", notes);
+    }
+
+    private static DTO.ReconciliationItem item(
+            MatchStatus status,
+            long lineNo,
+            String reference,
+            LocalDate date,
+            BigDecimal amount,
+            LedgerEntry entry,
+            String note) {
+        return new DTO.ReconciliationItem(
+                status,
+                lineNo,
+                reference,
+                date,
+                amount,
+                entry == null ? null : entry.line.journalEntryId(),
+                entry == null ? null : entry.line.date(),
+                entry == null ? null : entry.line.amount(),
+                note);
+    }
+
+    /** Amount in cents, so that 100, 100.0 and 100.00 share a hash bucket. */
+    private static long amountKey(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static Columns readHeader(BufferedReader reader) {
+        String header;
+        try {
+            header = reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (header == null) {
+            throw new IllegalArgumentException("Statement is empty");
+        }
+        List<String> names = Csv.header(header);
+        if (!names.containsAll(List.of("date", "reference", "amount"))) {
+            throw new IllegalArgumentException("Statement header must name date, reference and amount columns");
+        }
+        return new Columns(names.indexOf("date"), names.indexOf("reference"), names.indexOf("amount"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.BalanceCacheProperties;
+import com.pezesha.cbsledger.common.config.ReportJobProperties;
+import com.pezesha.cbsledger.common.exception.ReportJobNotFoundException;
+import com.pezesha.cbsledger.domain.ReportType;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.ReportJobDao;
+import com.pezesha.cbsledger.repository.ReportingDao;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Runs the heavy reports off the web threads. Jobs are computed on a small fixed pool with a bounded queue, and each
+ * result is stored gzip-compressed next to the ledger version the reporting pool showed just before computing it (its
+ * high-water mark). A request for a report and parameters that already has a queued, running or finished job at the
+ * current version gets that job back instead of a new one; once anything is posted or an account changes, on any node,
+ * the version moves and the next request computes afresh.
+ *
+ * <p>Each job records the node running it. Jobs left unfinished by a node that stopped publishing its commit watermark
+ * are failed, on startup and periodically, by whichever node notices first.
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    private static final String DATE_PARAMETER = "date";
+
+    private final ReportJobDao reportJobDao;
+    private final ReportingDao reportingDao;
+    private final ReportingService reportingService;
+    private final CommitWatermark commitWatermark;
+    private final BalanceCacheProperties balanceCacheProperties;
+    private final JsonMapper jsonMapper;
+    private final ReportJobProperties properties;
+    private final ThreadPoolExecutor workers;
+
+    public ReportJobService(
+            ReportJobDao reportJobDao,
+            ReportingDao reportingDao,
+            @Lazy ReportingService reportingService,
+            CommitWatermark commitWatermark,
+            BalanceCacheProperties balanceCacheProperties,
+            JsonMapper jsonMapper,
+            ReportJobProperties properties) {
+        this.reportJobDao = reportJobDao;
+        this.reportingDao = reportingDao;
+        this.reportingService = reportingService;
+        this.commitWatermark = commitWatermark;
+        this.balanceCacheProperties = balanceCacheProperties;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                properties.workers(),
+                properties.workers(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ledger.report-jobs.recover-interval:1m}")
+    public void recover() {
+        Instant now = Instant.now();
+        int interrupted = reportJobDao.failOrphaned(
+                commitWatermark.nodeId(), now.minus(balanceCacheProperties.watermarkExpiry()), now);
+        if (interrupted > 0) {
+            log.warn("Marked {} report jobs of nodes no longer running as failed", interrupted);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    public synchronized DTO.ReportJobResponse submit(DTO.ReportJobRequest request) {
+        ReportType reportType = request.reportType();
+        Map<String, String> parameters = resolveParameters(reportType, request.parameters());
+        String canonical = parameters.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("&"));
+        String cacheKey = reportType + "?" + canonical + (reportType.dateSensitive() ? "@" + LocalDate.now() : "");
+        long highWaterMark = reportingDao.findLedgerVersion();
+
+        Optional<DTO.ReportJobResponse> reusable = reportJobDao.findReusable(cacheKey, highWaterMark);
+        if (reusable.isPresent()) {
+            return reusable.get();
+        }
+
+        long id = reportJobDao.insert(
+                reportType, canonical, cacheKey, highWaterMark, commitWatermark.nodeId(), Instant.now());
+        try {
+            workers.execute(() -> run(id, reportType, parameters));
+        } catch (RejectedExecutionException e) {
+            reportJobDao.fail(id, "Report queue full", Instant.now());
+            throw new IllegalStateException("Report queue is full, retry later");
+        }
+        return get(id);
+    }
+
+    public DTO.ReportJobResponse get(Long id) {
+        return reportJobDao.find(id).orElseThrow(() -> new ReportJobNotFoundException(id));
+    }
+
+    /** The finished report as JSON; gzip-compressed as stored when {@code gzip} is set, otherwise inflated. */
+    public byte[] getResult(Long id, boolean gzip) {
+        Optional<byte[]> result = reportJobDao.findResult(id);
+        if (result.isEmpty()) {
+            DTO.ReportJobResponse job = get(id);
+            throw new IllegalStateException("Report job " + id + " is " + job.status());
+        }
+        return gzip ? result.get() : inflate(result.get());
+    }
+
+    @Scheduled(cron = "${ledger.report-jobs.cleanup-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        int purged = reportJobDao.deleteFinishedBefore(Instant.now().minus(properties.retention()));
+        if (purged > 0) {
+            log.info("Purged {} expired report jobs", purged);
+        }
+    }
+
+    private void run(long id, ReportType reportType, Map<String, String> parameters) {
+        reportJobDao.markRunning(id, reportingDao.findLedgerVersion());
+        try {
+            byte[] result = deflate(compute(reportType, parameters));
+            reportJobDao.complete(id, result, Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Report job {} ({}) failed", id, reportType, e);
+            reportJobDao.fail(id, e.getMessage(), Instant.now());
+        }
+    }
+
+    private Object compute(ReportType reportType, Map<String, String> parameters) {
+        return switch (reportType) {
+            case TRIAL_BALANCE -> reportingService.getTrialBalance();
+            case BALANCE_SHEET -> reportingService.getBalanceSheet();
+            case LOAN_AGING -> reportingService.getLoanAgingReport();
+            case LOAN_AGING_SUMMARY -> reportingService.getLoanAgingSummary();
+            case LOAN_BUCKET_MOVEMENTS ->
+                reportingService.getLoanBucketMovements(LocalDate.parse(parameters.get(DATE_PARAMETER)));
+        };
+    }
+
+    /** Validates the parameters and fills in defaults, sorted so equal requests produce the same cache key. */
+    private static Map<String, String> resolveParameters(ReportType reportType, Map<String, String> requested) {
+        Map<String, String> parameters = new TreeMap<>(requested == null ? Map.of() : requested);
+        if (reportType == ReportType.LOAN_BUCKET_MOVEMENTS) {
+            String date = parameters.getOrDefault(DATE_PARAMETER, LocalDate.now().toString());
+            try {
+                parameters.put(DATE_PARAMETER, LocalDate.parse(date).toString());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("date must be an ISO date (yyyy-MM-dd): " + date);
+            }
+        }
+        Set<String> unknown = new TreeSet<>(parameters.keySet());
+        unknown.remove(reportType == ReportType.LOAN_BUCKET_MOVEMENTS ? DATE_PARAMETER : "");
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameters for " + reportType + ": " + unknown);
+        }
+        return parameters;
+    }
+
+    private byte[] deflate(Object report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            jsonMapper.writeValue(gzip, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] gzipped) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -4,15 +4,19 @@ package com.pezesha.cbsledger.service;
 import com.pezesha.cbsledger.domain.JournalEntry;
 import com.pezesha.cbsledger.dto.DTO;
 import com.pezesha.cbsledger.repository.AccountRepository;
+import com.pezesha.cbsledger.repository.DelinquencyDao;
+import com.pezesha.cbsledger.repository.LineAccount;
 import com.pezesha.cbsledger.repository.ReportingDao;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,30 +26,48 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class ReportingService {
 
+    private static final int AGING_LOANS_PER_BUCKET = 1_000;
+
     private final ReportingDao reportingDao;
     private final AccountRepository accountRepository;
     private final LedgerService ledgerService;
+    private final PeriodService periodService;
+    private final DelinquencyService delinquencyService;
+    private final AccountNumberRegistry accountNumbers;
+    private final ObjectProvider<LedgerColumnStore> columnStore;
 
     public ReportingService(
-            ReportingDao reportingDao, AccountRepository accountRepository, LedgerService ledgerService) {
+            ReportingDao reportingDao,
+            AccountRepository accountRepository,
+            LedgerService ledgerService,
+            PeriodService periodService,
+            DelinquencyService delinquencyService,
+            AccountNumberRegistry accountNumbers,
+            ObjectProvider<LedgerColumnStore> columnStore) {
         this.reportingDao = reportingDao;
         this.accountRepository = accountRepository;
         this.ledgerService = ledgerService;
+        this.periodService = periodService;
+        this.delinquencyService = delinquencyService;
+        this.accountNumbers = accountNumbers;
+        this.columnStore = columnStore;
     }
 
     public BigDecimal getAccountBalance(String accountId, Instant asOf) {
         return (asOf == null)
                 ? accountRepository.findById(accountId).map(a -> a.balance()).orElse(BigDecimal.ZERO)
-                : accountRepository.getBalanceAsOf(accountId, asOf);
+                : periodService.getBalanceAsOf(accountId, asOf);
     }
 
     public Page<DTO.TransactionResponse> getTransactionHistory(
             String accountId, Instant start, Instant end, Pageable pageable) {
-        Long total = reportingDao.countTransactions(accountId, start, end);
+        Instant archivedBefore = periodService.getArchiveBoundary();
+        LineAccount account = accountId == null ? null : accountNumbers.lineAccount(accountId);
+        Long total = reportingDao.countTransactions(account, start, end, archivedBefore);
         if (total == null || total == 0) return Page.empty(pageable);
 
         List<JournalEntry> entries = reportingDao.findTransactionsPaginated(
-                accountId, start, end, pageable.getPageSize(), pageable.getOffset());
+                account, start, end, archivedBefore, pageable.getPageSize(), pageable.getOffset());
 
         log.info("Transactions: {}", entries);
 
@@ -56,7 +78,9 @@ public class ReportingService {
     }
 
     public Map<String, Object> getTrialBalance() {
-        List<Map<String, Object>> results = reportingDao.getTrialBalanceData();
+        LedgerColumnStore store = readyColumnStore();
+        List<Map<String, Object>> results =
+                store != null ? store.trialBalanceRows() : reportingDao.getTrialBalanceData();
 
         BigDecimal totalDebits = BigDecimal.ZERO;
         BigDecimal totalCredits = BigDecimal.ZERO;
@@ -80,7 +104,9 @@ public class ReportingService {
     }
 
     public Map<String, Object> getBalanceSheet() {
-        List<Map<String, Object>> accounts = reportingDao.getBalanceSheetData();
+        LedgerColumnStore store = readyColumnStore();
+        List<Map<String, Object>> accounts =
+                store != null ? store.balanceSheetRows() : reportingDao.getBalanceSheetData();
 
         BigDecimal totalAssets = BigDecimal.ZERO;
         BigDecimal totalLiabilities = BigDecimal.ZERO;
@@ -128,82 +154,124 @@ public class ReportingService {
         return balanceSheet;
     }
 
-    public List<Map<String, Object>> getLoanAgingReport() {
-        // 1. Fetch data from repository (DAO layer)
-        List<DTO.LoanAgingDTO> loanData = reportingDao.findLoanAgingData();
-
-        // 2. Business logic: Categorize loans into buckets
-        return categorizeLoansByAging(loanData);
-    }
-
-    private List<Map<String, Object>> categorizeLoansByAging(List<DTO.LoanAgingDTO> loanData) {
-        // Initialize buckets
-        Map<String, Map<String, Object>> buckets = new LinkedHashMap<>();
-        String[] bucketNames = {"Current (0-29 days)", "30-59 days", "60-89 days", "90+ days"};
-
-        for (String bucket : bucketNames) {
-            Map<String, Object> bucketData = new HashMap<>();
-            bucketData.put("bucket", bucket);
-            bucketData.put("loan_count", 0);
-            bucketData.put("total_outstanding", BigDecimal.ZERO);
-            bucketData.put("loans", new ArrayList<Map<String, Object>>());
-            buckets.put(bucket, bucketData);
+    /** Income, expenses and net income for the days {@code from} to {@code to}, both inclusive. */
+    public Map<String, Object> getIncomeStatement(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
         }
 
-        LocalDate today = LocalDate.now();
-
-        // Business logic: Determine bucket for each loan
-        for (DTO.LoanAgingDTO loan : loanData) {
-            LocalDate dueDate = loan.dueDate().atZone(ZoneId.systemDefault()).toLocalDate();
-            long daysOverdue = ChronoUnit.DAYS.between(dueDate, today);
-
-            String bucket = determineAgingBucket(daysOverdue);
-
-            // Update bucket data
-            Map<String, Object> bucketData = buckets.get(bucket);
-            updateBucketWithLoan(bucketData, loan);
+        List<Map<String, Object>> income = new ArrayList<>();
+        List<Map<String, Object>> expenses = new ArrayList<>();
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        BigDecimal totalExpenses = BigDecimal.ZERO;
+
+        for (Map<String, Object> row : reportingDao.getIncomeStatementData(from, to)) {
+            BigDecimal debits = (BigDecimal) row.get("debit_total");
+            BigDecimal credits = (BigDecimal) row.get("credit_total");
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("accountId", row.get("account_id"));
+            line.put("name", row.get("name"));
+
+            if ("INCOME".equals(row.get("account_type"))) {
+                BigDecimal amount = credits.subtract(debits);
+                line.put("amount", amount);
+                income.add(line);
+                totalIncome = totalIncome.add(amount);
+            } else {
+                BigDecimal amount = debits.subtract(credits);
+                line.put("amount", amount);
+                expenses.add(line);
+                totalExpenses = totalExpenses.add(amount);
+            }
         }
 
-        // Filter out empty buckets
-        return buckets.values().stream()
-                .filter(bucket -> (Integer) bucket.get("loan_count") > 0)
-                .collect(Collectors.toList());
+        Map<String, Object> statement = new LinkedHashMap<>();
+        statement.put("from", from);
+        statement.put("to", to);
+        statement.put("income", income);
+        statement.put("totalIncome", totalIncome);
+        statement.put("expenses", expenses);
+        statement.put("totalExpenses", totalExpenses);
+        statement.put("netIncome", totalIncome.subtract(totalExpenses));
+        return statement;
+    }
+
+    public Map<String, Object> getIncomeStatement(YearMonth period) {
+        return getIncomeStatement(period.atDay(1), period.atEndOfMonth());
     }
 
-    private String determineAgingBucket(long daysOverdue) {
-        if (daysOverdue <= 0) {
-            return "Current (0-29 days)";
-        } else if (daysOverdue <= 29) {
-            return "Current (0-29 days)";
-        } else if (daysOverdue <= 59) {
-            return "30-59 days";
-        } else if (daysOverdue <= 89) {
-            return "60-89 days";
-        } else {
-            return "90+ days";
+    public List<LedgerColumnStore.Aggregate> getAnalyticsAggregate(
+            LedgerColumnStore.GroupBy groupBy, LocalDate from, LocalDate to) {
+        LedgerColumnStore store = readyColumnStore();
+        if (store == null) {
+            throw new IllegalStateException("Analytics store is disabled or still loading");
         }
+        return store.aggregate(groupBy, from, to);
     }
 
-    private void updateBucketWithLoan(Map<String, Object> bucketData, DTO.LoanAgingDTO loan) {
-        // Update count
-        int currentCount = (Integer) bucketData.get("loan_count");
-        bucketData.put("loan_count", currentCount + 1);
+    private LedgerColumnStore readyColumnStore() {
+        LedgerColumnStore store = columnStore.getIfAvailable();
+        return store != null && store.isReady() ? store : null;
+    }
 
-        // Update total outstanding
-        BigDecimal currentTotal = (BigDecimal) bucketData.get("total_outstanding");
-        bucketData.put("total_outstanding", currentTotal.add(loan.outstandingAmount()));
+    /**
+     * Non-empty aging buckets with their kept counts and totals, each listing its {@value #AGING_LOANS_PER_BUCKET}
+     * longest-overdue loans; {@code loans_truncated} says whether the bucket holds more than are listed.
+     */
+    public List<Map<String, Object>> getLoanAgingReport() {
+        LocalDate today = LocalDate.now();
+        List<Map<String, Object>> report = new ArrayList<>();
+        delinquencyService.getBucketTotals().forEach((bucket, total) -> {
+            if (total.loanCount() == 0) {
+                return;
+            }
+            List<Map<String, Object>> loans = new ArrayList<>();
+            for (DelinquencyDao.DelinquencyState loan : delinquencyService.getLoans(bucket, AGING_LOANS_PER_BUCKET)) {
+                Map<String, Object> loanDetail = new HashMap<>();
+                loanDetail.put("account_id", loan.accountId());
+                loanDetail.put("account_name", loan.accountName());
+                loanDetail.put("outstanding_amount", loan.outstanding());
+                loanDetail.put("due_date", loan.dueDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+                loanDetail.put("days_past_due", Math.max(0, ChronoUnit.DAYS.between(loan.dueDate(), today)));
+                loans.add(loanDetail);
+            }
 
-        // Add loan details
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> loansInBucket = (List<Map<String, Object>>) bucketData.get("loans");
+            Map<String, Object> bucketData = new HashMap<>();
+            bucketData.put("bucket", bucket.label());
+            bucketData.put("loan_count", Math.toIntExact(total.loanCount()));
+            bucketData.put("total_outstanding", total.totalOutstanding());
+            bucketData.put("loans", loans);
+            bucketData.put("loans_truncated", total.loanCount() > loans.size());
+            report.add(bucketData);
+        });
+        return report;
+    }
 
-        Map<String, Object> loanDetail = new HashMap<>();
-        loanDetail.put("account_id", loan.accountId());
-        loanDetail.put("account_name", loan.accountName());
-        loanDetail.put("outstanding_amount", loan.outstandingAmount());
-        loanDetail.put("due_date", loan.dueDate());
+    public List<Map<String, Object>> getLoanAgingSummary() {
+        List<Map<String, Object>> summary = new ArrayList<>();
+        delinquencyService.getBucketTotals().forEach((bucket, total) -> {
+            if (total.loanCount() > 0) {
+                summary.add(Map.of(
+                        "bucket", bucket.label(),
+                        "loan_count", total.loanCount(),
+                        "total_outstanding", total.totalOutstanding()));
+            }
+        });
+        return summary;
+    }
 
-        loansInBucket.add(loanDetail);
+    public List<Map<String, Object>> getLoanBucketMovements(LocalDate date) {
+        List<Map<String, Object>> movements = new ArrayList<>();
+        for (DelinquencyDao.DelinquencyState loan : delinquencyService.getBucketChanges(date)) {
+            Map<String, Object> movement = new HashMap<>();
+            movement.put("account_id", loan.accountId());
+            movement.put("account_name", loan.accountName());
+            movement.put("outstanding_amount", loan.outstanding());
+            movement.put("from_bucket", loan.previousBucket() == null ? null : loan.previousBucket().label());
+            movement.put("to_bucket", loan.bucket().label());
+            movements.add(movement);
+        }
+        return movements;
     }
 
     private Instant convertToInstant(Object dateObj) {
@@ -213,12 +281,4 @@ public class ReportingService {
         if (dateObj instanceof java.util.Date d) return d.toInstant();
         return null;
     }
-
-    private String determineBucket(long daysOverdue) {
-        if (daysOverdue < 1) return "Current (0-29 days)";
-        if (daysOverdue <= 29) return "Current (0-29 days)";
-        if (daysOverdue <= 59) return "30-59 days";
-        if (daysOverdue <= 89) return "60-89 days";
-        return "90+ days";
-    }
 }
@@ -0,0 +1,237 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.SchedulingProperties;
+import com.pezesha.cbsledger.common.exception.AccountNotFoundException;
+import com.pezesha.cbsledger.common.exception.DuplicateTransactionKeyException;
+import com.pezesha.cbsledger.common.exception.ScheduledPostingNotFoundException;
+import com.pezesha.cbsledger.domain.Recurrence;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.ScheduledPostingDao;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Posts journals at a future time, once or on a recurrence. Only postings due within the next
+ * {@code ledger.scheduling.window} are held in memory, in a timer wheel; the window is reloaded from the database
+ * before it runs out, so the number of schedules on file does not matter. Each tick releases at most
+ * {@code batch-size} due postings and leaves the rest for the following ticks, and postings due at the same instant
+ * (month-end, midnight) are spread over {@code spread} by a fixed per-posting offset.
+ *
+ * <p>Every run is claimed by bumping {@code run_count} in the same transaction as the journal, whose idempotency key
+ * is the schedule's key plus the run number, so a run is posted once even across restarts or several nodes.
+ */
+@Service
+@Slf4j
+public class ScheduledPostingService {
+
+    private record Due(long id, int runCount) {}
+
+    private final ScheduledPostingDao scheduledPostingDao;
+    private final LedgerService ledgerService;
+    private final AccountHierarchyCache accountHierarchy;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulingProperties properties;
+
+    private final TimerWheel<Due> wheel;
+    private final Set<Long> scheduled = new HashSet<>();
+    private final Deque<Due> ready = new ArrayDeque<>();
+    private Instant loadedUntil = Instant.EPOCH;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduled-postings");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ScheduledPostingService(
+            ScheduledPostingDao scheduledPostingDao,
+            LedgerService ledgerService,
+            AccountHierarchyCache accountHierarchy,
+            TransactionTemplate transactionTemplate,
+            SchedulingProperties properties) {
+        this.scheduledPostingDao = scheduledPostingDao;
+        this.ledgerService = ledgerService;
+        this.accountHierarchy = accountHierarchy;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        long tickMillis = properties.tick().toMillis();
+        int slots = (int) Math.min(
+                4_096, Math.max(64, (properties.window().toMillis() + properties.spread().toMillis()) / tickMillis));
+        this.wheel = new TimerWheel<>(tickMillis, slots, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        long tickMillis = properties.tick().toMillis();
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("Scheduled postings started: tick {}, window {}", properties.tick(), properties.window());
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    @Transactional
+    public DTO.ScheduledPostingResponse create(DTO.ScheduledPostingRequest request) {
+        Recurrence recurrence = request.recurrence() == null ? Recurrence.ONCE : request.recurrence();
+        if (!request.executeAt().isAfter(Instant.now())) {
+            throw new IllegalArgumentException("executeAt must be in the future");
+        }
+        if (recurrence == Recurrence.ONCE && request.occurrences() != null && request.occurrences() != 1) {
+            throw new IllegalArgumentException("A one-off posting runs exactly once");
+        }
+        if (request.idempotencyKey().length() > 80) {
+            throw new IllegalArgumentException("idempotencyKey must be at most 80 characters");
+        }
+
+        ledgerService.validateTransaction(
+                new DTO.TransactionRequest(request.idempotencyKey(), request.description(), request.entries()));
+        for (DTO.EntryRequest entry : request.entries()) {
+            if (!accountHierarchy.contains(entry.accountId())) {
+                throw new AccountNotFoundException(entry.accountId());
+            }
+        }
+
+        Integer remainingRuns = recurrence == Recurrence.ONCE ? Integer.valueOf(1) : request.occurrences();
+        long id;
+        try {
+            id = scheduledPostingDao.insert(request, recurrence, remainingRuns, Instant.now());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateTransactionKeyException(request.idempotencyKey());
+        }
+
+        afterCommit(() -> scheduleIfLoaded(id, 0, request.executeAt()));
+        return get(id);
+    }
+
+    public DTO.ScheduledPostingResponse get(Long id) {
+        return scheduledPostingDao.find(id).orElseThrow(() -> new ScheduledPostingNotFoundException(id));
+    }
+
+    /** Stops further runs. A run already released keeps going but is then rejected by its claim. */
+    public DTO.ScheduledPostingResponse cancel(Long id) {
+        DTO.ScheduledPostingResponse posting = get(id);
+        if (!scheduledPostingDao.cancel(id)) {
+            throw new IllegalStateException("Scheduled posting " + id + " is already " + posting.status());
+        }
+        return get(id);
+    }
+
+    void tick() {
+        try {
+            Instant now = Instant.now();
+            synchronized (this) {
+                if (!now.plus(properties.window().dividedBy(2)).isBefore(loadedUntil)) {
+                    Instant until = now.plus(properties.window());
+                    scheduledPostingDao.findDueBefore(
+                            until, run -> schedule(run.id(), run.runCount(), run.nextRunAt()));
+                    loadedUntil = until;
+                }
+                ready.addAll(wheel.advance(now.toEpochMilli()));
+            }
+
+            for (int released = 0; released < properties.batchSize(); released++) {
+                Due due;
+                synchronized (this) {
+                    due = ready.poll();
+                }
+                if (due == null) {
+                    break;
+                }
+                execute(due);
+            }
+        } catch (RuntimeException e) {
+            log.error("Scheduled posting tick failed", e);
+        }
+    }
+
+    private void execute(Due due) {
+        synchronized (this) {
+            scheduled.remove(due.id());
+        }
+        try {
+            Optional<Instant> next = transactionTemplate.execute(status -> run(due));
+            next.ifPresent(at -> scheduleIfLoaded(due.id(), due.runCount() + 1, at));
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Scheduled posting {} hit a concurrent balance update; retrying next tick", due.id());
+            synchronized (this) {
+                schedule(due.id(), due.runCount(), Instant.now());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Scheduled posting {} run {} failed: {}", due.id(), due.runCount() + 1, e.getMessage());
+            scheduledPostingDao.markFailed(due.id(), due.runCount(), e.getMessage());
+        }
+    }
+
+    /** Claims and posts one run. Returns the next run time when the schedule continues. */
+    private Optional<Instant> run(Due due) {
+        Optional<DTO.ScheduledPostingResponse> found = scheduledPostingDao.find(due.id());
+        if (found.isEmpty() || !"ACTIVE".equals(found.get().status()) || found.get().runCount() != due.runCount()) {
+            return Optional.empty();
+        }
+
+        DTO.ScheduledPostingResponse posting = found.get();
+        Integer remainingRuns = posting.remainingRuns() == null ? null : posting.remainingRuns() - 1;
+        Instant next = remainingRuns != null && remainingRuns <= 0
+                ? null
+                : posting.recurrence().next(posting.nextRunAt());
+        if (!scheduledPostingDao.claim(due.id(), due.runCount(), next, remainingRuns)) {
+            return Optional.empty();
+        }
+
+        DTO.TransactionResponse journal = ledgerService.postTransaction(new DTO.TransactionRequest(
+                posting.idempotencyKey() + "-" + (due.runCount() + 1), posting.description(), posting.entries()));
+        scheduledPostingDao.recordJournal(due.id(), journal.id());
+        return Optional.ofNullable(next);
+    }
+
+    private synchronized void scheduleIfLoaded(long id, int runCount, Instant at) {
+        if (at.isBefore(loadedUntil)) {
+            schedule(id, runCount, at);
+        }
+    }
+
+    /** Caller holds the lock. A posting already in the wheel or waiting for release is not added twice. */
+    private void schedule(long id, int runCount, Instant at) {
+        if (scheduled.add(id)) {
+            wheel.add(new Due(id, runCount), at.toEpochMilli() + spreadOffset(id));
+        }
+    }
+
+    private long spreadOffset(long id) {
+        long spreadMillis = properties.spread().toMillis();
+        return spreadMillis == 0 ? 0 : Math.floorMod(id * 0x9E3779B97F4A7C15L, spreadMillis);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
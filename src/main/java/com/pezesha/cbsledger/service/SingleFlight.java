@@ -0,0 +1,111 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.common.config.SingleFlightProperties;
+import com.pezesha.cbsledger.common.metrics.LedgerMetrics;
+import com.pezesha.cbsledger.domain.event.AccountCreatedEvent;
+import com.pezesha.cbsledger.domain.event.AccountDeletedEvent;
+import com.pezesha.cbsledger.domain.event.AccountsImportedEvent;
+import com.pezesha.cbsledger.domain.event.TransactionPostedEvent;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Coalesces identical concurrent reads: the first request for an endpoint and parameters runs the read, and requests
+ * for the same key arriving while it runs wait for its result (or its exception) instead of running their own. Nothing
+ * is kept once the read finishes, so the database sees at most one query per distinct key at a time however many
+ * requests arrive together.
+ *
+ * <p>Every commit that changes balances or accounts drops the reads in flight from the map: a request arriving after
+ * the commit starts a fresh read rather than joining one that may predate it, so a client always sees its own postings.
+ * Results are shared between requests and must not be modified.
+ */
+@Component
+@Slf4j
+public class SingleFlight {
+
+    private record Key(String endpoint, Object parameters) {}
+
+    private final SingleFlightProperties properties;
+    private final LedgerMetrics metrics;
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlight(SingleFlightProperties properties, LedgerMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    public <T> T execute(String endpoint, Supplier<T> read) {
+        return execute(endpoint, "", read);
+    }
+
+    /** Runs {@code read}, or waits for an identical one in flight; {@code parameters} must implement equals. */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String endpoint, Object parameters, Supplier<T> read) {
+        SingleFlightProperties.Endpoint settings = properties.endpoint(endpoint);
+        if (!settings.enabled()) {
+            return read.get();
+        }
+
+        Key key = new Key(endpoint, parameters);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            metrics.countSingleFlight(endpoint, "executed");
+            try {
+                T result = read.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        try {
+            T result = (T) leader.get(settings.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            metrics.countSingleFlight(endpoint, "coalesced");
+            return result;
+        } catch (TimeoutException e) {
+            log.debug("Gave up waiting {} for the {} read in flight; running it again", settings.waitTimeout(), key);
+            metrics.countSingleFlight(endpoint, "wait_timeout");
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + endpoint, e);
+        } catch (ExecutionException e) {
+            metrics.countSingleFlight(endpoint, "coalesced");
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        inFlight.clear();
+    }
+
+    @TransactionalEventListener
+    public void onAccountCreated(AccountCreatedEvent event) {
+        inFlight.clear();
+    }
+
+    @TransactionalEventListener
+    public void onAccountsImported(AccountsImportedEvent event) {
+        inFlight.clear();
+    }
+
+    @TransactionalEventListener
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        inFlight.clear();
+    }
+}
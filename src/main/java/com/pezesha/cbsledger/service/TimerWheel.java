@@ -0,0 +1,66 @@
+package com.pezesha.cbsledger.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel. Each slot covers one tick; an item further out than one revolution waits in its slot for the
+ * remaining number of rounds. Adding and expiring are O(1) per item, whatever the number of pending items.
+ *
+ * <p>Not thread-safe; callers synchronise.
+ */
+final class TimerWheel<T> {
+
+    private record Timeout<T>(T item, long deadlineTick) {}
+
+    private final long tickMillis;
+    private final List<List<Timeout<T>>> slots;
+    private long currentTick;
+    private int size;
+
+    TimerWheel(long tickMillis, int slotCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    void add(T item, long dueMillis) {
+        long deadlineTick = Math.max(dueMillis / tickMillis, currentTick);
+        slots.get(slotOf(deadlineTick)).add(new Timeout<>(item, deadlineTick));
+        size++;
+    }
+
+    /** Advances the wheel up to {@code nowMillis}, returning every item whose deadline has passed. */
+    List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick <= targetTick) {
+            List<Timeout<T>> slot = slots.get(slotOf(currentTick));
+            if (!slot.isEmpty()) {
+                List<Timeout<T>> keep = new ArrayList<>();
+                for (Timeout<T> timeout : slot) {
+                    if (timeout.deadlineTick() <= currentTick) {
+                        due.add(timeout.item());
+                    } else {
+                        keep.add(timeout);
+                    }
+                }
+                slots.set(slotOf(currentTick), keep);
+                size -= slot.size() - keep.size();
+            }
+            currentTick++;
+        }
+        return due;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+}
@@ -0,0 +1,314 @@
+package com.pezesha.cbsledger.service;
+
+import com.pezesha.cbsledger.domain.EntryLine;
+import com.pezesha.cbsledger.domain.JournalEntry;
+import com.pezesha.cbsledger.repository.JournalEntryRepository;
+import com.pezesha.cbsledger.repository.TransactionSearchDao;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Finds journals by a fragment of their description or idempotency key (a phone number, an M-Pesa reference) and by
+ * line amount. Text is normalised to lower-case letters and digits, so {@code +254 712-345} and {@code 254712345}
+ * match alike, and indexed as trigrams; a query looks up at most {@link #MAX_QUERY_GRAMS} of its trigrams, driven by
+ * the one indexing the fewest journals, and checks the candidates against the full fragment. Every posting indexes
+ * itself in the posting transaction. Journals posted before the index existed, or all of them after
+ * {@link #rebuild()}, are indexed in the background from the journal tables.
+ *
+ * <p>Per-gram journal counts are collected in memory as postings commit and added to
+ * {@code journal_search_gram_counts} every {@code ledger.search.gram-count-flush}, so postings never contend on a
+ * common gram's row. The counts only choose the driving gram; being a flush behind costs speed, never results.
+ */
+@Service
+@Slf4j
+public class TransactionSearchIndex {
+
+    public record Hits(List<JournalEntry> journals, Long nextBeforeId) {}
+
+    static final int GRAM_LENGTH = 3;
+    static final int MAX_QUERY_GRAMS = 4;
+    /** Candidates examined per request before a short page is returned with a cursor to carry on from. */
+    static final int MAX_SCANNED = 2_000;
+
+    private static final int REBUILD_BATCH = 2_000;
+    private static final long REBUILT = Long.MAX_VALUE;
+
+    private final TransactionSearchDao searchDao;
+    private final JournalEntryRepository journalEntryRepository;
+    private final PeriodService periodService;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Journals counted under each gram since the last flush. */
+    private final ConcurrentHashMap<String, Long> unflushedCounts = new ConcurrentHashMap<>();
+    private volatile boolean rebuilding;
+
+    public TransactionSearchIndex(
+            TransactionSearchDao searchDao,
+            JournalEntryRepository journalEntryRepository,
+            PeriodService periodService) {
+        this.searchDao = searchDao;
+        this.journalEntryRepository = journalEntryRepository;
+        this.periodService = periodService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!rebuilding && searchDao.findRebuiltThrough() != REBUILT) {
+            rebuilding = true;
+            rebuilder.execute(this::runRebuild);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+        flushGramCounts();
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.search.gram-count-flush:10s}")
+    public void flushGramCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String gram : unflushedCounts.keySet()) {
+            Long count = unflushedCounts.remove(gram);
+            if (count != null) {
+                counts.put(gram, count);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        try {
+            searchDao.addGramCounts(counts);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} search gram counts; retrying on the next flush", counts.size(), e);
+            count(counts);
+        }
+    }
+
+    /** Re-reads every journal into the index in the background; rows already there are kept. */
+    public synchronized void rebuild() {
+        if (rebuilding) {
+            throw new IllegalStateException("Transaction search index rebuild already running");
+        }
+        searchDao.setRebuiltThrough(0);
+        start();
+    }
+
+    /** Called in the posting transaction, after the journal is written. */
+    public void index(JournalEntry journal) {
+        List<BigDecimal> lineAmounts = new ArrayList<>(journal.entries().size() * 2);
+        for (EntryLine line : journal.entries()) {
+            lineAmounts.add(line.debit());
+            lineAmounts.add(line.credit());
+        }
+        TransactionSearchDao.IndexedJournal indexed = indexed(
+                journal.id(), journal.idempotencyKey(), journal.description(), journal.transactionDate(), lineAmounts);
+        searchDao.insert(indexed);
+
+        Map<String, Long> counts = new HashMap<>();
+        indexed.grams().forEach(gram -> counts.put(gram, 1L));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(counts);
+                }
+            });
+        } else {
+            count(counts);
+        }
+    }
+
+    /**
+     * Journals below {@code beforeId}, newest first, whose description or idempotency key contains {@code text} and
+     * with a line of {@code amount}, dated within {@code [from, to)}; any of the criteria may be left out, but not
+     * both text and amount. {@code nextBeforeId} is null once nothing older can match.
+     */
+    public Hits search(String text, BigDecimal amount, Instant from, Instant to, Long beforeId, int limit) {
+        String fragment = text == null ? "" : normalize(text);
+        BigDecimal exactAmount = amount == null ? null : scale(amount);
+        List<String> grams = rarestFirst(queryGrams(fragment));
+        if (grams.isEmpty() && exactAmount == null) {
+            throw new IllegalArgumentException(
+                    "Search needs at least " + GRAM_LENGTH + " letters or digits in q, or an amount");
+        }
+
+        List<JournalEntry> hits = new ArrayList<>(limit);
+        long cursor = beforeId == null ? Long.MAX_VALUE : beforeId;
+        int batch = Math.max(limit, 50);
+        int scanned = 0;
+        while (true) {
+            List<Long> candidates = searchDao.findCandidates(grams, exactAmount, from, to, cursor, batch);
+            Map<Long, JournalEntry> journals = load(candidates);
+            for (Long id : candidates) {
+                cursor = id;
+                scanned++;
+                JournalEntry journal = journals.get(id);
+                if (journal != null && matches(journal, fragment, from, to)) {
+                    hits.add(journal);
+                    if (hits.size() == limit) {
+                        return new Hits(hits, id);
+                    }
+                }
+            }
+            if (candidates.size() < batch) {
+                return new Hits(hits, null);
+            }
+            if (scanned >= MAX_SCANNED) {
+                return new Hits(hits, cursor);
+            }
+        }
+    }
+
+    private Map<Long, JournalEntry> load(List<Long> ids) {
+        Map<Long, JournalEntry> journals = new HashMap<>();
+        journalEntryRepository.findAllById(ids).forEach(journal -> journals.put(journal.id(), journal));
+        for (Long id : ids) {
+            if (!journals.containsKey(id)) {
+                periodService.findArchivedTransaction(id).ifPresent(journal -> journals.put(id, journal));
+            }
+        }
+        return journals;
+    }
+
+    private static boolean matches(JournalEntry journal, String fragment, Instant from, Instant to) {
+        if (from != null && journal.transactionDate().isBefore(from)) {
+            return false;
+        }
+        if (to != null && !journal.transactionDate().isBefore(to)) {
+            return false;
+        }
+        return fragment.isEmpty()
+                || normalize(journal.description()).contains(fragment)
+                || normalize(journal.idempotencyKey()).contains(fragment);
+    }
+
+    private void runRebuild() {
+        try {
+            long through = searchDao.findMaxJournalId();
+            long after = searchDao.findRebuiltThrough();
+            long journals = 0;
+            log.info("Rebuilding transaction search index for journals {} to {}", after + 1, through);
+            while (after < through) {
+                List<TransactionSearchDao.JournalText> batch = searchDao.findJournals(after, through, REBUILD_BATCH);
+                long batchEnd = batch.size() < REBUILD_BATCH
+                        ? through
+                        : batch.get(batch.size() - 1).journalEntryId();
+
+                Map<Long, List<BigDecimal>> amounts = new HashMap<>();
+                for (TransactionSearchDao.JournalAmount line : searchDao.findAmounts(after, batchEnd)) {
+                    List<BigDecimal> lineAmounts =
+                            amounts.computeIfAbsent(line.journalEntryId(), id -> new ArrayList<>());
+                    lineAmounts.add(line.debit());
+                    lineAmounts.add(line.credit());
+                }
+                count(searchDao.insertMissing(batch.stream()
+                        .map(journal -> indexed(
+                                journal.journalEntryId(),
+                                journal.idempotencyKey(),
+                                journal.description(),
+                                journal.date(),
+                                amounts.getOrDefault(journal.journalEntryId(), List.of())))
+                        .toList()));
+                searchDao.setRebuiltThrough(batchEnd);
+                journals += batch.size();
+                after = batchEnd;
+            }
+            // Anything posted since the start indexed itself.
+            searchDao.setRebuiltThrough(REBUILT);
+            log.info("Transaction search index rebuilt: {} journals", journals);
+        } catch (RuntimeException e) {
+            log.error("Transaction search index rebuild failed; it resumes on the next start", e);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /** The grams ordered by how many journals they index, fewest first; grams never counted come first. */
+    private List<String> rarestFirst(List<String> grams) {
+        if (grams.size() < 2) {
+            return grams;
+        }
+        Map<String, Long> counts = searchDao.findGramCounts(grams);
+        List<String> ordered = new ArrayList<>(grams);
+        ordered.sort(Comparator.comparingLong(gram -> counts.getOrDefault(gram, 0L)));
+        return ordered;
+    }
+
+    private void count(Map<String, Long> counts) {
+        counts.forEach((gram, count) -> unflushedCounts.merge(gram, count, Long::sum));
+    }
+
+    private static TransactionSearchDao.IndexedJournal indexed(
+            long id, String idempotencyKey, String description, Instant date, Collection<BigDecimal> lineAmounts) {
+        Set<String> grams = new LinkedHashSet<>();
+        addGrams(grams, normalize(idempotencyKey));
+        addGrams(grams, normalize(description));
+        Set<BigDecimal> amounts = new TreeSet<>();
+        for (BigDecimal amount : lineAmounts) {
+            if (amount != null && amount.signum() != 0) {
+                amounts.add(amount.setScale(4, RoundingMode.HALF_UP));
+            }
+        }
+        return new TransactionSearchDao.IndexedJournal(id, grams, amounts, date);
+    }
+
+    /** Up to {@link #MAX_QUERY_GRAMS} distinct trigrams spread over the fragment, first and last included. */
+    static List<String> queryGrams(String fragment) {
+        Set<String> all = new LinkedHashSet<>();
+        addGrams(all, fragment);
+        List<String> grams = new ArrayList<>(all);
+        if (grams.size() <= MAX_QUERY_GRAMS) {
+            return grams;
+        }
+        List<String> spread = new ArrayList<>(MAX_QUERY_GRAMS);
+        for (int i = 0; i < MAX_QUERY_GRAMS; i++) {
+            spread.add(grams.get(i * (grams.size() - 1) / (MAX_QUERY_GRAMS - 1)));
+        }
+        return spread;
+    }
+
+    private static void addGrams(Set<String> grams, String normalized) {
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static BigDecimal scale(BigDecimal amount) {
+        try {
+            return amount.abs().setScale(4, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("amount has more than 4 decimal places: " + amount);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package db.migration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Moves idempotency onto the key store: drops the unique constraint on {@code journal_entries.idempotency_key}, whose
+ * generated name differs per database, and records every existing journal key in the monthly partitions. Journal keys
+ * carry the loan scopes as suffixes, which map back to a scope and client key.
+ *
+ * <p>The key hash, scope suffixes and partition DDL are spelled out here rather than taken from the application, so
+ * what this migration writes never changes once it has been applied. The information schema is named in upper case,
+ * which H2 requires with {@code DATABASE_TO_UPPER=FALSE} and other databases fold to their own case.
+ */
+public class V11__idempotency_store extends BaseJavaMigration {
+
+    private record StoredKey(long hi, long lo, long journalEntryId, Instant createdAt) {}
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final DateTimeFormatter TABLE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** Journal key suffix to scope name, as the scopes stood when this migration was written. */
+    private static final Map<String, String> SCOPE_SUFFIXES = Map.of(
+            "-disbursement", "DISBURSEMENT",
+            "-repayment", "REPAYMENT",
+            "-writeoff", "WRITE_OFF");
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        List<String> constraints = jdbcTemplate.queryForList(
+                """
+                SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc
+                JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu
+                    ON kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME AND kcu.TABLE_SCHEMA = tc.TABLE_SCHEMA
+                WHERE tc.TABLE_NAME = 'journal_entries' AND tc.CONSTRAINT_TYPE = 'UNIQUE'
+                AND kcu.COLUMN_NAME = 'idempotency_key'
+                """,
+                String.class);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE journal_entries DROP CONSTRAINT \"" + constraint + "\"");
+        }
+
+        Map<YearMonth, List<StoredKey>> byMonth = new TreeMap<>();
+        ZoneId zone = ZoneId.systemDefault();
+        jdbcTemplate.query(
+                """
+                SELECT id, idempotency_key, COALESCE(posted_at, transaction_date) AS posted_at FROM journal_entries
+                UNION ALL
+                SELECT id, idempotency_key, COALESCE(posted_at, transaction_date) FROM journal_entries_archive
+                """,
+                rs -> {
+                    String journalKey = rs.getString("idempotency_key");
+                    Instant postedAt = rs.getTimestamp("posted_at").toInstant();
+                    YearMonth month = YearMonth.from(postedAt.atZone(zone));
+                    List<StoredKey> keys = byMonth.computeIfAbsent(month, m -> {
+                        createPartition(jdbcTemplate, m);
+                        return new ArrayList<>();
+                    });
+                    ByteBuffer hash = hash(journalKey);
+                    keys.add(new StoredKey(hash.getLong(), hash.getLong(), rs.getLong("id"), postedAt));
+                    if (keys.size() == BATCH_SIZE) {
+                        insertAll(jdbcTemplate, month, keys);
+                        keys.clear();
+                    }
+                });
+        byMonth.forEach((month, keys) -> insertAll(jdbcTemplate, month, keys));
+    }
+
+    /** SHA-256 over scope name, a zero byte and client key; the first 128 bits are the stored key. */
+    private static ByteBuffer hash(String journalKey) {
+        String scope = "TRANSACTION";
+        String clientKey = journalKey;
+        for (Map.Entry<String, String> suffix : SCOPE_SUFFIXES.entrySet()) {
+            if (journalKey.endsWith(suffix.getKey())) {
+                scope = suffix.getValue();
+                clientKey = journalKey.substring(0, journalKey.length() - suffix.getKey().length());
+                break;
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return ByteBuffer.wrap(digest.digest(clientKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void createPartition(JdbcTemplate jdbcTemplate, YearMonth month) {
+        jdbcTemplate.execute(
+                """
+                CREATE TABLE IF NOT EXISTS %s (
+                    key_hi BIGINT NOT NULL,
+                    key_lo BIGINT NOT NULL,
+                    journal_entry_id BIGINT NOT NULL,
+                    created_at TIMESTAMP NOT NULL,
+                    PRIMARY KEY (key_hi, key_lo)
+                )
+                """
+                        .formatted(table(month)));
+        jdbcTemplate.update(
+                """
+                INSERT INTO idempotency_partitions (partition_start)
+                SELECT CAST(? AS DATE) WHERE NOT EXISTS (SELECT 1 FROM idempotency_partitions WHERE partition_start = ?)
+                """,
+                Date.valueOf(month.atDay(1)),
+                Date.valueOf(month.atDay(1)));
+    }
+
+    private static void insertAll(JdbcTemplate jdbcTemplate, YearMonth month, List<StoredKey> keys) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO %s (key_hi, key_lo, journal_entry_id, created_at) VALUES (?, ?, ?, ?)"
+                        .formatted(table(month)),
+                keys,
+                1_000,
+                (ps, key) -> {
+                    ps.setLong(1, key.hi());
+                    ps.setLong(2, key.lo());
+                    ps.setLong(3, key.journalEntryId());
+                    ps.setTimestamp(4, Timestamp.from(key.createdAt()));
+                });
+    }
+
+    private static String table(YearMonth month) {
+        return "idempotency_keys_" + month.format(TABLE_SUFFIX);
+    }
+}
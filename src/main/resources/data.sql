@@ -12,6 +12,7 @@ INSERT INTO "accounts" ("id", "name", "account_type", "currency", "parent_accoun
 ('CASH-MTN-UGX', 'MTN Mobile Money UG', 'ASSET', 'UGX', 'CASH', 0, CURRENT_TIMESTAMP, 0),
 ('LOANS-REC-KES', 'Loans Receivable (KES)', 'ASSET', 'KES', 'CURR-ASSETS', 0, CURRENT_TIMESTAMP, 0),
 ('LOANS-REC-UGX', 'Loans Receivable (UGX)', 'ASSET', 'UGX', 'CURR-ASSETS', 0, CURRENT_TIMESTAMP, 0),
+('INT-REC-KES', 'Accrued Interest (KES)', 'ASSET', 'KES', 'CURR-ASSETS', 0, CURRENT_TIMESTAMP, 0),
 ('SHARE-CAPITAL', 'Shareholder Capital', 'EQUITY', 'KES', 'EQUITY', 0, CURRENT_TIMESTAMP, 0),
 ('LENDER-FUNDS', 'Lender Pooled Funds', 'LIABILITY', 'KES', 'LIABILITIES', 0, CURRENT_TIMESTAMP, 0),
 ('INC-INTEREST', 'Interest Income', 'INCOME', 'KES', 'INCOME', 0, CURRENT_TIMESTAMP, 0),
@@ -71,4 +72,17 @@ SET balance = (
     JOIN accounts a2 ON el.account_id = a2.id  -- Join to get account_type
     WHERE el.account_id = accounts.id
 )
-WHERE accounts.id IN ('CASH-MPESA-KES', 'CASH-BANK-USD', 'CASH-MTN-UGX', 'SHARE-CAPITAL');
\ No newline at end of file
+WHERE accounts.id IN ('CASH-MPESA-KES', 'CASH-BANK-USD', 'CASH-MTN-UGX', 'SHARE-CAPITAL');
+
+-- Daily movement aggregates for the seeded journals
+INSERT INTO account_daily_movements (account_id, movement_date, debit_total, credit_total, line_count)
+SELECT el.account_id, CAST(je.transaction_date AS DATE), SUM(el.debit), SUM(el.credit), COUNT(*)
+FROM entry_lines el
+JOIN journal_entries je ON el.journal_entry_id = je.id
+GROUP BY el.account_id, CAST(je.transaction_date AS DATE);
+
+-- Prefix search keys for the seeded accounts
+INSERT INTO account_search_keys (search_key, account_id)
+SELECT LOWER(id), id FROM accounts
+UNION
+SELECT LOWER(name), id FROM accounts;
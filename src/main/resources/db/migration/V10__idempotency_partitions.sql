@@ -0,0 +1,8 @@
+-- Idempotency keys live in monthly tables "idempotency_keys_yyyymm" (128-bit key hash, journal id), created ahead of
+-- time and dropped whole once past retention; this catalog lists the live months.
+CREATE TABLE IF NOT EXISTS "idempotency_partitions" (
+    "partition_start" DATE PRIMARY KEY
+);
+
+-- Uniqueness is enforced by the idempotency store from now on.
+DROP INDEX IF EXISTS "idx_journal_entries_archive_key";
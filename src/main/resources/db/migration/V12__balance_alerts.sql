@@ -0,0 +1,23 @@
+-- Balance watch rules: alert when an account's balance crosses a threshold in the given direction.
+CREATE TABLE IF NOT EXISTS "balance_watch_rules" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "account_id" VARCHAR(50) NOT NULL,
+    "direction" VARCHAR(10) NOT NULL,
+    "threshold" DECIMAL(19, 4) NOT NULL,
+    "created_at" TIMESTAMP NOT NULL
+);
+
+-- Every alert raised, kept after its rule is removed.
+CREATE TABLE IF NOT EXISTS "balance_alerts" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "rule_id" BIGINT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "direction" VARCHAR(10) NOT NULL,
+    "threshold" DECIMAL(19, 4) NOT NULL,
+    "balance_before" DECIMAL(19, 4) NOT NULL,
+    "balance_after" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "triggered_at" TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS "idx_balance_alerts_account" ON "balance_alerts" ("account_id", "id");
@@ -0,0 +1,6 @@
+-- Pooled id sequences: each value reserves a block of 100 ids that the application hands out from memory, so journals
+-- and their lines are inserted with keys already assigned and the lines go in one JDBC batch. The application moves
+-- each sequence past the ids already stored when it starts.
+CREATE SEQUENCE IF NOT EXISTS "journal_entry_id_seq" INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS "entry_line_id_seq" INCREMENT BY 100;
+ALTER SEQUENCE "account_no_seq" INCREMENT BY 100;
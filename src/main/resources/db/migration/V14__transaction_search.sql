@@ -0,0 +1,24 @@
+-- Transaction search. Trigrams of the normalised description and idempotency key (lower-case letters and digits
+-- only), and the distinct line amounts of each journal, both keyed so a lookup walks the newest journals first.
+-- Rows are written with the posting and survive period close; journal_search_state tracks the rebuild from the
+-- journal tables.
+CREATE TABLE IF NOT EXISTS "journal_search_grams" (
+    "gram" VARCHAR(3) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    PRIMARY KEY ("gram", "journal_entry_id")
+);
+
+CREATE TABLE IF NOT EXISTS "journal_search_amounts" (
+    "amount" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "transaction_date" TIMESTAMP NOT NULL,
+    PRIMARY KEY ("amount", "journal_entry_id")
+);
+
+CREATE TABLE IF NOT EXISTS "journal_search_state" (
+    "id" INT PRIMARY KEY,
+    "rebuilt_through" BIGINT NOT NULL
+);
+
+INSERT INTO "journal_search_state" ("id", "rebuilt_through")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "journal_search_state");
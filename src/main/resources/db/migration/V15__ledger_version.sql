@@ -0,0 +1,11 @@
+-- Ledger version: moved in the same transaction by every posting and every account created, imported or deleted,
+-- and read as the sum of its slots. Striped so concurrent postings rarely update the same row.
+CREATE TABLE IF NOT EXISTS "ledger_version" (
+    "slot" INT PRIMARY KEY,
+    "version" BIGINT NOT NULL
+);
+
+INSERT INTO "ledger_version" ("slot", "version")
+SELECT v.slot, 0 FROM (VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15))
+    AS v(slot)
+WHERE NOT EXISTS (SELECT 1 FROM "ledger_version");
@@ -0,0 +1,17 @@
+-- Commit watermarks. Each node publishes the oldest instant its in-flight postings are stamped or dated at, so balances
+-- as of earlier instants can be memoized on every node; rows not refreshed within the expiry belong to dead nodes and
+-- are ignored. backdate_generation moves with every posting dated before its posting time, telling the other nodes
+-- to drop what they memoized.
+CREATE TABLE IF NOT EXISTS "commit_watermarks" (
+    "node_id" VARCHAR(64) PRIMARY KEY,
+    "oldest_in_flight" TIMESTAMP NOT NULL,
+    "updated_at" TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "backdate_generation" (
+    "id" INT PRIMARY KEY,
+    "generation" BIGINT NOT NULL
+);
+
+INSERT INTO "backdate_generation" ("id", "generation")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "backdate_generation");
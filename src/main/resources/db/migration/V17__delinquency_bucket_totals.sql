@@ -0,0 +1,14 @@
+-- Loan count and outstanding total per aging bucket, adjusted in the same transaction as every loan_delinquency
+-- change so the aging summary is one small read that every node agrees on. Seeded from the loans already tracked.
+CREATE TABLE IF NOT EXISTS "delinquency_bucket_totals" (
+    "bucket" VARCHAR(20) PRIMARY KEY,
+    "loan_count" BIGINT NOT NULL,
+    "total_outstanding" DECIMAL(19, 4) NOT NULL
+);
+
+INSERT INTO "delinquency_bucket_totals" ("bucket", "loan_count", "total_outstanding")
+SELECT b.bucket,
+    (SELECT COUNT(*) FROM "loan_delinquency" d WHERE d."bucket" = b.bucket),
+    (SELECT COALESCE(SUM(d."outstanding"), 0) FROM "loan_delinquency" d WHERE d."bucket" = b.bucket)
+FROM (VALUES ('CURRENT'), ('DAYS_30_59'), ('DAYS_60_89'), ('DAYS_90_PLUS')) AS b(bucket)
+WHERE NOT EXISTS (SELECT 1 FROM "delinquency_bucket_totals");
@@ -0,0 +1,6 @@
+-- Completion flag of the online account number backfill (AccountNumberBackfill): one row once every account and
+-- entry line carries its account_no, so later startups switch line lookups to the number without scanning again.
+CREATE TABLE IF NOT EXISTS "account_no_backfill" (
+    "id" INT PRIMARY KEY,
+    "completed_at" TIMESTAMP NOT NULL
+);
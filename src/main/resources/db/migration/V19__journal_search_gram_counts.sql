@@ -0,0 +1,11 @@
+-- Roughly how many journals each search trigram indexes, so a lookup is driven by its rarest gram. Nodes add what
+-- they indexed every few seconds rather than in the posting transaction; seeded from the grams already indexed.
+CREATE TABLE IF NOT EXISTS "journal_search_gram_counts" (
+    "gram" VARCHAR(3) PRIMARY KEY,
+    "journal_count" BIGINT NOT NULL
+);
+
+INSERT INTO "journal_search_gram_counts" ("gram", "journal_count")
+SELECT "gram", COUNT(*) FROM "journal_search_grams"
+WHERE NOT EXISTS (SELECT 1 FROM "journal_search_gram_counts")
+GROUP BY "gram";
@@ -0,0 +1,44 @@
+-- Baseline of the ledger schema. Quoted lowercase names match Spring Data JDBC defaults.
+CREATE TABLE IF NOT EXISTS "accounts" (
+    "id" VARCHAR(50) PRIMARY KEY,
+    "name" VARCHAR(255) NOT NULL,
+    "account_type" VARCHAR(20) NOT NULL,
+    "currency" VARCHAR(3) NOT NULL,
+    "parent_account_id" VARCHAR(50),
+    "balance" DECIMAL(19, 4) DEFAULT 0.0000,
+    "created_at" TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    "version" INT,
+    FOREIGN KEY ("parent_account_id") REFERENCES "accounts"("id")
+);
+
+CREATE TABLE IF NOT EXISTS "journal_entries" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "idempotency_key" VARCHAR(100) NOT NULL UNIQUE,
+    "description" VARCHAR(255),
+    "transaction_date" TIMESTAMP NOT NULL,
+    "posted_at" TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    "status" VARCHAR(20) DEFAULT 'POSTED'
+);
+
+CREATE TABLE IF NOT EXISTS "entry_lines" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "journal_entry_id" BIGINT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "debit" DECIMAL(19, 4) DEFAULT 0,
+    "credit" DECIMAL(19, 4) DEFAULT 0,
+    FOREIGN KEY ("journal_entry_id") REFERENCES "journal_entries"("id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_account" ON "entry_lines" ("account_id", "journal_entry_id");
+CREATE INDEX IF NOT EXISTS "idx_journal_entries_transaction_date" ON "journal_entries" ("transaction_date");
+
+CREATE TABLE IF NOT EXISTS "loans" (
+    "loan_id" VARCHAR(50) PRIMARY KEY,
+    "account_id" VARCHAR(50) NOT NULL,
+    "principal_amount" DECIMAL(19, 4) NOT NULL,
+    "disbursed_at" TIMESTAMP NOT NULL,
+    "due_date" TIMESTAMP NOT NULL,
+    "status" VARCHAR(20) DEFAULT 'ACTIVE',
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
@@ -0,0 +1,9 @@
+-- Balance watch rules version: moved with every rule created or deleted, and polled by every node to know when to
+-- reload its rules.
+CREATE TABLE IF NOT EXISTS "balance_alert_state" (
+    "id" INT PRIMARY KEY,
+    "rules_version" BIGINT NOT NULL
+);
+
+INSERT INTO "balance_alert_state" ("id", "rules_version")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "balance_alert_state");
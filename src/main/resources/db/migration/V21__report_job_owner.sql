@@ -0,0 +1,3 @@
+-- The node running each report job (its commit watermark id). Unfinished jobs are failed only once their node has
+-- stopped publishing a watermark, never while it may still be computing them.
+ALTER TABLE "report_jobs" ADD COLUMN IF NOT EXISTS "node_id" VARCHAR(64);
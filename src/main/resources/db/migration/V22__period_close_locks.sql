@@ -0,0 +1,10 @@
+-- Period close locks. A posting dated in the past locks one slot while it checks that its period is open and until it
+-- commits; closing a period locks every slot first. Striped so backdated postings rarely wait for each other.
+CREATE TABLE IF NOT EXISTS "period_close_locks" (
+    "slot" INT PRIMARY KEY
+);
+
+INSERT INTO "period_close_locks" ("slot")
+SELECT v.slot FROM (VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15))
+    AS v(slot)
+WHERE NOT EXISTS (SELECT 1 FROM "period_close_locks");
@@ -0,0 +1,3 @@
+-- Expired idempotency partitions are first marked retired, which takes them out of every node's lookups, and dropped
+-- by a later maintenance run once all nodes have stopped probing them.
+ALTER TABLE "idempotency_partitions" ADD COLUMN IF NOT EXISTS "retired_at" TIMESTAMP;
@@ -0,0 +1,16 @@
+-- Account prefix search: each account's lower-cased id and name, written in the transaction that creates the account
+-- and removed with it, so every node searches the same committed chart.
+CREATE TABLE IF NOT EXISTS "account_search_keys" (
+    "search_key" VARCHAR(255) NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    PRIMARY KEY ("search_key", "account_id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id") ON DELETE CASCADE
+);
+
+INSERT INTO "account_search_keys" ("search_key", "account_id")
+SELECT k."search_key", k."account_id" FROM (
+    SELECT LOWER("id") AS "search_key", "id" AS "account_id" FROM "accounts"
+    UNION
+    SELECT LOWER("name"), "id" FROM "accounts"
+) AS k
+WHERE NOT EXISTS (SELECT 1 FROM "account_search_keys");
@@ -0,0 +1,50 @@
+-- Accounting periods. Closing a period moves its journals and lines into the archive tables below and
+-- records a cumulative closing balance for every account it touched.
+CREATE TABLE IF NOT EXISTS "accounting_periods" (
+    "period_start" DATE PRIMARY KEY,
+    "period_end" DATE NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "closed_at" TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS "account_period_balances" (
+    "account_id" VARCHAR(50) NOT NULL,
+    "period_start" DATE NOT NULL,
+    "period_end" DATE NOT NULL,
+    "debit_total" DECIMAL(19, 4) NOT NULL,
+    "credit_total" DECIMAL(19, 4) NOT NULL,
+    "closing_balance" DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY ("account_id", "period_start"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+-- Archive tables are keyed by period first so each month can be scanned, or dropped, on its own
+-- (and map directly onto PARTITION BY LIST ("period_start") where the database supports it).
+CREATE TABLE IF NOT EXISTS "journal_entries_archive" (
+    "period_start" DATE NOT NULL,
+    "id" BIGINT NOT NULL,
+    "idempotency_key" VARCHAR(100) NOT NULL,
+    "description" VARCHAR(255),
+    "transaction_date" TIMESTAMP NOT NULL,
+    "posted_at" TIMESTAMP,
+    "status" VARCHAR(20),
+    PRIMARY KEY ("period_start", "id")
+);
+
+CREATE TABLE IF NOT EXISTS "entry_lines_archive" (
+    "period_start" DATE NOT NULL,
+    "id" BIGINT NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "debit" DECIMAL(19, 4) DEFAULT 0,
+    "credit" DECIMAL(19, 4) DEFAULT 0,
+    "transaction_date" TIMESTAMP NOT NULL,
+    PRIMARY KEY ("period_start", "id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_journal_entries_archive_id" ON "journal_entries_archive" ("id");
+CREATE UNIQUE INDEX IF NOT EXISTS "idx_journal_entries_archive_key" ON "journal_entries_archive" ("idempotency_key");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_account"
+    ON "entry_lines_archive" ("account_id", "period_start", "transaction_date");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_journal" ON "entry_lines_archive" ("period_start", "journal_entry_id");
@@ -0,0 +1,24 @@
+ALTER TABLE "loans" ADD COLUMN IF NOT EXISTS "interest_rate" DECIMAL(9, 6);
+
+-- Daily interest accrual sub-ledger: one row per loan per business date, pointing at the aggregated
+-- journal that booked it. The primary key makes each business date idempotent per loan.
+CREATE TABLE IF NOT EXISTS "loan_accruals" (
+    "loan_id" VARCHAR(50) NOT NULL,
+    "business_date" DATE NOT NULL,
+    "amount" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    PRIMARY KEY ("loan_id", "business_date"),
+    FOREIGN KEY ("loan_id") REFERENCES "loans"("loan_id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_loan_accruals_date" ON "loan_accruals" ("business_date", "loan_id");
+
+CREATE TABLE IF NOT EXISTS "accrual_runs" (
+    "business_date" DATE PRIMARY KEY,
+    "status" VARCHAR(20) NOT NULL,
+    "loan_count" BIGINT DEFAULT 0,
+    "journal_count" INT DEFAULT 0,
+    "total_amount" DECIMAL(19, 4) DEFAULT 0,
+    "started_at" TIMESTAMP NOT NULL,
+    "completed_at" TIMESTAMP
+);
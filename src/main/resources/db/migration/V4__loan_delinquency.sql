@@ -0,0 +1,17 @@
+-- Incremental delinquency state per loan receivable account. Rows are touched when a loan operation posts
+-- against the account, and by the daily roll-forward only once next_transition_date is reached.
+CREATE TABLE IF NOT EXISTS "loan_delinquency" (
+    "account_id" VARCHAR(50) PRIMARY KEY,
+    "outstanding" DECIMAL(19, 4) NOT NULL,
+    "due_date" DATE NOT NULL,
+    "bucket" VARCHAR(20) NOT NULL,
+    "previous_bucket" VARCHAR(20),
+    "bucket_changed_on" DATE,
+    "next_transition_date" DATE,
+    "updated_at" TIMESTAMP NOT NULL,
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_transition" ON "loan_delinquency" ("next_transition_date");
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_bucket" ON "loan_delinquency" ("bucket", "due_date");
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_changed" ON "loan_delinquency" ("bucket_changed_on");
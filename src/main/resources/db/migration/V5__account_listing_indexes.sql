@@ -0,0 +1,4 @@
+-- Composite indexes for filtered, keyset-paginated account listing.
+CREATE INDEX IF NOT EXISTS "idx_accounts_type_currency" ON "accounts" ("account_type", "currency", "id");
+CREATE INDEX IF NOT EXISTS "idx_accounts_currency" ON "accounts" ("currency", "id");
+CREATE INDEX IF NOT EXISTS "idx_accounts_parent" ON "accounts" ("parent_account_id", "id");
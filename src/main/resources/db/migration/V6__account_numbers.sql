@@ -0,0 +1,11 @@
+-- Numeric surrogate keys for accounts. Entry lines carry account_no next to the external account_id; existing rows
+-- are numbered and backfilled online in batches by the application (AccountNumberBackfill).
+CREATE SEQUENCE IF NOT EXISTS "account_no_seq";
+ALTER TABLE "accounts" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+ALTER TABLE "entry_lines" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+ALTER TABLE "entry_lines_archive" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "idx_accounts_account_no" ON "accounts" ("account_no");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_account_no" ON "entry_lines" ("account_no", "journal_entry_id");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_account_no"
+    ON "entry_lines_archive" ("account_no", "period_start", "transaction_date");
@@ -0,0 +1,28 @@
+-- Future-dated and recurring postings. Each execution posts with idempotency key "<idempotency_key>-<run_count>",
+-- and run_count doubles as the optimistic claim so an execution is booked once across restarts and nodes.
+CREATE TABLE IF NOT EXISTS "scheduled_postings" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "idempotency_key" VARCHAR(80) NOT NULL UNIQUE,
+    "description" VARCHAR(255),
+    "recurrence" VARCHAR(20) NOT NULL,
+    "next_run_at" TIMESTAMP,
+    "remaining_runs" INT,
+    "run_count" INT DEFAULT 0 NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "last_journal_entry_id" BIGINT,
+    "last_error" VARCHAR(500),
+    "created_at" TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "scheduled_posting_lines" (
+    "scheduled_posting_id" BIGINT NOT NULL,
+    "line_no" INT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "debit" DECIMAL(19, 4) DEFAULT 0,
+    "credit" DECIMAL(19, 4) DEFAULT 0,
+    PRIMARY KEY ("scheduled_posting_id", "line_no"),
+    FOREIGN KEY ("scheduled_posting_id") REFERENCES "scheduled_postings"("id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_scheduled_postings_due" ON "scheduled_postings" ("status", "next_run_at");
@@ -0,0 +1,18 @@
+-- Asynchronous report jobs. A finished job's gzip-compressed JSON result is reused by later requests for the same
+-- report and parameters (cache_key) as long as the journal high-water mark has not moved.
+CREATE TABLE IF NOT EXISTS "report_jobs" (
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "report_type" VARCHAR(40) NOT NULL,
+    "parameters" VARCHAR(500) NOT NULL,
+    "cache_key" VARCHAR(600) NOT NULL,
+    "high_water_mark" BIGINT NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "result" BYTEA,
+    "result_bytes" INT,
+    "error" VARCHAR(500),
+    "created_at" TIMESTAMP NOT NULL,
+    "completed_at" TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS "idx_report_jobs_cache_key" ON "report_jobs" ("cache_key", "high_water_mark");
+CREATE INDEX IF NOT EXISTS "idx_report_jobs_completed_at" ON "report_jobs" ("completed_at");
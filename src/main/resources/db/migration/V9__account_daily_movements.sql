@@ -0,0 +1,22 @@
+-- Per-account, per-day debit/credit totals, kept up to date by every posting. Date-range reports such as the income
+-- statement read these instead of scanning entry lines.
+CREATE TABLE IF NOT EXISTS "account_daily_movements" (
+    "account_id" VARCHAR(50) NOT NULL,
+    "movement_date" DATE NOT NULL,
+    "debit_total" DECIMAL(19, 4) DEFAULT 0 NOT NULL,
+    "credit_total" DECIMAL(19, 4) DEFAULT 0 NOT NULL,
+    "line_count" BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY ("account_id", "movement_date"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_account_daily_movements_date"
+    ON "account_daily_movements" ("movement_date", "account_id");
+
+INSERT INTO "account_daily_movements" ("account_id", "movement_date", "debit_total", "credit_total", "line_count")
+SELECT l."account_id", CAST(l."transaction_date" AS DATE), SUM(l."debit"), SUM(l."credit"), COUNT(*)
+FROM (SELECT el."account_id", je."transaction_date", el."debit", el."credit"
+      FROM "entry_lines" el JOIN "journal_entries" je ON el."journal_entry_id" = je."id"
+      UNION ALL
+      SELECT "account_id", "transaction_date", "debit", "credit" FROM "entry_lines_archive") l
+GROUP BY l."account_id", CAST(l."transaction_date" AS DATE);
@@ -13,7 +13,7 @@ CREATE TABLE IF NOT EXISTS "accounts" (
 
 CREATE TABLE IF NOT EXISTS "journal_entries" (
     "id" BIGINT AUTO_INCREMENT PRIMARY KEY,
-    "idempotency_key" VARCHAR(100) NOT NULL UNIQUE,
+    "idempotency_key" VARCHAR(100) NOT NULL,
     "description" VARCHAR(255),
     "transaction_date" TIMESTAMP NOT NULL,
     "posted_at" TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -30,6 +30,12 @@ CREATE TABLE IF NOT EXISTS "entry_lines" (
     FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
 );
 
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_account" ON "entry_lines" ("account_id", "journal_entry_id");
+CREATE INDEX IF NOT EXISTS "idx_journal_entries_transaction_date" ON "journal_entries" ("transaction_date");
+CREATE INDEX IF NOT EXISTS "idx_accounts_type_currency" ON "accounts" ("account_type", "currency", "id");
+CREATE INDEX IF NOT EXISTS "idx_accounts_currency" ON "accounts" ("currency", "id");
+CREATE INDEX IF NOT EXISTS "idx_accounts_parent" ON "accounts" ("parent_account_id", "id");
+
 -- Loans table for the Aging Report
 CREATE TABLE IF NOT EXISTS "loans" (
     "loan_id" VARCHAR(50) PRIMARY KEY,
@@ -38,5 +44,337 @@ CREATE TABLE IF NOT EXISTS "loans" (
     "disbursed_at" TIMESTAMP NOT NULL,
     "due_date" TIMESTAMP NOT NULL,
     "status" VARCHAR(20) DEFAULT 'ACTIVE',
+    "interest_rate" DECIMAL(9, 6),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+-- Accounting periods. Closing a period moves its journals and lines into the archive tables below and
+-- records a cumulative closing balance for every account it touched.
+CREATE TABLE IF NOT EXISTS "accounting_periods" (
+    "period_start" DATE PRIMARY KEY,
+    "period_end" DATE NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "closed_at" TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS "account_period_balances" (
+    "account_id" VARCHAR(50) NOT NULL,
+    "period_start" DATE NOT NULL,
+    "period_end" DATE NOT NULL,
+    "debit_total" DECIMAL(19, 4) NOT NULL,
+    "credit_total" DECIMAL(19, 4) NOT NULL,
+    "closing_balance" DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY ("account_id", "period_start"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+-- Archive tables are keyed by period first so each month can be scanned, or dropped, on its own
+-- (and map directly onto PARTITION BY LIST ("period_start") where the database supports it).
+CREATE TABLE IF NOT EXISTS "journal_entries_archive" (
+    "period_start" DATE NOT NULL,
+    "id" BIGINT NOT NULL,
+    "idempotency_key" VARCHAR(100) NOT NULL,
+    "description" VARCHAR(255),
+    "transaction_date" TIMESTAMP NOT NULL,
+    "posted_at" TIMESTAMP,
+    "status" VARCHAR(20),
+    PRIMARY KEY ("period_start", "id")
+);
+
+CREATE TABLE IF NOT EXISTS "entry_lines_archive" (
+    "period_start" DATE NOT NULL,
+    "id" BIGINT NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "debit" DECIMAL(19, 4) DEFAULT 0,
+    "credit" DECIMAL(19, 4) DEFAULT 0,
+    "transaction_date" TIMESTAMP NOT NULL,
+    PRIMARY KEY ("period_start", "id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_journal_entries_archive_id" ON "journal_entries_archive" ("id");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_account"
+    ON "entry_lines_archive" ("account_id", "period_start", "transaction_date");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_journal" ON "entry_lines_archive" ("period_start", "journal_entry_id");
+
+-- Daily interest accrual sub-ledger: one row per loan per business date, pointing at the aggregated
+-- journal that booked it. The primary key makes each business date idempotent per loan.
+CREATE TABLE IF NOT EXISTS "loan_accruals" (
+    "loan_id" VARCHAR(50) NOT NULL,
+    "business_date" DATE NOT NULL,
+    "amount" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    PRIMARY KEY ("loan_id", "business_date"),
+    FOREIGN KEY ("loan_id") REFERENCES "loans"("loan_id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_loan_accruals_date" ON "loan_accruals" ("business_date", "loan_id");
+
+CREATE TABLE IF NOT EXISTS "accrual_runs" (
+    "business_date" DATE PRIMARY KEY,
+    "status" VARCHAR(20) NOT NULL,
+    "loan_count" BIGINT DEFAULT 0,
+    "journal_count" INT DEFAULT 0,
+    "total_amount" DECIMAL(19, 4) DEFAULT 0,
+    "started_at" TIMESTAMP NOT NULL,
+    "completed_at" TIMESTAMP
+);
+
+-- Incremental delinquency state per loan receivable account. Rows are touched when a loan operation posts
+-- against the account, and by the daily roll-forward only once next_transition_date is reached.
+CREATE TABLE IF NOT EXISTS "loan_delinquency" (
+    "account_id" VARCHAR(50) PRIMARY KEY,
+    "outstanding" DECIMAL(19, 4) NOT NULL,
+    "due_date" DATE NOT NULL,
+    "bucket" VARCHAR(20) NOT NULL,
+    "previous_bucket" VARCHAR(20),
+    "bucket_changed_on" DATE,
+    "next_transition_date" DATE,
+    "updated_at" TIMESTAMP NOT NULL,
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_transition" ON "loan_delinquency" ("next_transition_date");
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_bucket" ON "loan_delinquency" ("bucket", "due_date");
+CREATE INDEX IF NOT EXISTS "idx_loan_delinquency_changed" ON "loan_delinquency" ("bucket_changed_on");
+
+-- Numeric surrogate keys for accounts. Entry lines carry account_no next to the external account_id; existing rows
+-- are numbered and backfilled online in batches by the application (AccountNumberBackfill).
+CREATE SEQUENCE IF NOT EXISTS "account_no_seq" INCREMENT BY 100;
+ALTER TABLE "accounts" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+ALTER TABLE "entry_lines" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+ALTER TABLE "entry_lines_archive" ADD COLUMN IF NOT EXISTS "account_no" BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS "idx_accounts_account_no" ON "accounts" ("account_no");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_account_no" ON "entry_lines" ("account_no", "journal_entry_id");
+CREATE INDEX IF NOT EXISTS "idx_entry_lines_archive_account_no"
+    ON "entry_lines_archive" ("account_no", "period_start", "transaction_date");
+
+-- Future-dated and recurring postings. Each execution posts with idempotency key "<idempotency_key>-<run_count>",
+-- and run_count doubles as the optimistic claim so an execution is booked once across restarts and nodes.
+CREATE TABLE IF NOT EXISTS "scheduled_postings" (
+    "id" BIGINT AUTO_INCREMENT PRIMARY KEY,
+    "idempotency_key" VARCHAR(80) NOT NULL UNIQUE,
+    "description" VARCHAR(255),
+    "recurrence" VARCHAR(20) NOT NULL,
+    "next_run_at" TIMESTAMP,
+    "remaining_runs" INT,
+    "run_count" INT DEFAULT 0 NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "last_journal_entry_id" BIGINT,
+    "last_error" VARCHAR(500),
+    "created_at" TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "scheduled_posting_lines" (
+    "scheduled_posting_id" BIGINT NOT NULL,
+    "line_no" INT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "debit" DECIMAL(19, 4) DEFAULT 0,
+    "credit" DECIMAL(19, 4) DEFAULT 0,
+    PRIMARY KEY ("scheduled_posting_id", "line_no"),
+    FOREIGN KEY ("scheduled_posting_id") REFERENCES "scheduled_postings"("id"),
     FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS "idx_scheduled_postings_due" ON "scheduled_postings" ("status", "next_run_at");
+
+-- Asynchronous report jobs. A finished job's gzip-compressed JSON result is reused by later requests for the same
+-- report and parameters (cache_key) as long as the journal high-water mark has not moved.
+CREATE TABLE IF NOT EXISTS "report_jobs" (
+    "id" BIGINT AUTO_INCREMENT PRIMARY KEY,
+    "report_type" VARCHAR(40) NOT NULL,
+    "parameters" VARCHAR(500) NOT NULL,
+    "cache_key" VARCHAR(600) NOT NULL,
+    "high_water_mark" BIGINT NOT NULL,
+    "status" VARCHAR(20) NOT NULL,
+    "result" BYTEA,
+    "result_bytes" INT,
+    "error" VARCHAR(500),
+    "created_at" TIMESTAMP NOT NULL,
+    "completed_at" TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS "idx_report_jobs_cache_key" ON "report_jobs" ("cache_key", "high_water_mark");
+CREATE INDEX IF NOT EXISTS "idx_report_jobs_completed_at" ON "report_jobs" ("completed_at");
+
+-- Per-account, per-day debit/credit totals, kept up to date by every posting. Date-range reports such as the income
+-- statement read these instead of scanning entry lines.
+CREATE TABLE IF NOT EXISTS "account_daily_movements" (
+    "account_id" VARCHAR(50) NOT NULL,
+    "movement_date" DATE NOT NULL,
+    "debit_total" DECIMAL(19, 4) DEFAULT 0 NOT NULL,
+    "credit_total" DECIMAL(19, 4) DEFAULT 0 NOT NULL,
+    "line_count" BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY ("account_id", "movement_date"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id")
+);
+
+CREATE INDEX IF NOT EXISTS "idx_account_daily_movements_date"
+    ON "account_daily_movements" ("movement_date", "account_id");
+
+-- Idempotency keys live in monthly tables "idempotency_keys_yyyymm" (128-bit key hash, journal id), created ahead of
+-- time and dropped whole once past retention; this catalog lists the live months.
+CREATE TABLE IF NOT EXISTS "idempotency_partitions" (
+    "partition_start" DATE PRIMARY KEY
+);
+
+-- Balance watch rules: alert when an account's balance crosses a threshold in the given direction.
+CREATE TABLE IF NOT EXISTS "balance_watch_rules" (
+    "id" BIGINT AUTO_INCREMENT PRIMARY KEY,
+    "account_id" VARCHAR(50) NOT NULL,
+    "direction" VARCHAR(10) NOT NULL,
+    "threshold" DECIMAL(19, 4) NOT NULL,
+    "created_at" TIMESTAMP NOT NULL
+);
+
+-- Every alert raised, kept after its rule is removed.
+CREATE TABLE IF NOT EXISTS "balance_alerts" (
+    "id" BIGINT AUTO_INCREMENT PRIMARY KEY,
+    "rule_id" BIGINT NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    "direction" VARCHAR(10) NOT NULL,
+    "threshold" DECIMAL(19, 4) NOT NULL,
+    "balance_before" DECIMAL(19, 4) NOT NULL,
+    "balance_after" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "triggered_at" TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS "idx_balance_alerts_account" ON "balance_alerts" ("account_id", "id");
+
+-- Pooled id sequences: each value reserves a block of 100 ids that the application hands out from memory, so journals
+-- and their lines are inserted with keys already assigned and the lines go in one JDBC batch.
+CREATE SEQUENCE IF NOT EXISTS "journal_entry_id_seq" INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS "entry_line_id_seq" INCREMENT BY 100;
+
+-- Transaction search. Trigrams of the normalised description and idempotency key (lower-case letters and digits
+-- only), and the distinct line amounts of each journal, both keyed so a lookup walks the newest journals first.
+-- Rows are written with the posting and survive period close; journal_search_state tracks the rebuild from the
+-- journal tables.
+CREATE TABLE IF NOT EXISTS "journal_search_grams" (
+    "gram" VARCHAR(3) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    PRIMARY KEY ("gram", "journal_entry_id")
+);
+
+CREATE TABLE IF NOT EXISTS "journal_search_amounts" (
+    "amount" DECIMAL(19, 4) NOT NULL,
+    "journal_entry_id" BIGINT NOT NULL,
+    "transaction_date" TIMESTAMP NOT NULL,
+    PRIMARY KEY ("amount", "journal_entry_id")
+);
+
+CREATE TABLE IF NOT EXISTS "journal_search_state" (
+    "id" INT PRIMARY KEY,
+    "rebuilt_through" BIGINT NOT NULL
+);
+
+INSERT INTO "journal_search_state" ("id", "rebuilt_through")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "journal_search_state");
+
+-- Ledger version: moved in the same transaction by every posting and every account created, imported or deleted,
+-- and read as the sum of its slots. Striped so concurrent postings rarely update the same row.
+CREATE TABLE IF NOT EXISTS "ledger_version" (
+    "slot" INT PRIMARY KEY,
+    "version" BIGINT NOT NULL
+);
+
+INSERT INTO "ledger_version" ("slot", "version")
+SELECT v.slot, 0 FROM (VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15))
+    AS v(slot)
+WHERE NOT EXISTS (SELECT 1 FROM "ledger_version");
+
+-- Commit watermarks. Each node publishes the oldest instant its in-flight postings are stamped or dated at, so balances
+-- as of earlier instants can be memoized on every node; rows not refreshed within the expiry belong to dead nodes and
+-- are ignored. backdate_generation moves with every posting dated before its posting time, telling the other nodes
+-- to drop what they memoized.
+CREATE TABLE IF NOT EXISTS "commit_watermarks" (
+    "node_id" VARCHAR(64) PRIMARY KEY,
+    "oldest_in_flight" TIMESTAMP NOT NULL,
+    "updated_at" TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "backdate_generation" (
+    "id" INT PRIMARY KEY,
+    "generation" BIGINT NOT NULL
+);
+
+INSERT INTO "backdate_generation" ("id", "generation")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "backdate_generation");
+
+-- Loan count and outstanding total per aging bucket, adjusted in the same transaction as every loan_delinquency
+-- change so the aging summary is one small read that every node agrees on.
+CREATE TABLE IF NOT EXISTS "delinquency_bucket_totals" (
+    "bucket" VARCHAR(20) PRIMARY KEY,
+    "loan_count" BIGINT NOT NULL,
+    "total_outstanding" DECIMAL(19, 4) NOT NULL
+);
+
+INSERT INTO "delinquency_bucket_totals" ("bucket", "loan_count", "total_outstanding")
+SELECT b.bucket,
+    (SELECT COUNT(*) FROM "loan_delinquency" d WHERE d."bucket" = b.bucket),
+    (SELECT COALESCE(SUM(d."outstanding"), 0) FROM "loan_delinquency" d WHERE d."bucket" = b.bucket)
+FROM (VALUES ('CURRENT'), ('DAYS_30_59'), ('DAYS_60_89'), ('DAYS_90_PLUS')) AS b(bucket)
+WHERE NOT EXISTS (SELECT 1 FROM "delinquency_bucket_totals");
+
+-- Completion flag of the online account number backfill (AccountNumberBackfill): one row once every account and
+-- entry line carries its account_no, so later startups switch line lookups to the number without scanning again.
+CREATE TABLE IF NOT EXISTS "account_no_backfill" (
+    "id" INT PRIMARY KEY,
+    "completed_at" TIMESTAMP NOT NULL
+);
+
+-- Roughly how many journals each search trigram indexes, so a lookup is driven by its rarest gram. Nodes add what
+-- they indexed every few seconds rather than in the posting transaction.
+CREATE TABLE IF NOT EXISTS "journal_search_gram_counts" (
+    "gram" VARCHAR(3) PRIMARY KEY,
+    "journal_count" BIGINT NOT NULL
+);
+
+-- Balance watch rules version: moved with every rule created or deleted, and polled by every node to know when to
+-- reload its rules.
+CREATE TABLE IF NOT EXISTS "balance_alert_state" (
+    "id" INT PRIMARY KEY,
+    "rules_version" BIGINT NOT NULL
+);
+
+INSERT INTO "balance_alert_state" ("id", "rules_version")
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM "balance_alert_state");
+
+-- The node running each report job (its commit watermark id). Unfinished jobs are failed only once their node has
+-- stopped publishing a watermark, never while it may still be computing them.
+ALTER TABLE "report_jobs" ADD COLUMN IF NOT EXISTS "node_id" VARCHAR(64);
+
+-- Period close locks. A posting dated in the past locks one slot while it checks that its period is open and until it
+-- commits; closing a period locks every slot first. Striped so backdated postings rarely wait for each other.
+CREATE TABLE IF NOT EXISTS "period_close_locks" (
+    "slot" INT PRIMARY KEY
+);
+
+INSERT INTO "period_close_locks" ("slot")
+SELECT v.slot FROM (VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15))
+    AS v(slot)
+WHERE NOT EXISTS (SELECT 1 FROM "period_close_locks");
+
+-- Expired idempotency partitions are first marked retired, which takes them out of every node's lookups, and dropped
+-- by a later maintenance run once all nodes have stopped probing them.
+ALTER TABLE "idempotency_partitions" ADD COLUMN IF NOT EXISTS "retired_at" TIMESTAMP;
+
+-- Account prefix search: each account's lower-cased id and name, written in the transaction that creates the account
+-- and removed with it, so every node searches the same committed chart.
+CREATE TABLE IF NOT EXISTS "account_search_keys" (
+    "search_key" VARCHAR(255) NOT NULL,
+    "account_id" VARCHAR(50) NOT NULL,
+    PRIMARY KEY ("search_key", "account_id"),
+    FOREIGN KEY ("account_id") REFERENCES "accounts"("id") ON DELETE CASCADE
+);
+
+INSERT INTO "account_search_keys" ("search_key", "account_id")
+SELECT k."search_key", k."account_id" FROM (
+    SELECT LOWER("id") AS "search_key", "id" AS "account_id" FROM "accounts"
+    UNION
+    SELECT LOWER("name"), "id" FROM "accounts"
+) AS k
+WHERE NOT EXISTS (SELECT 1 FROM "account_search_keys");
@@ -0,0 +1,87 @@
+package com.pezesha.cbsledger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.pezesha.cbsledger.domain.Account;
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.service.LedgerService;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class JournalWriterTests {
+
+    @Autowired
+    LedgerService ledgerService;
+
+    @Autowired
+    JournalWriter journalWriter;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void linesOnOneAccountApplyAsOneNetDelta() {
+        String cash = newAccount(AccountType.ASSET, "CASH");
+        String fees = newAccount(AccountType.INCOME, "INC-FEES");
+
+        DTO.TransactionResponse posted = ledgerService.postTransaction(new DTO.TransactionRequest(
+                "net-" + cash,
+                "Split collection",
+                List.of(
+                        new DTO.EntryRequest(cash, new BigDecimal("100.00"), BigDecimal.ZERO),
+                        new DTO.EntryRequest(cash, new BigDecimal("50.00"), BigDecimal.ZERO),
+                        new DTO.EntryRequest(cash, BigDecimal.ZERO, new BigDecimal("30.00")),
+                        new DTO.EntryRequest(fees, BigDecimal.ZERO, new BigDecimal("120.00")))));
+
+        assertThat(posted.entries()).hasSize(4);
+        Account after = accountRepository.findById(cash).orElseThrow();
+        assertThat(after.balance()).isEqualByComparingTo("120.00");
+        assertThat(after.version()).isEqualTo(1);
+        assertThat(accountRepository.findById(fees).orElseThrow().balance()).isEqualByComparingTo("120.00");
+    }
+
+    @Test
+    void staleVersionRollsBackEveryAccountInTheBatch() {
+        String cash = newAccount(AccountType.ASSET, "CASH");
+        String fees = newAccount(AccountType.INCOME, "INC-FEES");
+        Account staleCash = accountRepository.findById(cash).orElseThrow();
+        Account fresh = accountRepository.findById(fees).orElseThrow();
+
+        ledgerService.postTransaction(new DTO.TransactionRequest(
+                "moved-" + cash,
+                "Moves the cash account's version",
+                List.of(
+                        new DTO.EntryRequest(cash, new BigDecimal("10.00"), BigDecimal.ZERO),
+                        new DTO.EntryRequest("SHARE-CAPITAL", BigDecimal.ZERO, new BigDecimal("10.00")))));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> journalWriter.applyBalanceChanges(
+                        Map.of(cash, staleCash, fees, fresh),
+                        Map.of(cash, new BigDecimal("5.00"), fees, new BigDecimal("5.00")))))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessageContaining(cash);
+
+        assertThat(accountRepository.findById(cash).orElseThrow().balance()).isEqualByComparingTo("10.00");
+        Account feesAfter = accountRepository.findById(fees).orElseThrow();
+        assertThat(feesAfter.balance()).isEqualByComparingTo("0");
+        assertThat(feesAfter.version()).isEqualTo(fresh.version());
+    }
+
+    private String newAccount(AccountType type, String parentId) {
+        String id = type.name().substring(0, 3) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        ledgerService.createAccount(new DTO.CreateAccountRequest(id, "Test " + id, type, "KES", parentId));
+        return id;
+    }
+}
@@ -0,0 +1,85 @@
+package com.pezesha.cbsledger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.pezesha.cbsledger.domain.ImportStatus;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.AccountRepository;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class AccountImportServiceTests {
+
+    @Autowired
+    AccountImportService accountImportService;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    AccountHierarchyCache accountHierarchy;
+
+    @Test
+    void childrenListedBeforeTheirParentsAreCreatedUnderThem() {
+        String p = "IMP-" + UUID.randomUUID().toString().substring(0, 8);
+        String csv =
+                """
+                id,name,type,currency,parentId
+                %1$s-GRANDCHILD,Grandchild,ASSET,KES,%1$s-CHILD
+                %1$s-CHILD,Child,ASSET,KES,%1$s
+                %1$s,Parent,ASSET,KES,CURR-ASSETS
+                """
+                        .formatted(p);
+
+        Map<String, DTO.AccountImportResult> results = new HashMap<>();
+        DTO.AccountImportSummary summary = accountImportService.importAccounts(
+                new StringReader(csv),
+                AccountImportService.Format.CSV,
+                result -> results.put(result.accountId(), result));
+
+        assertThat(summary.created()).isEqualTo(3);
+        assertThat(results.values()).allMatch(result -> result.status() == ImportStatus.CREATED);
+        assertThat(accountRepository.findById(p + "-GRANDCHILD").orElseThrow().parentAccountId())
+                .isEqualTo(p + "-CHILD");
+        assertThat(accountHierarchy.find(p + "-CHILD").orElseThrow().parentId()).isEqualTo(p);
+        assertThat(accountHierarchy.ancestors(p + "-GRANDCHILD")).contains(p + "-CHILD", p, "CURR-ASSETS");
+    }
+
+    @Test
+    void cyclesAndTheirDescendantsAreRejected() {
+        String p = "CYC-" + UUID.randomUUID().toString().substring(0, 8);
+        String csv =
+                """
+                id,name,type,currency,parentId
+                %1$s-X,X,ASSET,KES,%1$s-Y
+                %1$s-Y,Y,ASSET,KES,%1$s-X
+                %1$s-Z,Z,ASSET,KES,%1$s-X
+                %1$s-OK,Unrelated,ASSET,KES,CURR-ASSETS
+                """
+                        .formatted(p);
+
+        List<DTO.AccountImportResult> results = new ArrayList<>();
+        DTO.AccountImportSummary summary =
+                accountImportService.importAccounts(new StringReader(csv), AccountImportService.Format.CSV, results::add);
+
+        Map<String, DTO.AccountImportResult> byId = results.stream()
+                .collect(Collectors.toMap(DTO.AccountImportResult::accountId, result -> result));
+        assertThat(summary.created()).isEqualTo(1);
+        assertThat(summary.rejected()).isEqualTo(3);
+        assertThat(byId.get(p + "-X").message()).contains("cycle");
+        assertThat(byId.get(p + "-Y").message()).contains("cycle");
+        assertThat(byId.get(p + "-Z").status()).isEqualTo(ImportStatus.REJECTED);
+        assertThat(byId.get(p + "-OK").status()).isEqualTo(ImportStatus.CREATED);
+        assertThat(accountRepository.existsById(p + "-X")).isFalse();
+        assertThat(accountRepository.existsById(p + "-Z")).isFalse();
+    }
+}
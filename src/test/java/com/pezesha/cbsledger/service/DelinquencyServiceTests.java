@@ -0,0 +1,111 @@
+package com.pezesha.cbsledger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.AgingBucket;
+import com.pezesha.cbsledger.dto.DTO;
+import com.pezesha.cbsledger.repository.DelinquencyDao;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class DelinquencyServiceTests {
+
+    @Autowired
+    LedgerService ledgerService;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    DelinquencyService delinquencyService;
+
+    @Autowired
+    DelinquencyDao delinquencyDao;
+
+    @Test
+    void bucketTotalsFollowDisbursementAndRepayment() {
+        String loanAccount = newLoanAccount();
+        DelinquencyDao.BucketTotal before = current();
+
+        loanService.disburseLoan(
+                loanAccount, "CASH-MPESA-KES", new BigDecimal("5000.00"), BigDecimal.ZERO, "disb-" + loanAccount);
+
+        assertThat(delinquencyDao.find(loanAccount))
+                .get()
+                .extracting(DelinquencyDao.DelinquencyState::bucket)
+                .isEqualTo(AgingBucket.CURRENT);
+        assertThat(current().loanCount()).isEqualTo(before.loanCount() + 1);
+        assertThat(current().totalOutstanding())
+                .isEqualByComparingTo(before.totalOutstanding().add(new BigDecimal("5000.00")));
+        assertTotalsMatchLoans();
+
+        loanService.recordRepayment(
+                "CASH-MPESA-KES",
+                loanAccount,
+                "INC-INTEREST",
+                new BigDecimal("2000.00"),
+                BigDecimal.ZERO,
+                "part-" + loanAccount);
+
+        assertThat(current().loanCount()).isEqualTo(before.loanCount() + 1);
+        assertThat(current().totalOutstanding())
+                .isEqualByComparingTo(before.totalOutstanding().add(new BigDecimal("3000.00")));
+        assertTotalsMatchLoans();
+
+        loanService.recordRepayment(
+                "CASH-MPESA-KES",
+                loanAccount,
+                "INC-INTEREST",
+                new BigDecimal("3000.00"),
+                BigDecimal.ZERO,
+                "full-" + loanAccount);
+
+        assertThat(delinquencyDao.find(loanAccount)).isEmpty();
+        assertThat(current().loanCount()).isEqualTo(before.loanCount());
+        assertThat(current().totalOutstanding()).isEqualByComparingTo(before.totalOutstanding());
+        assertTotalsMatchLoans();
+    }
+
+    @Test
+    void agingReportListsLoansOfEachNonEmptyBucket() {
+        String loanAccount = newLoanAccount();
+        loanService.disburseLoan(
+                loanAccount, "CASH-MPESA-KES", new BigDecimal("750.00"), BigDecimal.ZERO, "disb-" + loanAccount);
+
+        assertThat(delinquencyService.getLoans(AgingBucket.CURRENT, Integer.MAX_VALUE))
+                .extracting(DelinquencyDao.DelinquencyState::accountId)
+                .contains(loanAccount);
+        assertThat(delinquencyService.getLoans(AgingBucket.DAYS_90_PLUS, Integer.MAX_VALUE))
+                .extracting(DelinquencyDao.DelinquencyState::accountId)
+                .doesNotContain(loanAccount);
+    }
+
+    private String newLoanAccount() {
+        String id = "LOAN-" + UUID.randomUUID().toString().substring(0, 8);
+        ledgerService.createAccount(
+                new DTO.CreateAccountRequest(id, "Loan " + id, AccountType.ASSET, "KES", "LOANS-REC-KES"));
+        return id;
+    }
+
+    private DelinquencyDao.BucketTotal current() {
+        return delinquencyService
+                .getBucketTotals()
+                .getOrDefault(AgingBucket.CURRENT, new DelinquencyDao.BucketTotal(0, BigDecimal.ZERO));
+    }
+
+    private void assertTotalsMatchLoans() {
+        Map<AgingBucket, DelinquencyDao.BucketTotal> kept = delinquencyService.getBucketTotals();
+        delinquencyDao.sumByBucket().forEach((bucket, total) -> {
+            assertThat(kept.get(bucket).loanCount()).as(bucket.name()).isEqualTo(total.loanCount());
+            assertThat(kept.get(bucket).totalOutstanding())
+                    .as(bucket.name())
+                    .isEqualByComparingTo(total.totalOutstanding());
+        });
+    }
+}
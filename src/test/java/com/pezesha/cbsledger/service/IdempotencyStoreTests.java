@@ -0,0 +1,105 @@
+package com.pezesha.cbsledger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.pezesha.cbsledger.common.exception.DuplicateTransactionKeyException;
+import com.pezesha.cbsledger.domain.IdempotencyScope;
+import com.pezesha.cbsledger.dto.DTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class IdempotencyStoreTests {
+
+    @Autowired
+    LedgerService ledgerService;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void repostingAKeyIsRejectedAndPostsNothing() {
+        String key = "dup-" + UUID.randomUUID();
+        BigDecimal before = ledgerService.getAccountBalance("INC-FEES");
+
+        DTO.TransactionResponse first = ledgerService.postTransaction(fee(key, "150.00"));
+
+        assertThatThrownBy(() -> ledgerService.postTransaction(fee(key, "150.00")))
+                .isInstanceOf(DuplicateTransactionKeyException.class)
+                .hasMessageContaining(key);
+        assertThat(idempotencyStore.find(IdempotencyScope.TRANSACTION, key)).contains(first.id());
+        assertThat(ledgerService.getAccountBalance("INC-FEES"))
+                .isEqualByComparingTo(before.add(new BigDecimal("150.00")));
+    }
+
+    @Test
+    void sameClientKeyIsIndependentPerScope() {
+        String key = "scoped-" + UUID.randomUUID();
+
+        DTO.TransactionResponse plain = ledgerService.postTransaction(fee(key, "10.00"));
+        DTO.TransactionResponse repayment =
+                ledgerService.postTransaction(IdempotencyScope.REPAYMENT, fee(key, "10.00"));
+
+        assertThat(repayment.id()).isNotEqualTo(plain.id());
+        assertThat(idempotencyStore.find(IdempotencyScope.TRANSACTION, key)).contains(plain.id());
+        assertThat(idempotencyStore.find(IdempotencyScope.REPAYMENT, key)).contains(repayment.id());
+    }
+
+    @Test
+    void concurrentRecordsOfOneKeyLetExactlyOneCommit() throws Exception {
+        String key = "race-" + UUID.randomUUID();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Long>> attempts = new ArrayList<>();
+            for (long journalId : new long[] {-1L, -2L}) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    return transaction.execute(status -> {
+                        idempotencyStore.record(IdempotencyScope.TRANSACTION, key, journalId, Instant.now());
+                        return journalId;
+                    });
+                }));
+            }
+
+            List<Long> committed = new ArrayList<>();
+            List<Throwable> rejected = new ArrayList<>();
+            for (Future<Long> attempt : attempts) {
+                try {
+                    committed.add(attempt.get(30, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    rejected.add(e.getCause());
+                }
+            }
+
+            assertThat(committed).hasSize(1);
+            assertThat(rejected).singleElement().isInstanceOf(DuplicateTransactionKeyException.class);
+            assertThat(idempotencyStore.find(IdempotencyScope.TRANSACTION, key)).contains(committed.get(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DTO.TransactionRequest fee(String key, String amount) {
+        return new DTO.TransactionRequest(
+                key,
+                "Processing fee",
+                List.of(
+                        new DTO.EntryRequest("CASH-MPESA-KES", new BigDecimal(amount), BigDecimal.ZERO),
+                        new DTO.EntryRequest("INC-FEES", BigDecimal.ZERO, new BigDecimal(amount))));
+    }
+}
@@ -0,0 +1,81 @@
+package com.pezesha.cbsledger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.pezesha.cbsledger.domain.AccountType;
+import com.pezesha.cbsledger.domain.IdempotencyScope;
+import com.pezesha.cbsledger.dto.DTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Closing a month is permanent, so this class gets a database of its own and throws it away afterwards instead of
+ * closing a month under every other test sharing the default context.
+ */
+@SpringBootTest(
+        properties = "spring.datasource.url=jdbc:h2:mem:periodtests;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@DirtiesContext
+class PeriodServiceTests {
+
+    @Autowired
+    LedgerService ledgerService;
+
+    @Autowired
+    PeriodService periodService;
+
+    @Test
+    void asOfBalancesSurviveBackdatingAndPeriodClose() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        String account = "ASSET-" + UUID.randomUUID().toString().substring(0, 8);
+        ledgerService.createAccount(
+                new DTO.CreateAccountRequest(account, "Period test " + account, AccountType.ASSET, "KES", "CASH"));
+
+        DTO.TransactionResponse first = post(account, "100.00", at(month, 10));
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 5))).isEqualByComparingTo("0");
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 15))).isEqualByComparingTo("100.00");
+
+        // Dated before an instant already read: the memoized balance must not hide it.
+        post(account, "25.00", at(month, 12));
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 15))).isEqualByComparingTo("125.00");
+
+        DTO.PeriodCloseResponse closed = periodService.closePeriod(month);
+
+        assertThat(closed.journalsArchived()).isGreaterThanOrEqualTo(2);
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 5))).isEqualByComparingTo("0");
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 11))).isEqualByComparingTo("100.00");
+        assertThat(ledgerService.getAccountBalanceAsOf(account, at(month, 15))).isEqualByComparingTo("125.00");
+        assertThat(ledgerService.getAccountBalanceAsOf(account, Instant.now())).isEqualByComparingTo("125.00");
+        assertThat(ledgerService.getAccountBalance(account)).isEqualByComparingTo("125.00");
+        assertThat(ledgerService.getTransaction(first.id()).idempotencyKey()).isEqualTo(first.idempotencyKey());
+
+        assertThatThrownBy(() -> post(account, "1.00", at(month, 20))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> periodService.closePeriod(month)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private DTO.TransactionResponse post(String account, String amount, Instant date) {
+        return ledgerService.postTransaction(
+                IdempotencyScope.TRANSACTION,
+                new DTO.TransactionRequest(
+                        "period-" + UUID.randomUUID(),
+                        "Capital injection",
+                        List.of(
+                                new DTO.EntryRequest(account, new BigDecimal(amount), BigDecimal.ZERO),
+                                new DTO.EntryRequest("SHARE-CAPITAL", BigDecimal.ZERO, new BigDecimal(amount)))),
+                date);
+    }
+
+    private static Instant at(YearMonth month, int day) {
+        return month.atDay(day).atTime(LocalTime.NOON).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}